@@ -8,6 +8,7 @@ import AdminLogin from "./components/AdminLogin";
 import AdminDashboard from "./components/AdminDashboard";
 import AdminComplaintDetail from "./components/AdminComplaintDetail";
 import ProtectedRoute from "./components/ProtectedRoute";
+import { logout } from "./auth";
 import AdminComplaints from "./components/AdminComplaints";
 import "./App.css";
 
@@ -97,9 +98,7 @@ function AppInner() {
   };
 
   const handleLogout = () => {
-    localStorage.removeItem("emysore_token");
-    localStorage.removeItem("emysore_user");
-    localStorage.removeItem("emysore_role");
+    logout();
     setUser(null);
     setRole(null);
     navigate("/");
@@ -0,0 +1,80 @@
+// Session helpers. Access tokens are short-lived; the refresh token renews them and is
+// single-use, so concurrent 401s share one refresh instead of racing to rotate it.
+
+const API = "http://localhost:8080/api/auth";
+
+let refreshing = null;
+
+export function saveSession(data) {
+  localStorage.setItem("emysore_token", data.token);
+  if (data.refreshToken) localStorage.setItem("emysore_refresh_token", data.refreshToken);
+  localStorage.setItem("emysore_user", data.username);
+  if (data.role) localStorage.setItem("emysore_role", data.role);
+}
+
+export function clearSession() {
+  localStorage.removeItem("emysore_token");
+  localStorage.removeItem("emysore_refresh_token");
+  localStorage.removeItem("emysore_user");
+  localStorage.removeItem("emysore_role");
+}
+
+function refreshSession() {
+  if (!refreshing) {
+    refreshing = (async () => {
+      const refreshToken = localStorage.getItem("emysore_refresh_token");
+      if (!refreshToken) return false;
+      try {
+        const res = await fetch(`${API}/refresh`, {
+          method: "POST",
+          headers: { "Content-Type": "application/json" },
+          body: JSON.stringify({ refreshToken }),
+        });
+        if (!res.ok) {
+          clearSession();
+          return false;
+        }
+        saveSession(await res.json());
+        return true;
+      } catch (e) {
+        // Network error: keep the session, the next request tries again
+        return false;
+      }
+    })().finally(() => {
+      refreshing = null;
+    });
+  }
+  return refreshing;
+}
+
+// fetch with the access token attached; on 401 renews it once and retries
+export async function authFetch(url, options = {}) {
+  const send = () => {
+    const headers = { ...(options.headers || {}) };
+    const token = localStorage.getItem("emysore_token");
+    if (token) headers["Authorization"] = `Bearer ${token}`;
+    return fetch(url, { ...options, headers });
+  };
+  const res = await send();
+  if (res.status !== 401 || !(await refreshSession())) return res;
+  return send();
+}
+
+// Revokes the refresh token and the current access token, then forgets the session
+export async function logout() {
+  const token = localStorage.getItem("emysore_token");
+  const refreshToken = localStorage.getItem("emysore_refresh_token");
+  clearSession();
+  if (!token && !refreshToken) return;
+  const headers = { "Content-Type": "application/json" };
+  if (token) headers["Authorization"] = `Bearer ${token}`;
+  try {
+    await fetch(`${API}/logout`, {
+      method: "POST",
+      headers,
+      body: JSON.stringify({ refreshToken }),
+    });
+  } catch (e) {
+    console.error("Logout request failed:", e);
+  }
+}
@@ -1,5 +1,7 @@
 import React, { useEffect, useState } from "react";
 import { useParams, useNavigate } from "react-router-dom";
+import { authFetch } from "../auth";
+import { originalImageSrc, webImageSrc } from "../images";
 import "./AdminComplaintDetail.css";
 
 export default function AdminComplaintDetail() {
@@ -19,11 +21,9 @@ export default function AdminComplaintDetail() {
   const fetchComplaintDetails = async () => {
     try {
       setLoading(true);
-      const token = localStorage.getItem("emysore_token");
       const headers = { Accept: "application/json" };
-      if (token) headers["Authorization"] = `Bearer ${token}`;
 
-      const res = await fetch(`http://localhost:8080/api/complaints/${id}`, {
+      const res = await authFetch(`http://localhost:8080/api/complaints/${id}`, {
         headers
       });
       if (!res.ok) throw new Error(`Failed to fetch complaint: HTTP ${res.status}`);
@@ -44,11 +44,9 @@ export default function AdminComplaintDetail() {
     if (!complaint) return;
     try {
       setActionLoading(true);
-      const token = localStorage.getItem("emysore_token");
-      const res = await fetch(`http://localhost:8080/api/complaints/${id}/escalate`, {
+      const res = await authFetch(`http://localhost:8080/api/complaints/${id}/escalate`, {
         method: "POST",
         headers: {
-          "Authorization": `Bearer ${token}`,
           "Content-Type": "application/json"
         },
         body: JSON.stringify({ escalated: true })
@@ -70,11 +68,9 @@ export default function AdminComplaintDetail() {
     if (!complaint) return;
     try {
       setActionLoading(true);
-      const token = localStorage.getItem("emysore_token");
-      const res = await fetch(`http://localhost:8080/api/complaints/${id}/status`, {
+      const res = await authFetch(`http://localhost:8080/api/complaints/${id}/status`, {
         method: "PATCH",
         headers: {
-          "Authorization": `Bearer ${token}`,
           "Content-Type": "application/json"
         },
         body: JSON.stringify({
@@ -196,7 +192,9 @@ export default function AdminComplaintDetail() {
             {complaint.imageUrl && (
               <div className="info-group">
                 <label>Attached Image</label>
-                <img src={complaint.imageUrl} alt="complaint" className="complaint-image" />
+                <a href={originalImageSrc(complaint)} target="_blank" rel="noreferrer">
+                  <img src={webImageSrc(complaint)} alt="complaint" className="complaint-image" />
+                </a>
               </div>
             )}
 
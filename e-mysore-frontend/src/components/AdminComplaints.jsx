@@ -1,12 +1,11 @@
 import React, { useEffect, useState } from "react";
+import { authFetch } from "../auth";
 
 export default function AdminComplaints() {
   const [complaints, setComplaints] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
 
-  const token = localStorage.getItem("emysore_token");
-
   useEffect(() => {
     fetchComplaints();
   }, []);
@@ -29,9 +28,8 @@ export default function AdminComplaints() {
     try {
       const body = { status, remarks };
       const headers = { "Content-Type": "application/json" };
-      if (token) headers["Authorization"] = `Bearer ${token}`;
 
-      const res = await fetch(`http://localhost:8080/api/complaints/${id}/status`, {
+      const res = await authFetch(`http://localhost:8080/api/complaints/${id}/status`, {
         method: "PATCH",
         headers,
         body: JSON.stringify(body),
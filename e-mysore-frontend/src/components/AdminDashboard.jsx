@@ -1,5 +1,7 @@
 import React, { useEffect, useState } from "react";
 import { useNavigate } from "react-router-dom";
+import { authFetch, logout } from "../auth";
+import { thumbnailSrc } from "../images";
 import "./AdminDashboard.css";
 
 export default function AdminDashboard() {
@@ -19,9 +21,7 @@ export default function AdminDashboard() {
       setLoading(true);
       setError(null);
       const headers = { 'Accept': 'application/json' };
-      const token = localStorage.getItem('emysore_token');
-      if (token) headers['Authorization'] = `Bearer ${token}`;
-      const res = await fetch("http://localhost:8080/api/complaints?size=100", { headers });
+      const res = await authFetch("http://localhost:8080/api/complaints?size=100", { headers });
       if (!res.ok) throw new Error(`HTTP ${res.status}`);
       const data = await res.json();
       // Handle both paginated and non-paginated responses
@@ -73,9 +73,7 @@ export default function AdminDashboard() {
   const displayedComplaints = filtered.slice(0, 10);
 
   const handleLogout = () => {
-    localStorage.removeItem("emysore_token");
-    localStorage.removeItem("emysore_user");
-    localStorage.removeItem("emysore_role");
+    logout();
     navigate("/admin/login");
   };
 
@@ -207,6 +205,7 @@ export default function AdminDashboard() {
               <thead>
                 <tr>
                   <th>ID</th>
+                  <th>Photo</th>
                   <th>Title</th>
                   <th>Category</th>
                   <th>Status</th>
@@ -219,6 +218,11 @@ export default function AdminDashboard() {
                 {displayedComplaints.map(complaint => (
                   <tr key={complaint.id} className={`status-${complaint.status}`}>
                     <td className="complaint-id">#{complaint.id}</td>
+                    <td className="complaint-photo">
+                      {complaint.imageUrl && (
+                        <img src={thumbnailSrc(complaint)} alt="" className="complaint-thumbnail" loading="lazy" />
+                      )}
+                    </td>
                     <td className="complaint-title">{complaint.title}</td>
                     <td className="complaint-category">
                       <span className="badge">{complaint.category || "Other"}</span>
@@ -1,5 +1,6 @@
 import React, { useState } from "react";
 import { useNavigate, Link } from "react-router-dom";
+import { saveSession } from "../auth";
 import "./Login.css";
 
 function AdminLogin() {
@@ -26,9 +27,7 @@ function AdminLogin() {
         throw new Error("Not an admin account");
       }
 
-      localStorage.setItem("emysore_token", data.token);
-      localStorage.setItem("emysore_user", data.username);
-      if (data.role) localStorage.setItem("emysore_role", data.role);
+      saveSession(data);
       navigate("/admin");
     } catch (err) {
       setError(err.message);
@@ -1,5 +1,5 @@
 import React, { useState } from "react";
-import axios from "axios";
+import { authFetch } from "../auth";
 import "./ComplaintForm.css";
 
 const ComplaintForm = () => {
@@ -31,15 +31,14 @@ const ComplaintForm = () => {
       formData.append("location", location);
       if (image) formData.append("image", image);
 
-      const token = localStorage.getItem("emysore_token");
-      const headers = {};
-      if (token) headers["Authorization"] = `Bearer ${token}`;
-
-      await axios.post(
-        "http://localhost:8080/api/complaints/with-image",
-        formData,
-        { headers }
-      );
+      const res = await authFetch("http://localhost:8080/api/complaints/with-image", {
+        method: "POST",
+        body: formData,
+      });
+      if (!res.ok) {
+        const data = await res.json().catch(() => ({}));
+        throw new Error(data.error || "Failed to submit complaint. Please try again.");
+      }
 
       setSuccess(true);
       setTitle("");
@@ -51,7 +50,7 @@ const ComplaintForm = () => {
       setTimeout(() => setSuccess(false), 3000);
     } catch (err) {
       console.error(err);
-      setError(err.response?.data?.error || "Failed to submit complaint. Please try again.");
+      setError(err.message || "Failed to submit complaint. Please try again.");
     } finally {
       setLoading(false);
     }
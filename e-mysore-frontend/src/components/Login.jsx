@@ -1,5 +1,6 @@
 import React, { useState } from "react";
 import { useNavigate, Link } from "react-router-dom";
+import { saveSession } from "../auth";
 import "./Login.css";
 
 function Login({ onLogin }) {
@@ -21,9 +22,7 @@ function Login({ onLogin }) {
       });
       const data = await res.json();
       if (!res.ok) throw new Error(data.error || "Login failed");
-      localStorage.setItem("emysore_token", data.token);
-      localStorage.setItem("emysore_user", data.username);
-      if (data.role) localStorage.setItem("emysore_role", data.role);
+      saveSession(data);
       onLogin && onLogin(data.username, data.token);
       navigate("/");
     } catch (err) {
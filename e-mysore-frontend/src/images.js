@@ -0,0 +1,20 @@
+// Complaint image URLs. The backend serves local uploads under a relative /uploads/ path, and
+// renditions appear some seconds after a report, so every variant falls back to the original.
+
+const API_ORIGIN = "http://localhost:8080";
+
+function resolve(url) {
+  return url && url.startsWith("/") ? API_ORIGIN + url : url;
+}
+
+export function thumbnailSrc(complaint) {
+  return resolve(complaint.imageThumbnailUrl || complaint.imageUrl);
+}
+
+export function webImageSrc(complaint) {
+  return resolve(complaint.imageWebUrl || complaint.imageUrl);
+}
+
+export function originalImageSrc(complaint) {
+  return resolve(complaint.imageUrl);
+}
@@ -0,0 +1,60 @@
+package com.emysore.ecom_mysore_backend.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashes and checks per second on one thread with the application's {@link PasswordEncoder} at
+ * each bcrypt strength, i.e. registrations and logins per second per core of the hashing pool.
+ * Needs the {@code jmh} profile:
+ * <pre>
+ *   ./mvnw -Pjmh test-compile exec:exec
+ *   ./mvnw -Pjmh test-compile exec:exec -Djmh.args="PasswordHashingBenchmark -p bcryptStrength=12"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class PasswordHashingBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"10", "12"})
+    public int bcryptStrength;
+
+    private PasswordEncoder encoder;
+    private String stored;
+
+    @Setup
+    public void setUp() {
+        encoder = new SecurityConfig().passwordEncoder("bcrypt", bcryptStrength);
+        stored = encoder.encode(PASSWORD);
+    }
+
+    /** What a login costs the hashing pool. */
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(PASSWORD, stored);
+    }
+
+    /** What a registration, or a rehash on login, costs the hashing pool. */
+    @Benchmark
+    public String encode() {
+        return encoder.encode(PASSWORD);
+    }
+}
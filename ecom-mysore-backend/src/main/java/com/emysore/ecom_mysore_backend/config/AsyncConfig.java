@@ -0,0 +1,142 @@
+package com.emysore.ecom_mysore_backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Bounded worker pools for work that must not run on request threads. With
+ * {@code spring.threads.virtual.enabled=true} the pools keep their size limits but run each task
+ * on a virtual thread, as Tomcat and the {@code @Scheduled} jobs then do.
+ */
+@Configuration
+public class AsyncConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Runs ML enrichment after a complaint has been committed. The queue is bounded; when it is
+     * full the task is rejected and the complaint stays PENDING_ENRICHMENT until the retry sweep.
+     */
+    @Bean(name = "mlEnrichmentExecutor")
+    public ThreadPoolTaskExecutor mlEnrichmentExecutor(
+            @Value("${ml.enrichment.poolSize:4}") int poolSize,
+            @Value("${ml.enrichment.queueCapacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ml-enrich-");
+        executor.setVirtualThreads(virtualThreads);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * Records outbox delivery results off the mail and SMS client threads. Callers wait for a
+     * batch before claiming the next one, so the queue only needs to hold one batch.
+     */
+    @Bean(name = "notificationDispatchExecutor")
+    public ThreadPoolTaskExecutor notificationDispatchExecutor(
+            @Value("${notification.outbox.workers:4}") int workers,
+            @Value("${notification.outbox.batchSize:50}") int batchSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(batchSize);
+        executor.setThreadNamePrefix("notify-");
+        executor.setVirtualThreads(virtualThreads);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * Single thread that claims outbox batches and waits for their delivery, keeping that work
+     * off the shared scheduler. Extra wake-ups while one is queued are dropped.
+     */
+    @Bean(name = "notificationDrainExecutor")
+    public ThreadPoolTaskExecutor notificationDrainExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("notify-drain-");
+        executor.setVirtualThreads(virtualThreads);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * Password hashing for login and registration, kept off request threads. Work is CPU-bound,
+     * so the pool defaults to one platform thread per core. The queue is short: when it is full
+     * the task is rejected and the caller answers 429 rather than making logins wait behind a
+     * storm.
+     */
+    @Bean(name = "passwordHashExecutor")
+    public ThreadPoolTaskExecutor passwordHashExecutor(
+            @Value("${security.password.workers:0}") int workers,
+            @Value("${security.password.queueCapacity:64}") int queueCapacity) {
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * Finishes a login once its password has been checked: the rehash UPDATE, the refresh-token
+     * insert and JWT signing. These wait on the database, so they stay off the hashing pool and
+     * follow {@code spring.threads.virtual.enabled}. When the queue is full the hashing thread
+     * finishes the login itself, which slows hashing until the pool's own queue answers 429.
+     */
+    @Bean(name = "loginExecutor")
+    public ThreadPoolTaskExecutor loginExecutor(
+            @Value("${security.login.workers:8}") int workers,
+            @Value("${security.login.queueCapacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("login-");
+        executor.setVirtualThreads(virtualThreads);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * Makes thumbnail and web-size renditions of uploaded images. Decoding a photo takes a lot of
+     * CPU and heap, so there are few workers, all on platform threads. When the queue is full the
+     * task is rejected and the object stays PENDING until the retry sweep.
+     */
+    @Bean(name = "imageRenditionExecutor")
+    public ThreadPoolTaskExecutor imageRenditionExecutor(
+            @Value("${storage.renditions.workers:2}") int workers,
+            @Value("${storage.renditions.queueCapacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-rendition-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+}
@@ -2,13 +2,19 @@ package com.emysore.ecom_mysore_backend.controller;
 
 import com.emysore.ecom_mysore_backend.model.User;
 import com.emysore.ecom_mysore_backend.model.Role;
+import com.emysore.ecom_mysore_backend.service.RefreshTokenService;
 import com.emysore.ecom_mysore_backend.service.UserService;
+import com.emysore.ecom_mysore_backend.security.AccessTokenRevocations;
 import com.emysore.ecom_mysore_backend.security.JwtUtil;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
@@ -23,9 +29,19 @@ public class AuthController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private AccessTokenRevocations revocations;
+
     @Autowired(required = false)
     private ObjectMapper objectMapper;
 
+    @Autowired
+    @Qualifier("loginExecutor")
+    private Executor loginExecutor;
+
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody Map<String, String> body) {
         String username = body.get("username");
@@ -55,17 +71,21 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> body) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody Map<String, String> body) {
         String username = body.get("username");
         String password = body.get("password");
         if (username == null || password == null) {
-            return ResponseEntity.badRequest().body(Map.of("error", "username and password required"));
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body(Map.of("error", "username and password required")));
         }
-        return userService.authenticate(username, password)
-                .map(user -> {
+        // The request thread is released while the password is checked; the token insert and
+        // signing then run on the login pool, never on the hashing pool
+        return userService.authenticate(username, password).thenApplyAsync(maybe -> maybe
+                .<ResponseEntity<?>>map(user -> {
                     String token = jwtUtil.generateToken(user);
                     Map<String, Object> resp = Map.of(
                         "token", token,
+                        "refreshToken", refreshTokenService.issue(user),
                         "username", user.getUsername(),
                         "role", user.getRole().name()
                     );
@@ -75,6 +95,35 @@ public class AuthController {
                     }
                     return ResponseEntity.ok(resp);
                 })
-                .orElseGet(() -> ResponseEntity.status(401).body(Map.of("error", "invalid_credentials")));
+                .orElseGet(() -> ResponseEntity.status(401).body(Map.of("error", "invalid_credentials"))), loginExecutor);
+    }
+
+    /** Trades a refresh token for a new access token and the next refresh token. */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody Map<String, String> body) {
+        return refreshTokenService.rotate(body.get("refreshToken"))
+                .<ResponseEntity<?>>map(rotation -> ResponseEntity.ok(Map.of(
+                    "token", jwtUtil.generateToken(rotation.user()),
+                    "refreshToken", rotation.refreshToken(),
+                    "username", rotation.user().getUsername(),
+                    "role", rotation.user().getRole().name()
+                )))
+                .orElseGet(() -> ResponseEntity.status(401).body(Map.of("error", "invalid_refresh_token")));
+    }
+
+    /** Ends the login: its refresh tokens and the presented access token stop working. */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                    @RequestBody(required = false) Map<String, String> body) {
+        if (body != null) {
+            refreshTokenService.revoke(body.get("refreshToken"));
+        }
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            Claims claims = jwtUtil.parseClaims(authHeader.substring(7));
+            if (claims != null && claims.getId() != null) {
+                revocations.revoke(claims.getId(), claims.getExpiration());
+            }
+        }
+        return ResponseEntity.noContent().build();
     }
 }
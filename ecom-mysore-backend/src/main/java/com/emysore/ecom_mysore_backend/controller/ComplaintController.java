@@ -30,6 +30,9 @@ public class ComplaintController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private StoredObjectService storedObjectService;
+
     @PostMapping(consumes = {"multipart/form-data"})
     @PreAuthorize("hasRole('CITIZEN')")
     public ResponseEntity<?> createComplaint(
@@ -48,7 +51,9 @@ public class ComplaintController {
             complaint.setCategory(category);
             complaint.setLocation(location);
 
-            return ResponseEntity.ok(complaintService.createComplaint(complaint, user, image));
+            // Stored before the complaint's transaction opens, so the upload holds no connection
+            String imageSha256 = image != null && !image.isEmpty() ? storedObjectService.prepare(image) : null;
+            return ResponseEntity.ok(complaintService.createComplaint(complaint, user, imageSha256));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(Map.of("error", e.getMessage()));
@@ -73,35 +78,57 @@ public class ComplaintController {
             complaint.setCategory(category);
             complaint.setLocation(location);
 
-            return ResponseEntity.ok(complaintService.createComplaint(complaint, user, image));
+            // Stored before the complaint's transaction opens, so the upload holds no connection
+            String imageSha256 = image != null && !image.isEmpty() ? storedObjectService.prepare(image) : null;
+            return ResponseEntity.ok(complaintService.createComplaint(complaint, user, imageSha256));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(Map.of("error", e.getMessage()));
         }
     }
 
+    /**
+     * Lists complaints as {@link ComplaintListItem} cards. Offset mode ({@code page}) returns a
+     * {@link Page} with a total count; passing {@code cursor} (empty for the first slice) switches
+     * to keyset mode, which returns a {@link CursorPage} whose {@code nextCursor} fetches the
+     * following slice.
+     */
     @GetMapping
-    public ResponseEntity<Page<Complaint>> getComplaints(
+    public ResponseEntity<?> getComplaints(
             @RequestParam(value = "status", required = false) String status,
             @RequestParam(value = "category", required = false) String category,
             @RequestParam(value = "escalated", required = false) Boolean escalated,
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "size", defaultValue = "10") int size,
-            @RequestParam(value = "sort", defaultValue = "createdAt,desc") String[] sort) {
+            @RequestParam(value = "sort", defaultValue = "createdAt,desc") String[] sort,
+            @RequestParam(value = "cursor", required = false) String cursor) {
         
         // parse sort param as property and direction (e.g. createdAt,desc)
         String sortProp = sort.length > 0 ? sort[0] : "createdAt";
         String sortDir = sort.length > 1 ? sort[1] : "desc";
-        PageRequest pageRequest = PageRequest.of(page, size,
-            Sort.by(Sort.Direction.fromString(sortDir.toUpperCase()), sortProp));
-        
+        Sort.Direction direction = Sort.Direction.fromString(sortDir.toUpperCase());
+
+        if (cursor != null) {
+            try {
+                return ResponseEntity.ok(complaintService.getComplaintsByCursor(
+                    status, category, escalated, sortProp, direction, cursor, size));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+            }
+        }
+
+        PageRequest pageRequest = PageRequest.of(page, size, Sort.by(direction, sortProp));
         return ResponseEntity.ok(complaintService.getComplaints(status, category, escalated, pageRequest));
     }
 
+    /** Ranked full-text search; every word of {@code q} is matched as a prefix. Fast enough for typeahead. */
     @GetMapping("/search")
-    public ResponseEntity<List<Complaint>> searchComplaints(
-            @RequestParam("q") String searchTerm) {
-        return ResponseEntity.ok(complaintService.searchComplaints(searchTerm));
+    public ResponseEntity<Page<ComplaintSearchHit>> searchComplaints(
+            @RequestParam("q") String searchTerm,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return ResponseEntity.ok(complaintService.searchComplaints(searchTerm, PageRequest.of(page, size)));
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,173 @@
+package com.emysore.ecom_mysore_backend.controller;
+
+import com.emysore.ecom_mysore_backend.service.FileStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves the local upload store under {@code /uploads/}. Content-addressed objects (see
+ * StoredObjectService) never change, so they get their hash as a strong ETag and a year of
+ * {@code immutable} caching. Older keys get a weak ETag from size and mtime and
+ * {@code storage.serve.mutableMaxAge}. Conditional requests are answered with 304. A single byte
+ * range is answered with 206; several ranges get the whole file.
+ * <p>
+ * On Tomcat the body is handed to the connector's sendfile, so the bytes go from the page cache to
+ * the socket without passing through the JVM. Elsewhere, e.g. under MockMvc, it is written with
+ * {@link FileChannel#transferTo}.
+ */
+@Controller
+public class UploadController {
+
+    private static final String PREFIX = "/uploads/";
+
+    // objects/ab/<sha256>[-variant].ext; the group is the ETag
+    private static final Pattern CONTENT_ADDRESSED =
+        Pattern.compile("objects/[0-9a-f]{2}/([0-9a-f]{64}(?:-[a-z]+)?)(?:\\.[A-Za-z0-9]+)?");
+
+    // Request attributes of Tomcat's NIO connector (org.apache.catalina.Globals)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable().getHeaderValue();
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Value("${storage.serve.mutableMaxAge:PT1H}")
+    private Duration mutableMaxAge;
+
+    // Below this Tomcat's own default, copying is cheaper than setting up sendfile
+    @Value("${storage.serve.sendfileMinSize:48KB}")
+    private DataSize sendfileMinSize;
+
+    @GetMapping("/uploads/**")
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String key = UriUtils.decode(request.getRequestURI().substring(request.getContextPath().length() + PREFIX.length()),
+            StandardCharsets.UTF_8);
+        Path file;
+        BasicFileAttributes attributes;
+        try {
+            file = fileStorageService.localFile(key);
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            // Missing, or a key that climbs out of the store
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!attributes.isRegularFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        Matcher contentAddressed = CONTENT_ADDRESSED.matcher(key);
+        String etag;
+        if (contentAddressed.matches()) {
+            etag = "\"" + contentAddressed.group(1) + "\"";
+            response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE);
+        } else {
+            etag = "W/\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.maxAge(mutableMaxAge).cachePublic().getHeaderValue());
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Sets ETag and Last-Modified, and answers 304 (or 412) when the client's copy is current
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request, etag, lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException malformed) {
+                ranges = List.of();
+            }
+            if (ranges.size() == 1) {
+                start = ranges.get(0).getRangeStart(size);
+                end = ranges.get(0).getRangeEnd(size);
+                if (start >= size || start > end) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentType(MediaTypeFactory.getMediaType(key).orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        if (length >= sendfileMinSize.toBytes() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long written = channel.transferTo(position, end + 1 - position, out);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+            }
+        }
+    }
+
+    // A range is only honoured against the representation the client already holds part of
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // Strong comparison only
+            return !etag.startsWith("W/") && ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException notADate) {
+            return false;
+        }
+    }
+}
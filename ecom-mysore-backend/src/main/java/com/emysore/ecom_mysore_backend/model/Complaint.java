@@ -1,13 +1,26 @@
 package com.emysore.ecom_mysore_backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "complaints")
+@Table(name = "complaints", indexes = {
+    // Mirrors V4__Add_Complaint_List_Indexes.sql so dev (ddl-auto=create-drop) gets the same indexes
+    @Index(name = "idx_complaints_status_escalated_created_at", columnList = "status, escalated, created_at"),
+    @Index(name = "idx_complaints_category_created_at", columnList = "category, created_at"),
+    @Index(name = "idx_complaints_escalated_created_at", columnList = "escalated, created_at"),
+    // V8__Add_Complaint_Escalation_Levels.sql
+    @Index(name = "idx_complaints_status_deadline", columnList = "status, deadline"),
+    // V11__Create_Stored_Objects.sql
+    @Index(name = "idx_complaints_image_sha256", columnList = "image_sha256"),
+    // V12__Add_Enrichment_Attempts.sql
+    @Index(name = "idx_complaints_enrichment_status_next_attempt", columnList = "enrichment_status, enrichment_next_attempt_at")
+})
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Complaint {
 
@@ -22,12 +35,20 @@ public class Complaint {
     private String urgency = "Standard";
     private String location;
     private String imageUrl;
+    // Renditions of the image, filled in once the rendition worker has made them
+    private String imageThumbnailUrl;
+    private String imageWebUrl;
+    // The stored object imageUrl points at; see StoredObjectService
+    @JsonIgnore
+    @Column(length = 64)
+    private String imageSha256;
     private String assignedDept;
     @Lob
     @Column(name = "department_hierarchy", columnDefinition = "TEXT")
     private String departmentHierarchy;
     private LocalDateTime createdAt = LocalDateTime.now();
     private LocalDateTime updatedAt = LocalDateTime.now();
+    // SLA deadline of the current escalation level; null once the top level is reached
     private LocalDateTime deadline;
 
     // New fields
@@ -36,10 +57,28 @@ public class Complaint {
     private User user;
 
     private boolean escalated = false;
+
+    // Position in departmentHierarchy; SlaEngine moves it up one level per missed deadline
+    @Column(nullable = false)
+    private int escalationLevel = 0;
+    // Fixed when the hierarchy is set, so escalation never re-parses the chain
+    @Column(nullable = false)
+    private int maxEscalationLevel = 1;
     private String sentiment;
     private Double confidenceScore;
     private String remarks;
 
+    // PENDING_ENRICHMENT until the async ML worker has filled in category/urgency/department;
+    // FALLBACK_ENRICHED while only the local classifier has, see ComplaintEnrichmentService
+    private String enrichmentStatus;
+    // Failed ML attempts so far, and when the retry sweep may try again (null once ML has answered)
+    @JsonIgnore
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private int enrichmentAttempts = 0;
+    @JsonIgnore
+    private LocalDateTime enrichmentNextAttemptAt;
+
     public String getDepartmentHierarchy() { return departmentHierarchy; }
     public void setDepartmentHierarchy(String departmentHierarchy) { this.departmentHierarchy = departmentHierarchy; }
 
@@ -15,8 +15,9 @@ public class ComplaintAuditLog {
     @JoinColumn(name = "complaint_id", nullable = false)
     private Complaint complaint;
 
+    // Null for system actions (ML enrichment, automatic escalation)
     @ManyToOne
-    @JoinColumn(name = "user_id", nullable = false)
+    @JoinColumn(name = "user_id")
     private User user;
 
     @Column(nullable = false)
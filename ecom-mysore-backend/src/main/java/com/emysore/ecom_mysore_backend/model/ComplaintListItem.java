@@ -0,0 +1,15 @@
+package com.emysore.ecom_mysore_backend.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Columns a complaint list card needs. Selected directly by the list queries, so the description,
+ * department hierarchy and user are never loaded; full detail comes from /api/complaints/{id}.
+ * {@code imageUrl} is the original upload the dashboard falls back to; the rendition URLs are
+ * null until the renditions exist, or for images that have none.
+ */
+public record ComplaintListItem(Long id, String title, String category, String status, String urgency,
+                                boolean escalated, String location, LocalDateTime createdAt,
+                                LocalDateTime updatedAt, String imageUrl, String imageThumbnailUrl,
+                                String imageWebUrl) {
+}
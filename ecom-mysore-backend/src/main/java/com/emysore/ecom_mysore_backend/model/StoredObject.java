@@ -0,0 +1,73 @@
+package com.emysore.ecom_mysore_backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An uploaded file, identified by the SHA-256 of its content. {@code refCount} complaints point at
+ * it; renditions are derived from it by the rendition worker and tracked by {@code renditionStatus}.
+ */
+@Entity
+@Table(name = "stored_objects", indexes = {
+    @Index(name = "idx_stored_objects_rendition_status_updated_at", columnList = "rendition_status, updated_at"),
+    @Index(name = "idx_stored_objects_ref_count_updated_at", columnList = "ref_count, updated_at")
+})
+public class StoredObject {
+
+    public static final String RENDITIONS_PENDING = "PENDING";
+    public static final String RENDITIONS_READY = "READY";
+    // Not an image ImageIO can decode, or too large to decode safely; only the original is served
+    public static final String RENDITIONS_UNSUPPORTED = "UNSUPPORTED";
+    // Claimed by the garbage sweep: its files are being deleted and the row goes last
+    public static final String DELETING = "DELETING";
+
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private String storageKey;
+
+    @Column(length = 100)
+    private String contentType;
+
+    @Column(nullable = false)
+    private long sizeBytes;
+
+    @Column(nullable = false)
+    private int refCount;
+
+    @Column(nullable = false, length = 20)
+    private String renditionStatus;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    // Getters and Setters
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+
+    public String getStorageKey() { return storageKey; }
+    public void setStorageKey(String storageKey) { this.storageKey = storageKey; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public int getRefCount() { return refCount; }
+    public void setRefCount(int refCount) { this.refCount = refCount; }
+
+    public String getRenditionStatus() { return renditionStatus; }
+    public void setRenditionStatus(String renditionStatus) { this.renditionStatus = renditionStatus; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
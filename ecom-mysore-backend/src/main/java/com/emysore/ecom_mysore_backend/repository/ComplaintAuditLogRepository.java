@@ -3,12 +3,26 @@ package com.emysore.ecom_mysore_backend.repository;
 import com.emysore.ecom_mysore_backend.model.ComplaintAuditLog;
 import com.emysore.ecom_mysore_backend.model.Complaint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ComplaintAuditLogRepository extends JpaRepository<ComplaintAuditLog, Long> {
     List<ComplaintAuditLog> findByComplaintOrderByTimestampDesc(Complaint complaint);
     List<ComplaintAuditLog> findByComplaintIdOrderByTimestampDesc(Long complaintId);
+
+    @Query("select l.comment from ComplaintAuditLog l where l.complaint.id = :complaintId and l.action = 'COMMENT_ADDED' and l.comment is not null")
+    List<String> findCommentTextByComplaintId(@Param("complaintId") Long complaintId);
+
+    // (complaint id, comment) pairs for the search index rebuild; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select l.complaint.id, l.comment from ComplaintAuditLog l where l.action = 'COMMENT_ADDED' and l.comment is not null")
+    Stream<Object[]> streamCommentText();
 }
\ No newline at end of file
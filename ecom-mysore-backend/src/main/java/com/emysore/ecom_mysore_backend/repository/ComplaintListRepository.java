@@ -0,0 +1,19 @@
+package com.emysore.ecom_mysore_backend.repository;
+
+import com.emysore.ecom_mysore_backend.model.Complaint;
+import com.emysore.ecom_mysore_backend.model.ComplaintListItem;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/** List queries that select {@link ComplaintListItem} columns instead of whole entities. */
+public interface ComplaintListRepository {
+
+    Page<ComplaintListItem> findListItems(Specification<Complaint> spec, Pageable pageable);
+
+    /** First {@code limit} matches in {@code sort} order, without a count query. */
+    List<ComplaintListItem> findListItems(Specification<Complaint> spec, Sort sort, int limit);
+}
@@ -0,0 +1,72 @@
+package com.emysore.ecom_mysore_backend.repository;
+
+import com.emysore.ecom_mysore_backend.model.Complaint;
+import com.emysore.ecom_mysore_backend.model.ComplaintListItem;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+class ComplaintListRepositoryImpl implements ComplaintListRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<ComplaintListItem> findListItems(Specification<Complaint> spec, Pageable pageable) {
+        TypedQuery<ComplaintListItem> query = listQuery(spec, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        // count only runs when the page does not already tell us the total
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<ComplaintListItem> findListItems(Specification<Complaint> spec, Sort sort, int limit) {
+        return listQuery(spec, sort).setMaxResults(limit).getResultList();
+    }
+
+    private TypedQuery<ComplaintListItem> listQuery(Specification<Complaint> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ComplaintListItem> query = cb.createQuery(ComplaintListItem.class);
+        Root<Complaint> root = query.from(Complaint.class);
+        query.select(cb.construct(ComplaintListItem.class,
+            root.get("id"), root.get("title"), root.get("category"), root.get("status"), root.get("urgency"),
+            root.get("escalated"), root.get("location"), root.get("createdAt"), root.get("updatedAt"),
+            root.get("imageUrl"), root.get("imageThumbnailUrl"), root.get("imageWebUrl")));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(toOrders(sort, root, cb));
+        }
+        return entityManager.createQuery(query);
+    }
+
+    private long count(Specification<Complaint> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Complaint> root = query.from(Complaint.class);
+        query.select(cb.count(root));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -1,13 +1,53 @@
 package com.emysore.ecom_mysore_backend.repository;
 
 import com.emysore.ecom_mysore_backend.model.Complaint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ComplaintRepository extends JpaRepository<Complaint, Long> {
+public interface ComplaintRepository extends JpaRepository<Complaint, Long>, JpaSpecificationExecutor<Complaint>,
+        ComplaintListRepository {
     List<Complaint> findByStatus(String status);
     List<Complaint> findByStatusAndEscalated(String status, boolean escalated);
     List<Complaint> findByStatusAndCreatedAtBefore(String status, java.time.LocalDateTime createdAt);
+
+    // Longest-overdue first, so a complaint that keeps failing backs off behind newer ones
+    @Query("select c.id from Complaint c where c.enrichmentStatus in :statuses and c.enrichmentNextAttemptAt <= :now "
+        + "order by c.enrichmentNextAttemptAt, c.id")
+    List<Long> findIdsDueForEnrichment(@Param("statuses") Collection<String> statuses,
+                                       @Param("now") java.time.LocalDateTime now,
+                                       Pageable pageable);
+
+    // Every complaint sharing the photo gets the renditions at once
+    @Transactional
+    @Modifying
+    @Query("update Complaint c set c.imageThumbnailUrl = :thumbnailUrl, c.imageWebUrl = :webUrl where c.imageSha256 = :sha256")
+    int attachImageRenditions(@Param("sha256") String sha256,
+                              @Param("thumbnailUrl") String thumbnailUrl,
+                              @Param("webUrl") String webUrl);
+
+    // PostgreSQL only: search_vector is the generated tsvector column from V5 (db/vendor/postgresql)
+    @Query(value = "select c.* from complaints c where c.search_vector @@ to_tsquery('simple', :query) "
+                 + "order by ts_rank_cd(c.search_vector, to_tsquery('simple', :query)) desc, c.id desc",
+           countQuery = "select count(*) from complaints c where c.search_vector @@ to_tsquery('simple', :query)",
+           nativeQuery = true)
+    Page<Complaint> searchFullText(@Param("query") String tsQuery, Pageable pageable);
+
+    // Streams every complaint for the search index rebuild; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select c from Complaint c order by c.id")
+    Stream<Complaint> streamAllOrderById();
 }
@@ -0,0 +1,61 @@
+package com.emysore.ecom_mysore_backend.repository;
+
+import com.emysore.ecom_mysore_backend.model.Complaint;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria filters for complaint list queries. Every filter is an equality match so the
+ * composite indexes from V4 (status, escalated, created_at) and (category, created_at) can
+ * serve both the WHERE clause and the default createdAt ordering.
+ */
+public final class ComplaintSpecifications {
+
+    private ComplaintSpecifications() {
+    }
+
+    /** Combines the non-null filters with AND; all nulls match every complaint. */
+    public static Specification<Complaint> filter(String status, String category, Boolean escalated) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>(3);
+            if (status != null && !status.isBlank()) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            if (category != null && !category.isBlank()) {
+                predicates.add(cb.equal(root.get("category"), category));
+            }
+            if (escalated != null) {
+                predicates.add(cb.equal(root.get("escalated"), escalated));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Seek predicate for keyset pagination: complaints strictly after (sortValue, id) in the order
+     * {@code sortProperty direction, id direction}. Written as
+     * {@code col <= v AND (col < v OR id < lastId)} (mirrored for ascending) so the leading
+     * range condition can drive an index scan on the sort column.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Complaint> seekAfter(String sortProperty, Sort.Direction direction,
+                                                     Comparable sortValue, long id) {
+        boolean asc = direction.isAscending();
+        return (root, query, cb) -> {
+            Expression<Long> idPath = root.get("id");
+            Predicate pastId = asc ? cb.greaterThan(idPath, id) : cb.lessThan(idPath, id);
+            if ("id".equals(sortProperty)) {
+                return pastId;
+            }
+            Expression<Comparable> col = root.get(sortProperty);
+            Predicate notBefore = asc ? cb.greaterThanOrEqualTo(col, sortValue) : cb.lessThanOrEqualTo(col, sortValue);
+            Predicate strictlyPast = asc ? cb.greaterThan(col, sortValue) : cb.lessThan(col, sortValue);
+            return cb.and(notBefore, cb.or(strictlyPast, pastId));
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package com.emysore.ecom_mysore_backend.repository;
+
+import com.emysore.ecom_mysore_backend.model.NotificationOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    /**
+     * Due rows locked with FOR UPDATE SKIP LOCKED (lock timeout -2), so concurrent dispatchers,
+     * including other instances, claim disjoint batches without waiting on each other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "-2"))
+    @Query("select o from NotificationOutbox o where o.status = 'PENDING' and o.nextAttemptAt <= :now order by o.id")
+    List<NotificationOutbox> findDueForUpdate(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update NotificationOutbox o set o.status = 'SENT', o.sentAt = :now, o.lastError = null where o.id = :id")
+    int markSent(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("update NotificationOutbox o set o.status = :status, o.nextAttemptAt = :nextAttemptAt, o.lastError = :error where o.id = :id")
+    int markFailedAttempt(@Param("id") Long id, @Param("status") NotificationOutbox.Status status,
+                          @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+}
@@ -0,0 +1,77 @@
+package com.emysore.ecom_mysore_backend.repository;
+
+import com.emysore.ecom_mysore_backend.model.StoredObject;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StoredObjectRepository extends JpaRepository<StoredObject, String> {
+
+    /** Adds the row unless another upload of the same content got there first; 0 in that case. */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO stored_objects (sha256, storage_key, content_type, size_bytes, ref_count, rendition_status, created_at, updated_at) "
+                 + "VALUES (:sha256, :storageKey, :contentType, :sizeBytes, 0, 'PENDING', :now, :now) ON CONFLICT DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("sha256") String sha256, @Param("storageKey") String storageKey,
+                       @Param("contentType") String contentType, @Param("sizeBytes") long sizeBytes,
+                       @Param("now") LocalDateTime now);
+
+    /** Restarts the object's grace period; 0 when the row is gone or being garbage-collected. */
+    @Transactional
+    @Modifying
+    @Query("update StoredObject o set o.updatedAt = :now where o.sha256 = :sha256 and o.renditionStatus <> 'DELETING'")
+    int touch(@Param("sha256") String sha256, @Param("now") LocalDateTime now);
+
+    /** One more complaint points at the object; 0 when the row is gone or being garbage-collected. */
+    @Transactional
+    @Modifying
+    @Query("update StoredObject o set o.refCount = o.refCount + 1, o.updatedAt = :now "
+         + "where o.sha256 = :sha256 and o.renditionStatus <> 'DELETING'")
+    int acquire(@Param("sha256") String sha256, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("update StoredObject o set o.refCount = o.refCount - 1, o.updatedAt = :now where o.sha256 = :sha256 and o.refCount > 0")
+    int release(@Param("sha256") String sha256, @Param("now") LocalDateTime now);
+
+    /** Moves the object out of PENDING; 0 if it already was. */
+    @Transactional
+    @Modifying
+    @Query("update StoredObject o set o.renditionStatus = :status, o.updatedAt = :now "
+         + "where o.sha256 = :sha256 and o.renditionStatus = 'PENDING'")
+    int finishRenditions(@Param("sha256") String sha256, @Param("status") String status, @Param("now") LocalDateTime now);
+
+    /**
+     * Claims the object for deletion only while nothing references it and it was not touched
+     * since {@code before}, so a concurrent prepare or acquire wins. Also succeeds for an object a
+     * failed sweep left DELETING.
+     */
+    @Transactional
+    @Modifying
+    @Query("update StoredObject o set o.renditionStatus = 'DELETING' "
+         + "where o.sha256 = :sha256 and o.refCount = 0 and o.updatedAt < :before")
+    int markDeletingIfUnreferenced(@Param("sha256") String sha256, @Param("before") LocalDateTime before);
+
+    /** Removes the row of an object whose files are gone. */
+    @Transactional
+    @Modifying
+    @Query("delete from StoredObject o where o.sha256 = :sha256 and o.renditionStatus = 'DELETING'")
+    int deleteMarked(@Param("sha256") String sha256);
+
+    @Query("select o.sha256 from StoredObject o where o.renditionStatus = :status and o.updatedAt < :before order by o.updatedAt")
+    List<String> findShasByRenditionStatusAndUpdatedAtBefore(@Param("status") String status,
+                                                            @Param("before") LocalDateTime before,
+                                                            Pageable pageable);
+
+    @Query("select o from StoredObject o where o.refCount = 0 and o.updatedAt < :before order by o.updatedAt")
+    List<StoredObject> findUnreferencedBefore(@Param("before") LocalDateTime before, Pageable pageable);
+}
@@ -0,0 +1,94 @@
+package com.emysore.ecom_mysore_backend.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Access tokens revoked before their {@code exp}, by jti. The list lives in
+ * {@code revoked_access_tokens}, and each node keeps an in-memory copy that it reloads every
+ * {@code jwt.revocation.syncInterval}. Revoking on one node takes effect there at once and on
+ * other nodes at their next sync.
+ * <p>
+ * The copy is a Bloom filter in front of an exact set. Almost every request holds a token that
+ * was never revoked. The filter rules those out with a few probes and no allocation. The set is
+ * only consulted on the filter's rare "maybe", to discard false positives.
+ */
+@Component
+public class AccessTokenRevocations {
+    private static final Logger logger = LoggerFactory.getLogger(AccessTokenRevocations.class);
+
+    private record Snapshot(BloomFilter filter, Set<String> revoked) {}
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final double falsePositiveRate;
+    private volatile Snapshot snapshot;
+
+    public AccessTokenRevocations(@Value("${jwt.revocation.falsePositiveRate:0.001}") double falsePositiveRate) {
+        this.falsePositiveRate = falsePositiveRate;
+        this.snapshot = build(List.of());
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        Snapshot s = snapshot;
+        return s.filter().mightContain(jti) && s.revoked().contains(jti);
+    }
+
+    /** Revokes the access token {@code jti} until {@code expiresAt}, after which it is dead anyway. */
+    public synchronized void revoke(String jti, Date expiresAt) {
+        try {
+            jdbcTemplate.update("INSERT INTO revoked_access_tokens (jti, expires_at) VALUES (?, ?)",
+                jti, new Timestamp(expiresAt.getTime()));
+        } catch (DuplicateKeyException alreadyRevoked) {
+            // Revoked twice, e.g. a repeated logout
+        }
+        Snapshot s = snapshot;
+        s.filter().add(jti);
+        s.revoked().add(jti);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${jwt.revocation.syncInterval:PT30S}", initialDelayString = "${jwt.revocation.syncInterval:PT30S}")
+    public synchronized void sync() {
+        try {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            jdbcTemplate.update("DELETE FROM revoked_access_tokens WHERE expires_at <= ?", now);
+            List<String> revoked = jdbcTemplate.queryForList(
+                "SELECT jti FROM revoked_access_tokens WHERE expires_at > ?", String.class, now);
+            snapshot = build(revoked);
+            logger.debug("Loaded {} revoked access tokens", revoked.size());
+        } catch (Exception e) {
+            // Keep the last copy; revocations made here are in it already
+            logger.warn("Could not sync revoked access tokens: {}", e.getMessage());
+        }
+    }
+
+    // Sized with headroom for revocations made between syncs
+    private Snapshot build(List<String> revoked) {
+        BloomFilter filter = new BloomFilter(Math.max(2 * revoked.size(), 1024), falsePositiveRate);
+        Set<String> exact = ConcurrentHashMap.newKeySet(revoked.size());
+        for (String jti : revoked) {
+            filter.add(jti);
+            exact.add(jti);
+        }
+        return new Snapshot(filter, exact);
+    }
+}
@@ -0,0 +1,65 @@
+package com.emysore.ecom_mysore_backend.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over strings, sized for {@code expected} entries at false-positive rate
+ * {@code fpp}. Probes use double hashing of one 64-bit hash computed straight from the chars, so
+ * {@link #mightContain} allocates nothing. Adds may race with lookups: the bits are atomic and
+ * only ever set.
+ */
+final class BloomFilter {
+    private final AtomicLongArray words;
+    private final long bitMask;
+    private final int probes;
+
+    BloomFilter(int expected, double fpp) {
+        int n = Math.max(expected, 1);
+        long bits = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        // Power of two, at least one word, so a probe is a mask rather than a modulo
+        long size = Long.highestOneBit(Math.max(bits, 64) - 1) << 1;
+        this.words = new AtomicLongArray((int) (size >>> 6));
+        this.bitMask = size - 1;
+        this.probes = Math.max(1, (int) Math.round((double) size / n * Math.log(2)));
+    }
+
+    void add(CharSequence value) {
+        long h = hash(value);
+        long step = (h >>> 32) | 1;
+        for (int i = 0; i < probes; i++) {
+            long bit = (h + i * step) & bitMask;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = words.get(word)) & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                // Lost a race with another add to the same word; retry
+            }
+        }
+    }
+
+    boolean mightContain(CharSequence value) {
+        long h = hash(value);
+        long step = (h >>> 32) | 1;
+        for (int i = 0; i < probes; i++) {
+            long bit = (h + i * step) & bitMask;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a over the chars, finished with a 64-bit mixer so low bits depend on every char
+    private static long hash(CharSequence value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,8 @@
+package com.emysore.ecom_mysore_backend.security;
+
+/** The password hashing pool and its queue are full; the request should be retried later. */
+public class PasswordHashingSaturatedException extends RuntimeException {
+    public PasswordHashingSaturatedException() {
+        super("Too many logins in progress, please retry shortly");
+    }
+}
@@ -0,0 +1,69 @@
+package com.emysore.ecom_mysore_backend.security;
+
+import com.emysore.ecom_mysore_backend.util.ExpiringLruCache;
+import com.emysore.ecom_mysore_backend.util.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Principals of recently verified JWTs, keyed by the SHA-256 of the token so raw tokens are never
+ * held. A hit means the signature was checked when the entry was added, so the request needs
+ * neither a parse nor a {@code users} query; the token's jti is kept for the revocation check.
+ * Entries expire at the token's {@code exp} or after {@code security.principalCache.ttl},
+ * whichever is sooner; the TTL bounds how long a role change made on another replica goes unseen.
+ * The LRU is bounded by {@code security.principalCache.maxEntries}.
+ */
+@Component
+public class PrincipalCache {
+
+    /** A verified token's principal and jti; the same instance is returned on every hit. */
+    public record Cached(UserPrincipal principal, String jti, long expiresAtMillis) {}
+
+    private final long ttlMillis;
+    private final ExpiringLruCache<String, Cached> entries;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public PrincipalCache(@Value("${security.principalCache.maxEntries:10000}") int maxEntries,
+                          @Value("${security.principalCache.ttl:PT5M}") Duration ttl,
+                          MeterRegistry registry) {
+        this.ttlMillis = ttl.toMillis();
+        this.entries = new ExpiringLruCache<>(maxEntries, System::currentTimeMillis, () -> {});
+        this.hits = Counter.builder("security.principal.cache.hits").register(registry);
+        this.misses = Counter.builder("security.principal.cache.misses").register(registry);
+        registry.gauge("security.principal.cache.size", entries, ExpiringLruCache::size);
+    }
+
+    public Cached get(String token) {
+        Cached entry = entries.get(Hashing.sha256Hex(token));
+        (entry != null ? hits : misses).increment();
+        return entry;
+    }
+
+    public void put(String token, UserPrincipal principal, String jti, Date tokenExpiration) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + ttlMillis;
+        if (tokenExpiration != null) {
+            expiresAt = Math.min(expiresAt, tokenExpiration.getTime());
+        }
+        if (expiresAt <= now) {
+            return;
+        }
+        entries.put(Hashing.sha256Hex(token), new Cached(principal, jti, expiresAt), expiresAt);
+    }
+
+    /** Forgets every cached token of {@code username}, e.g. after its role or password changed. */
+    public void invalidate(String username) {
+        entries.removeIf(e -> e.principal().getUsername().equals(username));
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+}
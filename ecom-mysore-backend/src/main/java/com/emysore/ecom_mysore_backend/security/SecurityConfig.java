@@ -1,6 +1,7 @@
 package com.emysore.ecom_mysore_backend.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -10,9 +11,16 @@ import org.springframework.security.authentication.dao.DaoAuthenticationProvider
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.util.ClassUtils;
+
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 @EnableMethodSecurity
@@ -24,16 +32,35 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtFilter;
 
+    /**
+     * Hashes new passwords with {@code security.password.encoding} and verifies any supported
+     * scheme. Hashes stored before ids were added have no {@code {id}} prefix and are read as
+     * bcrypt. {@code upgradeEncoding} is true for those, for other schemes and for bcrypt below
+     * {@code security.password.bcryptStrength}, and login then rehashes the password. Argon2 needs
+     * BouncyCastle on the classpath.
+     */
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password.encoding:bcrypt}") String encoding,
+                                           @Value("${security.password.bcryptStrength:10}") int bcryptStrength) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", bcrypt);
+        if (ClassUtils.isPresent("org.bouncycastle.crypto.params.Argon2Parameters", null)) {
+            encoders.put("argon2", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        }
+        if (!encoders.containsKey(encoding)) {
+            throw new IllegalStateException("Unsupported security.password.encoding: " + encoding);
+        }
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(encoding, encoders);
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
 
     @Bean
-    public AuthenticationManager authenticationManager() {
+    public AuthenticationManager authenticationManager(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService);
-        provider.setPasswordEncoder(passwordEncoder());
+        provider.setPasswordEncoder(passwordEncoder);
         return new ProviderManager(provider);
     }
 
@@ -46,6 +73,8 @@ public class SecurityConfig {
                         .requestMatchers("/h2-console/**").permitAll()
                         // allow anonymous GET access to complaint list and individual complaints
                         .requestMatchers(HttpMethod.GET, "/api/complaints", "/api/complaints/**").permitAll()
+                        // complaint images are linked from those responses and loaded by <img> tags, which send no token
+                        .requestMatchers(HttpMethod.GET, "/uploads/**").permitAll()
                         // Temporarily allow all /api/** requests during smoke tests so list endpoints
                         // are reachable while we debug tight security rules. Remove or narrow this
                         // in production.
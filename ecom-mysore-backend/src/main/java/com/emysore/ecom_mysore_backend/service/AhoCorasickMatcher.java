@@ -0,0 +1,127 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Aho-Corasick automaton over a fixed set of patterns. Finds every occurrence of every pattern
+ * in a single left-to-right pass over the text, independent of the number of patterns.
+ * <p>
+ * Child edges are stored per node as sorted char arrays (binary search) so the automaton stays
+ * compact for large Unicode keyword sets. Immutable and thread-safe once built.
+ */
+public final class AhoCorasickMatcher {
+
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    private final int[] output;      // pattern id ending at this node, or -1
+    private final int[] outputLink;  // nearest node on the fail chain with an output, or -1
+    private final int patternCount;
+
+    public AhoCorasickMatcher(List<String> patterns) {
+        this.patternCount = patterns.size();
+
+        // Build the trie with ordered maps, then freeze into arrays
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        outputs.add(-1);
+        for (int id = 0; id < patterns.size(); id++) {
+            String pattern = patterns.get(id);
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Empty pattern at index " + id);
+            }
+            int node = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                Integer child = trie.get(node).get(pattern.charAt(i));
+                if (child == null) {
+                    child = trie.size();
+                    trie.add(new TreeMap<>());
+                    outputs.add(-1);
+                    trie.get(node).put(pattern.charAt(i), child);
+                }
+                node = child;
+            }
+            if (outputs.get(node) != -1) {
+                throw new IllegalArgumentException("Duplicate pattern: " + pattern);
+            }
+            outputs.set(node, id);
+        }
+
+        int size = trie.size();
+        edgeChars = new char[size][];
+        edgeTargets = new int[size][];
+        output = new int[size];
+        for (int n = 0; n < size; n++) {
+            TreeMap<Character, Integer> edges = trie.get(n);
+            edgeChars[n] = new char[edges.size()];
+            edgeTargets[n] = new int[edges.size()];
+            int i = 0;
+            for (var e : edges.entrySet()) {
+                edgeChars[n][i] = e.getKey();
+                edgeTargets[n][i] = e.getValue();
+                i++;
+            }
+            output[n] = outputs.get(n);
+        }
+
+        // Breadth-first pass to compute failure and output links
+        fail = new int[size];
+        outputLink = new int[size];
+        Arrays.fill(outputLink, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : edgeTargets[0]) {
+            fail[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < edgeChars[node].length; i++) {
+                char c = edgeChars[node][i];
+                int child = edgeTargets[node][i];
+                int f = fail[node];
+                int next;
+                while ((next = child(f, c)) < 0 && f != 0) {
+                    f = fail[f];
+                }
+                fail[child] = next >= 0 ? next : 0;
+                int target = fail[child];
+                outputLink[child] = output[target] >= 0 ? target : outputLink[target];
+                queue.add(child);
+            }
+        }
+    }
+
+    public int patternCount() {
+        return patternCount;
+    }
+
+    /** Calls {@code onMatch} with the pattern id of every occurrence found in {@code text}. */
+    public void match(CharSequence text, IntConsumer onMatch) {
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next;
+            while ((next = child(node, c)) < 0 && node != 0) {
+                node = fail[node];
+            }
+            node = next >= 0 ? next : 0;
+            if (output[node] >= 0) {
+                onMatch.accept(output[node]);
+            }
+            for (int o = outputLink[node]; o >= 0; o = outputLink[o]) {
+                onMatch.accept(output[o]);
+            }
+        }
+    }
+
+    private int child(int node, char c) {
+        int idx = Arrays.binarySearch(edgeChars[node], c);
+        return idx >= 0 ? edgeTargets[node][idx] : -1;
+    }
+}
@@ -0,0 +1,69 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.ComplaintListItem;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Position in a keyset-paginated complaint list: the sort value and id of the last complaint a
+ * client has seen. Encoded as an opaque URL-safe token; clients pass it back unchanged as
+ * {@code cursor} to get the next slice.
+ */
+public record ComplaintCursor(String sortProperty, Sort.Direction direction, Comparable<?> sortValue, long id) {
+
+    /** Sort properties that are non-null and have an index usable for seeking. */
+    public static final Set<String> SORT_PROPERTIES = Set.of("createdAt", "updatedAt", "id");
+
+    private static final String VERSION = "v1";
+
+    public static void checkSortProperty(String sortProperty) {
+        if (!SORT_PROPERTIES.contains(sortProperty)) {
+            throw new IllegalArgumentException("Cursor pagination supports sort by " + SORT_PROPERTIES + ", not " + sortProperty);
+        }
+    }
+
+    public static ComplaintCursor after(ComplaintListItem last, String sortProperty, Sort.Direction direction) {
+        Comparable<?> value = switch (sortProperty) {
+            case "createdAt" -> last.createdAt();
+            case "updatedAt" -> last.updatedAt();
+            default -> last.id();
+        };
+        return new ComplaintCursor(sortProperty, direction, value, last.id());
+    }
+
+    public String encode() {
+        String raw = String.join("|", VERSION, sortProperty, direction.name(), sortValue.toString(), Long.toString(id));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}. The cursor must have been issued for the same
+     * sort, otherwise the seek position would be meaningless.
+     */
+    public static ComplaintCursor decode(String token, String sortProperty, Sort.Direction direction) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (parts.length != 5 || !VERSION.equals(parts[0])) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (!parts[1].equals(sortProperty) || !parts[2].equals(direction.name())) {
+            throw new IllegalArgumentException("Cursor was issued for sort " + parts[1] + "," + parts[2].toLowerCase());
+        }
+        try {
+            long id = Long.parseLong(parts[4]);
+            Comparable<?> value = "id".equals(sortProperty) ? Long.valueOf(parts[3]) : LocalDateTime.parse(parts[3]);
+            return new ComplaintCursor(sortProperty, direction, value, id);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
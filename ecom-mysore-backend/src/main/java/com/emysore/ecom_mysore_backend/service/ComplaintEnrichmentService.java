@@ -0,0 +1,279 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.Complaint;
+import com.emysore.ecom_mysore_backend.model.ComplaintAuditLog;
+import com.emysore.ecom_mysore_backend.model.Department;
+import com.emysore.ecom_mysore_backend.repository.ComplaintAuditLogRepository;
+import com.emysore.ecom_mysore_backend.repository.ComplaintRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies ML predictions to complaints after they have been saved. The ML round trip runs on a
+ * bounded worker pool with no transaction open; only the final update takes a short transaction.
+ */
+@Service
+public class ComplaintEnrichmentService {
+    private static final Logger logger = LoggerFactory.getLogger(ComplaintEnrichmentService.class);
+
+    public static final String PENDING_ENRICHMENT = "PENDING_ENRICHMENT";
+    public static final String ENRICHED = "ENRICHED";
+    // Routed by the local classifier after the ML service kept failing; re-enriched once it answers
+    public static final String FALLBACK_ENRICHED = "FALLBACK_ENRICHED";
+
+    private static final List<String> RETRYABLE = List.of(PENDING_ENRICHMENT, FALLBACK_ENRICHED);
+
+    // Backoff doubles per failed attempt up to retryAfterSeconds x 64
+    private static final int MAX_BACKOFF_SHIFT = 6;
+
+    @Autowired
+    private ComplaintRepository complaintRepository;
+
+    @Autowired
+    private ComplaintAuditLogRepository auditLogRepository;
+
+    @Autowired
+    private DepartmentDirectory departmentDirectory;
+
+    @Autowired
+    private MLService mlService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private ComplaintSearchService searchService;
+
+    @Autowired
+    private SlaPolicy slaPolicy;
+
+    @Autowired
+    private SlaEngine slaEngine;
+
+    @Autowired
+    @Qualifier("mlEnrichmentExecutor")
+    private ThreadPoolTaskExecutor executor;
+
+    @Value("${ml.enrichment.retryAfterSeconds:60}")
+    private long retryAfterSeconds;
+
+    @Value("${ml.enrichment.maxAttempts:3}")
+    private int maxAttempts;
+
+    @Value("${ml.enrichment.maxPendingAge:PT10M}")
+    private Duration maxPendingAge;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // Complaint ids queued or running, so the retry sweep does not submit them twice
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    public ComplaintEnrichmentService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** Marks a new complaint for enrichment; the sweep picks it up if the after-commit task is lost. */
+    public void markPending(Complaint complaint) {
+        complaint.setEnrichmentStatus(PENDING_ENRICHMENT);
+        complaint.setEnrichmentAttempts(0);
+        complaint.setEnrichmentNextAttemptAt(LocalDateTime.now().plusSeconds(retryAfterSeconds));
+    }
+
+    /**
+     * Queue enrichment for a complaint. When called inside a transaction the task is only submitted
+     * once that transaction commits, so the worker never races the insert.
+     */
+    public void enqueueAfterCommit(Long complaintId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(complaintId);
+                }
+            });
+        } else {
+            submit(complaintId);
+        }
+    }
+
+    private void submit(Long complaintId) {
+        if (!inFlight.add(complaintId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    enrich(complaintId);
+                } catch (Exception e) {
+                    logger.error("ML enrichment failed for complaint #{}", complaintId, e);
+                    // Back off so a complaint that keeps failing does not hold the sweep's first slot
+                    try {
+                        recordFailedAttempt(complaintId);
+                    } catch (Exception retryFailure) {
+                        logger.error("Could not record failed enrichment of complaint #{}", complaintId, retryFailure);
+                    }
+                } finally {
+                    inFlight.remove(complaintId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            inFlight.remove(complaintId);
+            logger.warn("ML enrichment queue full; complaint #{} left pending for retry", complaintId);
+        }
+    }
+
+    private void enrich(Long complaintId) {
+        Complaint snapshot = complaintRepository.findById(complaintId).orElse(null);
+        if (snapshot == null || !RETRYABLE.contains(snapshot.getEnrichmentStatus())) {
+            return;
+        }
+
+        // Network call with no transaction or JDBC connection held
+        MLPrediction prediction = mlService.predictIfAvailable(snapshot.getTitle(), snapshot.getDescription());
+        if (prediction == null) {
+            recordFailedAttempt(complaintId);
+            return;
+        }
+
+        Complaint enriched = transactionTemplate.execute(status -> {
+            Complaint complaint = complaintRepository.findById(complaintId).orElse(null);
+            if (complaint == null || !RETRYABLE.contains(complaint.getEnrichmentStatus())) {
+                return null;
+            }
+            return applyAndRoute(complaint, prediction, ENRICHED);
+        });
+
+        if (enriched != null) {
+            logger.info("Successfully enriched complaint #{} with ML analysis", complaintId);
+        }
+    }
+
+    /**
+     * Counts a failed ML attempt and backs the next one off. A complaint still pending after
+     * {@code ml.enrichment.maxAttempts} failures, or older than {@code ml.enrichment.maxPendingAge},
+     * is routed with the local fallback so its department hears about it; the sweep keeps asking
+     * the ML service and re-enriches it once it answers.
+     */
+    private void recordFailedAttempt(Long complaintId) {
+        Complaint routed = transactionTemplate.execute(status -> {
+            Complaint complaint = complaintRepository.findById(complaintId).orElse(null);
+            if (complaint == null || !RETRYABLE.contains(complaint.getEnrichmentStatus())) {
+                return null;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            int attempts = complaint.getEnrichmentAttempts() + 1;
+            complaint.setEnrichmentAttempts(attempts);
+            complaint.setEnrichmentNextAttemptAt(now.plusSeconds(retryAfterSeconds << Math.min(attempts - 1, MAX_BACKOFF_SHIFT)));
+
+            boolean giveUp = attempts >= maxAttempts || complaint.getCreatedAt().isBefore(now.minus(maxPendingAge));
+            if (PENDING_ENRICHMENT.equals(complaint.getEnrichmentStatus()) && giveUp) {
+                MLPrediction fallback = mlService.fallbackPrediction(complaint.getTitle(), complaint.getDescription());
+                return applyAndRoute(complaint, fallback, FALLBACK_ENRICHED);
+            }
+            complaintRepository.save(complaint);
+            return null;
+        });
+
+        if (routed != null) {
+            logger.warn("ML service unavailable after {} attempts; complaint #{} routed by the local fallback",
+                routed.getEnrichmentAttempts(), complaintId);
+        } else {
+            logger.warn("ML service unavailable; complaint #{} left for retry", complaintId);
+        }
+    }
+
+    /**
+     * Applies a prediction inside the caller's transaction, fixes the SLA deadline and notifies the
+     * assigned department. A complaint the fallback routed takes the ML department instead, and
+     * its department is only notified again if that changed.
+     */
+    private Complaint applyAndRoute(Complaint complaint, MLPrediction prediction, String newStatus) {
+        String oldStatus = complaint.getEnrichmentStatus();
+        String previousDept = complaint.getAssignedDept();
+        boolean replacingFallback = FALLBACK_ENRICHED.equals(oldStatus);
+        if (replacingFallback) {
+            complaint.setAssignedDept(null);
+        }
+
+        mlService.applyPrediction(complaint, prediction);
+        complaint.setEnrichmentStatus(newStatus);
+        if (ENRICHED.equals(newStatus)) {
+            complaint.setEnrichmentNextAttemptAt(null);
+        }
+        complaint.setUpdatedAt(LocalDateTime.now());
+        // Department and urgency are known now, so the SLA deadline can be final
+        boolean underSla = "PENDING".equals(complaint.getStatus()) && complaint.getEscalationLevel() == 0;
+        if (underSla) {
+            complaint.setDeadline(slaPolicy.deadlineFor(complaint));
+        }
+        Complaint saved = complaintRepository.save(complaint);
+        if (underSla) {
+            slaEngine.scheduleAfterCommit(saved.getId(), saved.getDeadline());
+        }
+
+        ComplaintAuditLog auditLog = new ComplaintAuditLog();
+        auditLog.setComplaint(saved);
+        auditLog.setAction(ENRICHED.equals(newStatus) ? "ML_ENRICHED" : "ML_FALLBACK");
+        auditLog.setOldValue(oldStatus);
+        auditLog.setNewValue(String.format("category=%s, urgency=%s, sentiment=%s, dept=%s",
+            saved.getCategory(), saved.getUrgency(), saved.getSentiment(), saved.getAssignedDept()));
+        auditLog.setComment(ENRICHED.equals(newStatus)
+            ? "Complaint enriched by ML service"
+            : "ML service unavailable; complaint routed by the local classifier");
+        auditLogRepository.save(auditLog);
+
+        // ML may have changed the category
+        searchService.reindexAfterCommit(saved.getId());
+
+        // Department is only known once ML (or the fallback) has answered, so notify it from here
+        try {
+            String assigned = saved.getAssignedDept();
+            boolean newDept = !replacingFallback || !Objects.equals(assigned, previousDept);
+            if (newDept && assigned != null && !assigned.isEmpty()) {
+                Department dept = departmentDirectory.find(assigned);
+                if (dept != null) {
+                    String deptMsg = "New complaint #" + saved.getId() + " assigned to your department. Please take action.";
+                    notificationService.sendDirectContactNotification(dept.getContactEmail(), dept.getPhone(), "New Complaint Assigned", deptMsg);
+                }
+            }
+        } catch (Exception ignored) {}
+
+        return saved;
+    }
+
+    /**
+     * Re-queues complaints whose next enrichment attempt is due: ones rejected while the queue was
+     * full, lost in a restart, or backing off after the ML service failed. Fallback-routed
+     * complaints are included so they get the real prediction once the service is back.
+     */
+    @Scheduled(fixedDelayString = "${ml.enrichment.sweepInterval:PT1M}", initialDelayString = "PT30S")
+    public void resubmitPending() {
+        List<Long> ids = complaintRepository.findIdsDueForEnrichment(
+            RETRYABLE, LocalDateTime.now(), PageRequest.of(0, 100));
+        for (Long id : ids) {
+            submit(id);
+        }
+        if (!ids.isEmpty()) {
+            logger.info("Re-queued {} complaints pending ML enrichment", ids.size());
+        }
+    }
+}
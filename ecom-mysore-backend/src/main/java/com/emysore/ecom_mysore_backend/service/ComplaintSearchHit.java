@@ -0,0 +1,19 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.Complaint;
+
+import java.time.LocalDateTime;
+
+/** Search result: the complaint fields a result list or typeahead needs, plus the match score. */
+public record ComplaintSearchHit(Long id, String title, String category, String status, String location,
+                                 LocalDateTime createdAt, float score) {
+
+    public static ComplaintSearchHit of(Complaint complaint, float score) {
+        return new ComplaintSearchHit(complaint.getId(), complaint.getTitle(), complaint.getCategory(),
+            complaint.getStatus(), complaint.getLocation(), complaint.getCreatedAt(), score);
+    }
+
+    ComplaintSearchHit withScore(float newScore) {
+        return new ComplaintSearchHit(id, title, category, status, location, createdAt, newScore);
+    }
+}
@@ -0,0 +1,412 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.Complaint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over complaint text. Serves {@code /api/complaints/search} without a
+ * database round trip: results carry the summary fields from {@link ComplaintSearchHit}.
+ * <p>
+ * Terms are weighted by field like the PostgreSQL tsvector column: title 1.0, category 0.4,
+ * description 0.2, location/remarks/comments 0.1. Every query token is a prefix match and all
+ * tokens must match; a document scores the best weight of any term matching each token, summed
+ * over tokens. Posting lists are sorted primitive {@code long[]}/{@code float[]} pairs, so
+ * prefix unions and AND intersections are linear merges with no boxing.
+ */
+@Component
+public class ComplaintSearchIndex {
+
+    static final float TITLE_WEIGHT = 1.0f;
+    static final float CATEGORY_WEIGHT = 0.4f;
+    static final float DESCRIPTION_WEIGHT = 0.2f;
+    static final float OTHER_WEIGHT = 0.1f;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+
+    /**
+     * Splits text into lowercase tokens of letters, digits and combining marks (needed for
+     * Kannada vowel signs), after NFKC normalization.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && isWordChar(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isWordChar(char c) {
+        if (Character.isLetterOrDigit(c)) {
+            return true;
+        }
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK;
+    }
+
+    /** Adds or replaces a complaint together with the text of its comments. */
+    public void index(Complaint complaint, Collection<String> comments) {
+        Doc doc = Doc.of(complaint);
+        for (String comment : comments) {
+            doc.addTerms(comment, OTHER_WEIGHT);
+        }
+        lock.writeLock().lock();
+        try {
+            state.put(complaint.getId(), doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Complaint complaint) {
+        index(complaint, List.of());
+    }
+
+    public void remove(Long complaintId) {
+        lock.writeLock().lock();
+        try {
+            state.remove(complaintId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Starts building a replacement index. Searches keep using the current index until
+     * {@link Rebuild#finish()} swaps the new one in.
+     */
+    public Rebuild beginRebuild() {
+        return new Rebuild();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return state.docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Ranked matches for every token of {@code query}, best first, ties by newest id. */
+    public Page<ComplaintSearchHit> search(String query, Pageable pageable) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        lock.readLock().lock();
+        try {
+            Postings matches = null;
+            for (String token : tokens) {
+                Postings tokenMatches = Postings.union(state.postings.subMap(token, true, token + Character.MAX_VALUE, false).values());
+                matches = matches == null ? tokenMatches : Postings.intersect(matches, tokenMatches);
+                if (matches.size == 0) {
+                    break;
+                }
+            }
+
+            long offset = pageable.getOffset();
+            if (offset >= matches.size) {
+                return new PageImpl<>(List.of(), pageable, matches.size);
+            }
+            int[] ranked = matches.top((int) Math.min(matches.size, offset + pageable.getPageSize()));
+            List<ComplaintSearchHit> hits = new ArrayList<>(ranked.length - (int) offset);
+            for (int i = (int) offset; i < ranked.length; i++) {
+                int m = ranked[i];
+                hits.add(state.docs.get(matches.ids[m]).summary.withScore(matches.scores[m]));
+            }
+            return new PageImpl<>(hits, pageable, matches.size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Collects complaints and comments into a fresh index, e.g. from a streaming repository query. */
+    public final class Rebuild {
+        private final State fresh = new State();
+        // ascending ids so every posting list is built by appends
+        private final TreeMap<Long, Doc> docs = new TreeMap<>();
+
+        private Rebuild() {
+        }
+
+        public void add(Complaint complaint) {
+            docs.put(complaint.getId(), Doc.of(complaint));
+        }
+
+        /** Adds comment text to a complaint already passed to {@link #add}; unknown ids are ignored. */
+        public void addComment(Long complaintId, String comment) {
+            Doc doc = docs.get(complaintId);
+            if (doc != null) {
+                doc.addTerms(comment, OTHER_WEIGHT);
+            }
+        }
+
+        /** Builds the postings and replaces the live index. */
+        public void finish() {
+            docs.forEach(fresh::put);
+            docs.clear();
+            lock.writeLock().lock();
+            try {
+                state = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /** Forward entry for one complaint: its terms (to remove old postings) and its summary. */
+    private static final class Doc {
+        final ComplaintSearchHit summary;
+        final Map<String, Float> terms = new HashMap<>();
+
+        private Doc(ComplaintSearchHit summary) {
+            this.summary = summary;
+        }
+
+        static Doc of(Complaint complaint) {
+            Doc doc = new Doc(ComplaintSearchHit.of(complaint, 0f));
+            doc.addTerms(complaint.getTitle(), TITLE_WEIGHT);
+            doc.addTerms(complaint.getCategory(), CATEGORY_WEIGHT);
+            doc.addTerms(complaint.getDescription(), DESCRIPTION_WEIGHT);
+            doc.addTerms(complaint.getLocation(), OTHER_WEIGHT);
+            doc.addTerms(complaint.getRemarks(), OTHER_WEIGHT);
+            return doc;
+        }
+
+        void addTerms(String text, float weight) {
+            for (String token : tokenize(text)) {
+                terms.merge(token, weight, Math::max);
+            }
+        }
+    }
+
+    private static final class State {
+        final TreeMap<String, PostingList> postings = new TreeMap<>();
+        final Map<Long, Doc> docs = new HashMap<>();
+
+        void put(Long id, Doc doc) {
+            remove(id);
+            for (Map.Entry<String, Float> term : doc.terms.entrySet()) {
+                postings.computeIfAbsent(term.getKey(), k -> new PostingList()).put(id, term.getValue());
+            }
+            docs.put(id, doc);
+        }
+
+        void remove(Long id) {
+            Doc old = docs.remove(id);
+            if (old == null) {
+                return;
+            }
+            for (String term : old.terms.keySet()) {
+                PostingList list = postings.get(term);
+                if (list != null && list.remove(id) && list.size == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /** Complaint ids in ascending order with a weight per id. Appends are O(1) since ids mostly grow. */
+    static final class PostingList {
+        long[] ids = new long[2];
+        float[] weights = new float[2];
+        int size;
+
+        void put(long id, float weight) {
+            int i = size == 0 || ids[size - 1] < id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+            if (i >= 0) {
+                weights[i] = weight;
+                return;
+            }
+            i = -(i + 1);
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+            System.arraycopy(weights, i, weights, i + 1, size - i);
+            ids[i] = id;
+            weights[i] = weight;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int i = Arrays.binarySearch(ids, 0, size, id);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+            System.arraycopy(weights, i + 1, weights, i, size - i - 1);
+            size--;
+            return true;
+        }
+    }
+
+    /** Query-time result set: ascending ids with accumulated scores. May share arrays with a PostingList. */
+    static final class Postings {
+        final long[] ids;
+        final float[] scores;
+        final int size;
+
+        Postings(long[] ids, float[] scores, int size) {
+            this.ids = ids;
+            this.scores = scores;
+            this.size = size;
+        }
+
+        /**
+         * Union of the posting lists of all terms sharing a prefix, keeping each id's best weight.
+         * Lists are merged pairwise in rounds, so short prefixes matching many terms stay
+         * O(total log lists).
+         */
+        static Postings union(Collection<PostingList> lists) {
+            List<Postings> round = new ArrayList<>(lists.size());
+            for (PostingList list : lists) {
+                round.add(new Postings(list.ids, list.weights, list.size));
+            }
+            if (round.isEmpty()) {
+                return new Postings(new long[0], new float[0], 0);
+            }
+            while (round.size() > 1) {
+                List<Postings> next = new ArrayList<>((round.size() + 1) / 2);
+                for (int i = 0; i + 1 < round.size(); i += 2) {
+                    next.add(merge(round.get(i), round.get(i + 1)));
+                }
+                if (round.size() % 2 == 1) {
+                    next.add(round.get(round.size() - 1));
+                }
+                round = next;
+            }
+            return round.get(0);
+        }
+
+        private static Postings merge(Postings a, Postings b) {
+            long[] ids = new long[a.size + b.size];
+            float[] scores = new float[a.size + b.size];
+            int i = 0, j = 0, n = 0;
+            while (i < a.size || j < b.size) {
+                if (j == b.size || (i < a.size && a.ids[i] < b.ids[j])) {
+                    ids[n] = a.ids[i];
+                    scores[n++] = a.scores[i++];
+                } else if (i == a.size || b.ids[j] < a.ids[i]) {
+                    ids[n] = b.ids[j];
+                    scores[n++] = b.scores[j++];
+                } else {
+                    ids[n] = a.ids[i];
+                    scores[n++] = Math.max(a.scores[i++], b.scores[j++]);
+                }
+            }
+            return new Postings(ids, scores, n);
+        }
+
+        /** Ids present in both, with scores summed. */
+        static Postings intersect(Postings a, Postings b) {
+            int cap = Math.min(a.size, b.size);
+            long[] ids = new long[cap];
+            float[] scores = new float[cap];
+            int i = 0, j = 0, n = 0;
+            while (i < a.size && j < b.size) {
+                if (a.ids[i] < b.ids[j]) {
+                    i++;
+                } else if (b.ids[j] < a.ids[i]) {
+                    j++;
+                } else {
+                    ids[n] = a.ids[i];
+                    scores[n++] = a.scores[i++] + b.scores[j++];
+                }
+            }
+            return new Postings(ids, scores, n);
+        }
+
+        /** Positions of the best {@code k} entries, best first, using a bounded min-heap. */
+        int[] top(int k) {
+            int[] heap = new int[k];
+            int heapSize = 0;
+            for (int m = 0; m < size; m++) {
+                if (heapSize < k) {
+                    heap[heapSize] = m;
+                    siftUp(heap, heapSize++);
+                } else if (better(m, heap[0])) {
+                    heap[0] = m;
+                    siftDown(heap, heapSize);
+                }
+            }
+            int[] ranked = new int[heapSize];
+            for (int r = heapSize - 1; r >= 0; r--) {
+                ranked[r] = heap[0];
+                heap[0] = heap[--heapSize];
+                siftDown(heap, heapSize);
+            }
+            return ranked;
+        }
+
+        private boolean better(int a, int b) {
+            return scores[a] > scores[b] || (scores[a] == scores[b] && ids[a] > ids[b]);
+        }
+
+        private void siftUp(int[] heap, int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!better(heap[parent], heap[i])) {
+                    break;
+                }
+                swap(heap, i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int[] heap, int heapSize) {
+            int i = 0;
+            while (true) {
+                int worst = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < heapSize && better(heap[worst], heap[left])) {
+                    worst = left;
+                }
+                if (right < heapSize && better(heap[worst], heap[right])) {
+                    worst = right;
+                }
+                if (worst == i) {
+                    return;
+                }
+                swap(heap, i, worst);
+                i = worst;
+            }
+        }
+
+        private static void swap(int[] heap, int a, int b) {
+            int tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+}
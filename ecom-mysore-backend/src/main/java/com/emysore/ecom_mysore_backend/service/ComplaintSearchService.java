@@ -0,0 +1,186 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.Complaint;
+import com.emysore.ecom_mysore_backend.repository.ComplaintAuditLogRepository;
+import com.emysore.ecom_mysore_backend.repository.ComplaintRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Ranked, paginated prefix search over complaint title, description, location, category,
+ * remarks and comments.
+ * <p>
+ * By default ({@code complaint.search.engine=memory}) queries are answered entirely from
+ * {@link ComplaintSearchIndex}, which is rebuilt in one streaming pass when the application is
+ * ready and refreshed after each committed create, status update, comment or ML enrichment.
+ * {@code postgres} queries the generated {@code search_vector} column instead; {@code auto} picks
+ * it when running on PostgreSQL.
+ */
+@Service
+public class ComplaintSearchService {
+    private static final Logger logger = LoggerFactory.getLogger(ComplaintSearchService.class);
+
+    @Autowired
+    private ComplaintRepository complaintRepository;
+
+    @Autowired
+    private ComplaintAuditLogRepository auditLogRepository;
+
+    @Autowired
+    private ComplaintSearchIndex searchIndex;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${complaint.search.engine:memory}")
+    private String engine;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private boolean useDatabase;
+
+    // Ids changed while a rebuild was streaming; re-applied once the new index is live
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+
+    public ComplaintSearchService(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @PostConstruct
+    void init() {
+        if ("auto".equalsIgnoreCase(engine)) {
+            useDatabase = "PostgreSQL".equals(databaseProductName());
+        } else {
+            useDatabase = "postgres".equalsIgnoreCase(engine);
+        }
+        logger.info("Complaint search uses {}", useDatabase ? "PostgreSQL full-text search" : "the in-process index");
+    }
+
+    private String databaseProductName() {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        } catch (MetaDataAccessException e) {
+            logger.warn("Could not detect database for complaint search: {}", e.getMessage());
+            return "unknown";
+        }
+    }
+
+    /**
+     * Streams all complaints and comments into a fresh index, detaching each entity as it goes
+     * so the persistence context stays small on large tables.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        if (useDatabase) {
+            return;
+        }
+        long start = System.nanoTime();
+        rebuilding = true;
+        try {
+            ComplaintSearchIndex.Rebuild rebuild = searchIndex.beginRebuild();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Complaint> complaints = complaintRepository.streamAllOrderById()) {
+                    complaints.forEach(complaint -> {
+                        rebuild.add(complaint);
+                        entityManager.detach(complaint);
+                    });
+                }
+                try (Stream<Object[]> comments = auditLogRepository.streamCommentText()) {
+                    comments.forEach(row -> rebuild.addComment((Long) row[0], (String) row[1]));
+                }
+            });
+            rebuild.finish();
+        } finally {
+            rebuilding = false;
+        }
+        for (Long id : changedDuringRebuild) {
+            changedDuringRebuild.remove(id);
+            reindex(id);
+        }
+        logger.info("Indexed {} complaints for search in {} ms", searchIndex.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Re-indexes a complaint once the current transaction commits, so the index never shows
+     * changes that were rolled back.
+     */
+    public void reindexAfterCommit(Long complaintId) {
+        if (useDatabase) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reindex(complaintId);
+                }
+            });
+        } else {
+            reindex(complaintId);
+        }
+    }
+
+    private void reindex(Long complaintId) {
+        if (rebuilding) {
+            changedDuringRebuild.add(complaintId);
+        }
+        try {
+            complaintRepository.findById(complaintId).ifPresentOrElse(
+                complaint -> searchIndex.index(complaint, auditLogRepository.findCommentTextByComplaintId(complaintId)),
+                () -> searchIndex.remove(complaintId));
+        } catch (Exception e) {
+            // The commit already happened; the next rebuild picks the change up
+            logger.warn("Could not re-index complaint #{} for search: {}", complaintId, e.getMessage());
+        }
+    }
+
+    public Page<ComplaintSearchHit> search(String query, Pageable pageable) {
+        // Ranking decides the order; any sort on the pageable is dropped
+        Pageable page = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        if (!useDatabase) {
+            return searchIndex.search(query, page);
+        }
+        List<String> tokens = ComplaintSearchIndex.tokenize(query);
+        if (tokens.isEmpty()) {
+            return Page.empty(page);
+        }
+        // Rank is not returned by the native query; the position already reflects it
+        return complaintRepository.searchFullText(toPrefixTsQuery(tokens), page)
+            .map(complaint -> ComplaintSearchHit.of(complaint, 0f));
+    }
+
+    /** {@code ["pot", "main"]} to {@code pot:* & main:*}. Tokens only contain word characters. */
+    static String toPrefixTsQuery(List<String> tokens) {
+        return tokens.stream().map(t -> t + ":*").collect(Collectors.joining(" & "));
+    }
+}
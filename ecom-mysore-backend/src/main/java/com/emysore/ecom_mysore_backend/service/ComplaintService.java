@@ -3,18 +3,14 @@ package com.emysore.ecom_mysore_backend.service;
 import com.emysore.ecom_mysore_backend.model.*;
 import com.emysore.ecom_mysore_backend.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
-import software.amazon.awssdk.core.sync.RequestBody;
 
 import java.util.*;
 import java.time.LocalDateTime;
-import java.io.IOException;
 import org.springframework.transaction.annotation.Transactional;
 
 
@@ -28,41 +24,49 @@ public class ComplaintService {
     private ComplaintAuditLogRepository auditLogRepository;
 
     @Autowired
-    private MLService mlService;
+    private ComplaintEnrichmentService enrichmentService;
+
+    @Autowired
+    private ComplaintSearchService searchService;
 
     @Autowired
     private NotificationService notificationService;
 
     @Autowired
-    private com.emysore.ecom_mysore_backend.repository.DepartmentRepository departmentRepository;
+    private SlaEngine slaEngine;
 
-    @Autowired(required = false)
-    private S3Client s3Client;
+    @Autowired
+    private SlaPolicy slaPolicy;
 
-    @Value("${aws.s3.bucket:local}")
-    private String bucketName;
+    @Autowired
+    private DepartmentDirectory departmentDirectory;
 
-    @Value("${aws.s3.region:local}")
-    private String region;
+    @Autowired
+    private StoredObjectService storedObjectService;
 
+    /**
+     * Files a complaint. {@code imageSha256} is an upload already stored by
+     * {@link StoredObjectService#prepare}, or null; only its reference is taken here.
+     */
     @Transactional
-    public Complaint createComplaint(Complaint complaint, User user, MultipartFile image) throws IOException {
+    public Complaint createComplaint(Complaint complaint, User user, String imageSha256) {
         complaint.setUser(user);
         complaint.setCreatedAt(LocalDateTime.now());
         complaint.setUpdatedAt(LocalDateTime.now());
         complaint.setStatus("PENDING");
-
-        // Try to enrich complaint with ML predictions
-        try {
-            mlService.enrichComplaint(complaint);
-        } catch (Exception e) {
-            // Log error but continue
-        }
-
-        // Handle image upload if present
-        if (image != null && !image.isEmpty()) {
-            String imageUrl = uploadImage(image, user.getId());
-            complaint.setImageUrl(imageUrl);
+        // Provisional until enrichment knows the department and urgency
+        complaint.setDeadline(slaPolicy.deadlineFor(complaint));
+
+        // ML enrichment happens after commit on the enrichment worker pool
+        enrichmentService.markPending(complaint);
+
+        if (imageSha256 != null) {
+            // Identical photos from repeat reports share one stored object
+            StoredObjectService.ImageRef stored = storedObjectService.acquire(imageSha256);
+            complaint.setImageUrl(stored.url());
+            complaint.setImageSha256(stored.sha256());
+            complaint.setImageThumbnailUrl(stored.thumbnailUrl());
+            complaint.setImageWebUrl(stored.webUrl());
         }
 
         Complaint savedComplaint = complaintRepository.save(complaint);
@@ -85,17 +89,9 @@ public class ComplaintService {
             Notification.NotificationType.COMPLAINT_CREATED
         );
 
-        // If complaint assigned to a department on create, notify department contact
-        try {
-            String assigned = savedComplaint.getAssignedDept();
-            if (assigned != null && !assigned.isEmpty()) {
-                Department dept = departmentRepository.findByName(assigned);
-                if (dept != null) {
-                    String deptMsg = "New complaint #" + savedComplaint.getId() + " assigned to your department. Please take action.";
-                    notificationService.sendDirectContactNotification(dept.getContactEmail(), dept.getPhone(), "New Complaint Assigned", deptMsg);
-                }
-            }
-        } catch (Exception ignored) {}
+        enrichmentService.enqueueAfterCommit(savedComplaint.getId());
+        searchService.reindexAfterCommit(savedComplaint.getId());
+        slaEngine.scheduleAfterCommit(savedComplaint.getId(), savedComplaint.getDeadline());
 
         return savedComplaint;
     }
@@ -122,6 +118,11 @@ public class ComplaintService {
         auditLog.setComment(remarks);
         auditLogRepository.save(auditLog);
 
+        // remarks are searchable
+        searchService.reindexAfterCommit(id);
+        // Only PENDING complaints run against their SLA; a reopened one picks up its level's deadline
+        slaEngine.scheduleAfterCommit(id, "PENDING".equals(newStatus) ? complaint.getDeadline() : null);
+
         // Notify the citizen
         notificationService.createNotification(
             complaint.getUser(),
@@ -134,7 +135,7 @@ public class ComplaintService {
         try {
             String assigned = complaint.getAssignedDept();
             if (assigned != null && !assigned.isEmpty()) {
-                Department dept = departmentRepository.findByName(assigned);
+                Department dept = departmentDirectory.find(assigned);
                 if (dept != null) {
                     String deptMsg = "Complaint #" + id + " has been updated to status: " + newStatus + ". Please review.";
                     notificationService.sendDirectContactNotification(dept.getContactEmail(), dept.getPhone(), "Complaint Update - " + id, deptMsg);
@@ -151,8 +152,19 @@ public class ComplaintService {
             .orElseThrow(() -> new RuntimeException("Complaint not found"));
 
         boolean oldEscalated = complaint.isEscalated();
+        LocalDateTime now = LocalDateTime.now();
         complaint.setEscalated(escalate);
-        complaint.setUpdatedAt(LocalDateTime.now());
+        complaint.setUpdatedAt(now);
+        // Manual escalation moves an unescalated complaint to level 1; withdrawing it starts level 0 afresh
+        if (escalate && complaint.getEscalationLevel() == 0) {
+            complaint.setEscalationLevel(1);
+            complaint.setDeadline(complaint.getMaxEscalationLevel() > 1
+                ? slaPolicy.levelDeadline(now, 1, complaint.getUrgency()) : null);
+        } else if (!escalate) {
+            complaint.setEscalationLevel(0);
+            complaint.setDeadline(slaPolicy.deadlineFor(now, complaint.getAssignedDept(), complaint.getUrgency()));
+        }
+        slaEngine.scheduleAfterCommit(id, "PENDING".equals(complaint.getStatus()) ? complaint.getDeadline() : null);
         
         Complaint savedComplaint = complaintRepository.save(complaint);
 
@@ -179,7 +191,7 @@ public class ComplaintService {
             try {
                 String assigned = complaint.getAssignedDept();
                 if (assigned != null && !assigned.isEmpty()) {
-                    Department dept = departmentRepository.findByName(assigned);
+                    Department dept = departmentDirectory.find(assigned);
                     if (dept != null) {
                         String deptMsg = "URGENT: Complaint #" + id + " has been escalated to high priority. Immediate action required.";
                         notificationService.sendDirectContactNotification(dept.getContactEmail(), dept.getPhone(), "Complaint Escalated - " + id, deptMsg);
@@ -191,42 +203,42 @@ public class ComplaintService {
         return savedComplaint;
     }
 
-    private String uploadImage(MultipartFile file, Long userId) throws IOException {
-        String key = String.format("complaints/%d/%s-%s", 
-            userId,
-            UUID.randomUUID().toString(),
-            file.getOriginalFilename()
-        );
-        if (s3Client != null) {
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .contentType(file.getContentType())
-                .build();
-
-            s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(
-                file.getInputStream(), 
-                file.getSize()
-            ));
-
-            return String.format("https://%s.s3.%s.amazonaws.com/%s", 
-                bucketName, region, key);
-        } else {
-            // Fallback: write to local uploads directory
-            java.nio.file.Path uploadsDir = java.nio.file.Paths.get("uploads/complaints/" + userId);
-            java.nio.file.Files.createDirectories(uploadsDir);
-            java.nio.file.Path out = uploadsDir.resolve(UUID.randomUUID().toString() + "-" + file.getOriginalFilename());
-            try (java.io.InputStream in = file.getInputStream()) {
-                java.nio.file.Files.copy(in, out, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-            }
-            return out.toAbsolutePath().toString();
-        }
+    @Transactional(readOnly = true)
+    public Page<ComplaintListItem> getComplaints(String status, String category, Boolean escalated, Pageable pageable) {
+        return complaintRepository.findListItems(ComplaintSpecifications.filter(status, category, escalated), pageable);
     }
 
+    /**
+     * Keyset-paginated variant of {@link #getComplaints}: seeks past {@code cursor} (null for the
+     * first slice) instead of using OFFSET, and reads one extra row to detect a next slice
+     * instead of running a count query.
+     */
     @Transactional(readOnly = true)
-    public Page<Complaint> getComplaints(String status, String category, Boolean escalated, Pageable pageable) {
-        // TODO: Implement dynamic filtering based on parameters
-        return complaintRepository.findAll(pageable);
+    public CursorPage<ComplaintListItem> getComplaintsByCursor(String status, String category, Boolean escalated,
+                                                       String sortProperty, Sort.Direction direction,
+                                                       String cursor, int size) {
+        ComplaintCursor.checkSortProperty(sortProperty);
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+
+        Specification<Complaint> spec = ComplaintSpecifications.filter(status, category, escalated);
+        if (cursor != null && !cursor.isEmpty()) {
+            ComplaintCursor after = ComplaintCursor.decode(cursor, sortProperty, direction);
+            spec = spec.and(ComplaintSpecifications.seekAfter(sortProperty, direction, after.sortValue(), after.id()));
+        }
+        // id breaks ties so the order (and therefore the cursor) is total
+        Sort sort = "id".equals(sortProperty)
+            ? Sort.by(direction, "id")
+            : Sort.by(direction, sortProperty).and(Sort.by(direction, "id"));
+
+        List<ComplaintListItem> rows = complaintRepository.findListItems(spec, sort, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<ComplaintListItem> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext
+            ? ComplaintCursor.after(content.get(size - 1), sortProperty, direction).encode()
+            : null;
+        return new CursorPage<>(content, size, hasNext, nextCursor);
     }
 
     @Transactional(readOnly = true)
@@ -240,51 +252,14 @@ public class ComplaintService {
             .orElseThrow(() -> new RuntimeException("Complaint not found"));
     }
 
-    @Transactional(readOnly = true)
-    public List<Complaint> searchComplaints(String searchTerm) {
-        // TODO: Implement full-text search
-        return complaintRepository.findAll();
+    // No transaction: the in-process index answers without a database connection
+    public Page<ComplaintSearchHit> searchComplaints(String searchTerm, Pageable pageable) {
+        return searchService.search(searchTerm, pageable);
     }
 
-    @Transactional
-    public void escalateOverdue() {
-        LocalDateTime thresholdTime = LocalDateTime.now().minusDays(3); // Complaints older than 3 days
-        List<Complaint> overdueComplaints = complaintRepository.findByStatusAndCreatedAtBefore("PENDING", thresholdTime);
-        
-        for (Complaint complaint : overdueComplaints) {
-            complaint.setEscalated(true);
-            complaint.setUpdatedAt(LocalDateTime.now());
-            complaintRepository.save(complaint);
-
-            // Create audit log
-            ComplaintAuditLog auditLog = new ComplaintAuditLog();
-            auditLog.setComplaint(complaint);
-            auditLog.setAction("ESCALATED");
-            auditLog.setOldValue("PENDING");
-            auditLog.setNewValue("ESCALATED");
-            auditLog.setComment("Complaint automatically escalated due to overdue status");
-            auditLogRepository.save(auditLog);
-
-            // Notify relevant parties
-            notificationService.createNotification(
-                complaint.getUser(),
-                "Complaint Escalated",
-                "Your complaint #" + complaint.getId() + " has been escalated due to delayed response",
-                Notification.NotificationType.COMPLAINT_ESCALATED
-            );
-
-            // Notify department if assigned
-            try {
-                String assigned = complaint.getAssignedDept();
-                if (assigned != null && !assigned.isEmpty()) {
-                    Department dept = departmentRepository.findByName(assigned);
-                    if (dept != null) {
-                        String deptMsg = "URGENT: Complaint #" + complaint.getId() + " has been escalated due to delayed response. Immediate action required.";
-                        notificationService.sendDirectContactNotification(dept.getContactEmail(), dept.getPhone(), "Complaint Escalated - " + complaint.getId(), deptMsg);
-                    }
-                }
-            } catch (Exception ignored) {}
-        }
+    // Chunked and set-based; each chunk commits on its own, so no transaction here
+    public int escalateOverdue() {
+        return slaEngine.sweep();
     }
 
     @Transactional
@@ -300,6 +275,8 @@ public class ComplaintService {
         auditLog.setComment(comment);
         auditLogRepository.save(auditLog);
 
+        searchService.reindexAfterCommit(complaintId);
+
         // Notify the complaint owner if the comment is from someone else
         if (!user.getId().equals(complaint.getUser().getId())) {
             notificationService.createNotification(
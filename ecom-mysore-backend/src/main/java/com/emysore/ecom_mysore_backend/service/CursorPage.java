@@ -0,0 +1,7 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import java.util.List;
+
+/** One keyset-paginated slice. No total count; {@code nextCursor} is null on the last slice. */
+public record CursorPage<T>(List<T> content, int size, boolean hasNext, String nextCursor) {
+}
@@ -0,0 +1,210 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-process port of the ml_stub.py keyword classifier. Department keywords, weights and
+ * hierarchies come from {@code ml.classifier.rules} (see {@code ml/department-rules.json}); all
+ * department, urgency and sentiment keywords are matched in one Aho-Corasick pass over the text.
+ * <p>
+ * Produces the same assigned_dept, department_hierarchy, urgency, sentiment and confidence as the
+ * stub for the same input, so MLService can use it without a network hop.
+ */
+@Component
+public class DepartmentClassifier {
+    private static final Logger logger = LoggerFactory.getLogger(DepartmentClassifier.class);
+
+    record DepartmentRule(String name, LinkedHashMap<String, Double> keywords, List<String> hierarchy) {}
+
+    record Fallback(String name, List<String> hierarchy, double confidence) {}
+
+    record LevelRule(String level, List<String> keywords) {}
+
+    record LevelRules(List<LevelRule> rules, String defaultLevel) {
+        LevelRules {
+            rules = rules == null ? List.of() : rules;
+        }
+    }
+
+    record Rules(List<DepartmentRule> departments, double categoryBoost, Fallback fallback,
+                 LevelRules urgency, LevelRules sentiment) {}
+
+    private final Rules rules;
+    private final AhoCorasickMatcher matcher;
+    private final String[] deptPrefixes;   // first word of each department name, for the category boost
+    private final int[][] deptRefs;        // pattern id -> departments listing it
+    private final double[][] deptWeights;  // pattern id -> weight per entry in deptRefs
+    private final int[][] urgencyRefs;     // pattern id -> urgency rules listing it
+    private final int[][] sentimentRefs;   // pattern id -> sentiment rules listing it
+    private final double confidenceScale;
+
+    @Autowired
+    public DepartmentClassifier(@Value("${ml.classifier.rules:classpath:ml/department-rules.json}") Resource rulesResource,
+                                ObjectMapper objectMapper) throws IOException {
+        this(load(rulesResource, objectMapper));
+        logger.info("Loaded {} department rules ({} keywords) from {}",
+            rules.departments().size(), matcher.patternCount(), rulesResource);
+    }
+
+    DepartmentClassifier(Rules rules) {
+        this.rules = rules;
+
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        List<List<Integer>> deptEntries = new ArrayList<>();
+        List<List<Double>> weightEntries = new ArrayList<>();
+        List<List<Integer>> urgencyEntries = new ArrayList<>();
+        List<List<Integer>> sentimentEntries = new ArrayList<>();
+
+        int keywordCount = 0;
+        deptPrefixes = new String[rules.departments().size()];
+        for (int d = 0; d < rules.departments().size(); d++) {
+            DepartmentRule dept = rules.departments().get(d);
+            deptPrefixes[d] = dept.name().toLowerCase(Locale.ROOT).trim().split("\\s+")[0];
+            for (Map.Entry<String, Double> kw : dept.keywords().entrySet()) {
+                int id = idFor(kw.getKey(), ids, deptEntries, weightEntries, urgencyEntries, sentimentEntries);
+                deptEntries.get(id).add(d);
+                weightEntries.get(id).add(kw.getValue());
+                keywordCount++;
+            }
+        }
+        for (int u = 0; u < rules.urgency().rules().size(); u++) {
+            for (String kw : rules.urgency().rules().get(u).keywords()) {
+                urgencyEntries.get(idFor(kw, ids, deptEntries, weightEntries, urgencyEntries, sentimentEntries)).add(u);
+            }
+        }
+        for (int s = 0; s < rules.sentiment().rules().size(); s++) {
+            for (String kw : rules.sentiment().rules().get(s).keywords()) {
+                sentimentEntries.get(idFor(kw, ids, deptEntries, weightEntries, urgencyEntries, sentimentEntries)).add(s);
+            }
+        }
+
+        int n = ids.size();
+        deptRefs = new int[n][];
+        deptWeights = new double[n][];
+        urgencyRefs = new int[n][];
+        sentimentRefs = new int[n][];
+        for (int id = 0; id < n; id++) {
+            deptRefs[id] = deptEntries.get(id).stream().mapToInt(Integer::intValue).toArray();
+            deptWeights[id] = weightEntries.get(id).stream().mapToDouble(Double::doubleValue).toArray();
+            urgencyRefs[id] = urgencyEntries.get(id).stream().mapToInt(Integer::intValue).toArray();
+            sentimentRefs[id] = sentimentEntries.get(id).stream().mapToInt(Integer::intValue).toArray();
+        }
+        this.matcher = new AhoCorasickMatcher(new ArrayList<>(ids.keySet()));
+        // ml_stub.py: confidence = best_score / max(1.0, total_keywords / 4)
+        this.confidenceScale = Math.max(1.0, keywordCount / 4.0);
+    }
+
+    private static int idFor(String keyword, Map<String, Integer> ids, List<List<Integer>> depts,
+                             List<List<Double>> weights, List<List<Integer>> urgency, List<List<Integer>> sentiment) {
+        String key = keyword.toLowerCase(Locale.ROOT);
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = ids.size();
+            ids.put(key, id);
+            depts.add(new ArrayList<>());
+            weights.add(new ArrayList<>());
+            urgency.add(new ArrayList<>());
+            sentiment.add(new ArrayList<>());
+        }
+        return id;
+    }
+
+    private static Rules load(Resource resource, ObjectMapper objectMapper) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return objectMapper.readValue(in, Rules.class);
+        }
+    }
+
+    /**
+     * Classify a complaint. {@code text} is the concatenated title and description and
+     * {@code category} the citizen-chosen category, which only nudges the department score.
+     */
+    public MLPrediction classify(String text, String category) {
+        String haystack = text == null ? "" : text.toLowerCase(Locale.ROOT);
+        String cat = category == null ? "" : category.toLowerCase(Locale.ROOT);
+
+        boolean[] seen = new boolean[matcher.patternCount()];
+        matcher.match(haystack, id -> seen[id] = true);
+
+        int deptCount = rules.departments().size();
+        double[] scores = new double[deptCount];
+        boolean[] urgencyHit = new boolean[rules.urgency().rules().size()];
+        boolean[] sentimentHit = new boolean[rules.sentiment().rules().size()];
+        for (int id = 0; id < seen.length; id++) {
+            if (!seen[id]) {
+                continue;
+            }
+            for (int i = 0; i < deptRefs[id].length; i++) {
+                scores[deptRefs[id][i]] += deptWeights[id][i];
+            }
+            for (int u : urgencyRefs[id]) {
+                urgencyHit[u] = true;
+            }
+            for (int s : sentimentRefs[id]) {
+                sentimentHit[s] = true;
+            }
+        }
+
+        int best = -1;
+        double bestScore = 0.0;
+        for (int d = 0; d < deptCount; d++) {
+            double score = scores[d];
+            if (cat.contains(deptPrefixes[d])) {
+                score += rules.categoryBoost();
+            }
+            // strict '>' keeps the first department in file order on ties, as the stub does
+            if (score > bestScore) {
+                bestScore = score;
+                best = d;
+            }
+        }
+
+        String assignedDept;
+        List<String> hierarchy;
+        double confidence;
+        if (best < 0) {
+            assignedDept = rules.fallback().name();
+            hierarchy = rules.fallback().hierarchy();
+            confidence = rules.fallback().confidence();
+        } else {
+            DepartmentRule dept = rules.departments().get(best);
+            assignedDept = dept.name();
+            hierarchy = dept.hierarchy();
+            confidence = Math.min(0.99, bestScore / confidenceScale);
+        }
+
+        return new MLPrediction(
+            category == null || category.isEmpty() ? "GENERAL" : category.toUpperCase(Locale.ROOT),
+            firstHit(rules.urgency(), urgencyHit),
+            firstHit(rules.sentiment(), sentimentHit),
+            // Python's round(x, 2) rounds the exact binary value half-to-even
+            new BigDecimal(confidence).setScale(2, RoundingMode.HALF_EVEN).doubleValue(),
+            assignedDept,
+            hierarchy);
+    }
+
+    private static String firstHit(LevelRules levels, boolean[] hits) {
+        for (int i = 0; i < hits.length; i++) {
+            if (hits[i]) {
+                return levels.rules().get(i).level();
+            }
+        }
+        return levels.defaultLevel();
+    }
+}
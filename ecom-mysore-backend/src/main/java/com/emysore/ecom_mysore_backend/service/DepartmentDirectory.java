@@ -0,0 +1,103 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.Department;
+import com.emysore.ecom_mysore_backend.repository.DepartmentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory directory of departments by name. Lookups read an immutable snapshot without locking
+ * or touching the database; the snapshot is loaded on first use, replaced wholesale when
+ * {@link DepartmentService} writes, and reloaded after {@code department.directory.ttl} so writes
+ * made by other replicas show up too.
+ * <p>
+ * Names match after Unicode folding, lowercasing and collapsing punctuation, so the ML service's
+ * "MCC – UGD Section" finds a department saved as "MCC - UGD Section". Returned departments are
+ * detached copies shared between callers and must not be modified.
+ */
+@Component
+public class DepartmentDirectory {
+    private static final Logger logger = LoggerFactory.getLogger(DepartmentDirectory.class);
+
+    private record Snapshot(Map<String, Department> byKey, long loadedAt) {}
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    private final long ttlNanos;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter reloads;
+
+    public DepartmentDirectory(@Value("${department.directory.ttl:PT5M}") Duration ttl, MeterRegistry registry) {
+        this.ttlNanos = ttl.toNanos();
+        this.hits = Counter.builder("department.directory.lookups").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("department.directory.lookups").tag("result", "miss").register(registry);
+        this.reloads = Counter.builder("department.directory.reloads").register(registry);
+        registry.gauge("department.directory.size", snapshot, s -> s.get() == null ? 0 : s.get().byKey().size());
+    }
+
+    /** The department named {@code name}, or null when there is none. */
+    public Department find(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        Snapshot current = snapshot.get();
+        if (current == null || System.nanoTime() - current.loadedAt() > ttlNanos) {
+            current = reload(current);
+        }
+        Department department = current.byKey().get(key(name));
+        (department != null ? hits : misses).increment();
+        return department;
+    }
+
+    /** Drops the snapshot; the next lookup loads a fresh one. */
+    public synchronized void invalidate() {
+        snapshot.set(null);
+    }
+
+    // Serialised with invalidate, so a load racing a write can never install the pre-write table
+    private synchronized Snapshot reload(Snapshot stale) {
+        Snapshot current = snapshot.get();
+        if (current != null && current != stale) {
+            return current;
+        }
+        Map<String, Department> byKey = new HashMap<>();
+        for (Department d : departmentRepository.findAll()) {
+            String key = key(d.getName());
+            if (key.isEmpty()) {
+                continue;
+            }
+            Department copy = new Department();
+            copy.setId(d.getId());
+            copy.setName(d.getName());
+            copy.setContactEmail(d.getContactEmail());
+            copy.setPhone(d.getPhone());
+            if (byKey.putIfAbsent(key, copy) != null) {
+                logger.warn("Departments {} and {} have the same normalized name; using the first", byKey.get(key).getId(), d.getId());
+            }
+        }
+        Snapshot loaded = new Snapshot(Map.copyOf(byKey), System.nanoTime());
+        snapshot.set(loaded);
+        reloads.increment();
+        logger.debug("Loaded {} departments into the directory", byKey.size());
+        return loaded;
+    }
+
+    // Same folding as ML prediction keys, so both sides agree on what counts as the same name
+    static String key(String name) {
+        return MLPredictionCache.normalize(name);
+    }
+}
@@ -10,20 +10,33 @@ import java.util.List;
 public class DepartmentService {
 
     private final DepartmentRepository repo;
+    private final DepartmentDirectory directory;
 
-    public DepartmentService(DepartmentRepository repo) { this.repo = repo; }
+    public DepartmentService(DepartmentRepository repo, DepartmentDirectory directory) {
+        this.repo = repo;
+        this.directory = directory;
+    }
 
-    public Department create(Department d) { return repo.save(d); }
+    public Department create(Department d) {
+        Department saved = repo.save(d);
+        directory.invalidate();
+        return saved;
+    }
     public Department update(Long id, Department d) {
-        return repo.findById(id).map(existing -> {
+        Department updated = repo.findById(id).map(existing -> {
             existing.setName(d.getName());
             existing.setContactEmail(d.getContactEmail());
             existing.setPhone(d.getPhone());
             return repo.save(existing);
         }).orElse(null);
+        directory.invalidate();
+        return updated;
+    }
+    public void delete(Long id) {
+        repo.deleteById(id);
+        directory.invalidate();
     }
-    public void delete(Long id) { repo.deleteById(id); }
     public Department get(Long id) { return repo.findById(id).orElse(null); }
     public List<Department> list() { return repo.findAll(); }
-    public Department findByName(String name) { return repo.findByName(name); }
+    public Department findByName(String name) { return directory.find(name); }
 }
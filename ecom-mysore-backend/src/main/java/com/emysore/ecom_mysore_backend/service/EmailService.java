@@ -1,13 +1,25 @@
 package com.emysore.ecom_mysore_backend.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Sends mail through {@link MailBatchDispatcher}: messages from concurrent callers are grouped
+ * per flush window and share SMTP sessions instead of opening one connection each.
+ */
 @Service
 public class EmailService {
     private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
@@ -15,23 +27,75 @@ public class EmailService {
     @Autowired
     private JavaMailSender emailSender;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Value("${spring.mail.username}")
     private String fromEmail;
 
+    @Value("${mail.dispatch.flushWindowMs:200}")
+    private long flushWindowMs;
+
+    @Value("${mail.dispatch.maxBatchSize:50}")
+    private int maxBatchSize;
+
+    @Value("${mail.dispatch.sessions:2}")
+    private int sessions;
+
+    @Value("${mail.dispatch.domainRatePerSecond:5}")
+    private double domainRatePerSecond;
+
+    @Value("${mail.dispatch.domainBurst:20}")
+    private int domainBurst;
+
+    @Value("${mail.dispatch.queueCapacity:2000}")
+    private int queueCapacity;
+
+    private MailBatchDispatcher dispatcher;
+
+    @PostConstruct
+    void init() {
+        dispatcher = new MailBatchDispatcher(emailSender, flushWindowMs, maxBatchSize, sessions,
+            domainRatePerSecond, domainBurst, queueCapacity, meterRegistry);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    void stopDispatcher() {
+        dispatcher.shutdown();
+    }
+
     public void sendEmail(String to, String subject, String text) {
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(text);
-            emailSender.send(message);
-            
+            sendEmailAsync(to, subject, text, null).join();
             logger.info("Email sent successfully to: {}", to);
-        } catch (Exception e) {
-            logger.error("Failed to send email to: {}", to, e);
+        } catch (CompletionException e) {
+            logger.error("Failed to send email to: {}", to, e.getCause());
             // In production, you might want to handle this differently
-            throw new RuntimeException("Failed to send email", e);
+            throw new RuntimeException("Failed to send email", e.getCause());
+        }
+    }
+
+    /**
+     * Queues a message for the next flush window; the future completes once the SMTP server has
+     * accepted or rejected it. A {@code deliveryKey} becomes the Message-ID, so a retried delivery
+     * of the same outbox row carries the same Message-ID and can be de-duplicated downstream.
+     */
+    public CompletableFuture<Void> sendEmailAsync(String to, String subject, String text, String deliveryKey) {
+        try {
+            MimeMessage message = emailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+            helper.setFrom(fromEmail);
+            helper.setTo(to);
+            helper.setSubject(subject);
+            helper.setText(text);
+            if (deliveryKey != null) {
+                // JavaMailSenderImpl keeps an explicitly set Message-ID
+                message.setHeader("Message-ID", "<" + deliveryKey + "@e-mysore>");
+            }
+            return dispatcher.submit(message, to);
+        } catch (MessagingException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
         }
     }
 
@@ -1,23 +1,37 @@
 package com.emysore.ecom_mysore_backend.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+/**
+ * Housekeeping for the {@link SlaEngine}: escalations themselves fire from its timer wheel, these
+ * jobs only extend its horizon and sweep the deadline index for anything a timer missed.
+ */
 @Component
 public class EscalationScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(EscalationScheduler.class);
 
     @Autowired
-    private ComplaintService complaintService;
+    private SlaEngine slaEngine;
 
-    // Runs every 5 minutes in dev; adjust for production
-    @Scheduled(fixedDelayString = "PT5M")
+    @Scheduled(fixedDelayString = "${complaint.sla.refillInterval:PT1H}", initialDelayString = "${complaint.sla.refillInterval:PT1H}")
+    public void refillTimers() {
+        try {
+            slaEngine.refill();
+        } catch (Exception e) {
+            logger.error("SLA timer refill failed", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${complaint.sla.sweepInterval:PT15M}", initialDelayString = "${complaint.sla.sweepInterval:PT15M}")
     public void runEscalation() {
         try {
-            complaintService.escalateOverdue();
+            slaEngine.sweep();
         } catch (Exception e) {
-            // log and continue
-            System.err.println("Escalation job failed: " + e.getMessage());
+            logger.error("Escalation sweep failed", e);
         }
     }
 }
@@ -1,27 +1,234 @@
 package com.emysore.ecom_mysore_backend.service;
 
+import com.emysore.ecom_mysore_backend.util.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
+/**
+ * The one upload path. Files stream from the request to S3 when an {@link S3Client} bean exists,
+ * otherwise to {@code storage.local.dir} (served under {@code /uploads/}), and their SHA-256 is
+ * computed on the way through.
+ * <p>
+ * Locally the stream goes through {@link FileChannel#transferFrom} into a temp file next to the
+ * target, which is then renamed into place. S3 uploads below {@code storage.s3.multipartThreshold}
+ * are a single streamed PUT. Larger ones are a multipart upload that holds one
+ * {@code storage.s3.partSize} buffer at a time, so heap use does not grow with the photo.
+ */
 @Service
 public class FileStorageService {
+    private static final Logger logger = LoggerFactory.getLogger(FileStorageService.class);
 
-    private final String uploadDir = System.getProperty("user.dir") + File.separator + "uploads" + File.separator;
+    private static final long TRANSFER_CHUNK = 1 << 20;
 
-    public String uploadFile(MultipartFile file) throws IOException {
-        File folder = new File(uploadDir);
-        if (!folder.exists()) {
-            folder.mkdirs();
+    public record StoredFile(String url, String key, String sha256, long size) {}
+
+    private final Path localDir;
+    private final long multipartThreshold;
+    private final int partSize;
+    private final String bucketName;
+    private final String region;
+    private final S3Client s3Client;
+
+    public FileStorageService(@Value("${storage.local.dir:uploads}") String localDir,
+                              @Value("${storage.s3.multipartThreshold:16MB}") DataSize multipartThreshold,
+                              @Value("${storage.s3.partSize:8MB}") DataSize partSize,
+                              @Value("${aws.s3.bucket:local}") String bucketName,
+                              @Value("${aws.s3.region:local}") String region,
+                              @Nullable S3Client s3Client) {
+        this.localDir = Paths.get(localDir).toAbsolutePath().normalize();
+        this.multipartThreshold = multipartThreshold.toBytes();
+        // S3 rejects parts under 5 MB other than the last
+        this.partSize = (int) Math.max(partSize.toBytes(), DataSize.ofMegabytes(5).toBytes());
+        this.bucketName = bucketName;
+        this.region = region;
+        this.s3Client = s3Client;
+    }
+
+    /** Stores {@code file} under {@code prefix}, named by a random id and its sanitized original name. */
+    public StoredFile store(String prefix, MultipartFile file) throws IOException {
+        String key = prefix + "/" + UUID.randomUUID() + "-" + safeName(file.getOriginalFilename());
+        try (InputStream in = file.getInputStream()) {
+            return store(key, in, file.getSize(), file.getContentType());
+        }
+    }
+
+    public StoredFile store(String key, InputStream in, long size, String contentType) throws IOException {
+        MessageDigest sha256 = Hashing.sha256();
+        DigestInputStream digesting = new DigestInputStream(in, sha256);
+        StoredFile stored;
+        if (s3Client == null) {
+            stored = storeLocally(key, digesting, sha256);
+        } else if (size >= 0 && size < multipartThreshold) {
+            stored = putToS3(key, digesting, size, sha256, contentType);
+        } else {
+            stored = multipartToS3(key, digesting, sha256, contentType);
+        }
+        logger.debug("Stored {} ({} bytes, sha256 {})", stored.key(), stored.size(), stored.sha256());
+        return stored;
+    }
+
+    private StoredFile storeLocally(String key, InputStream in, MessageDigest sha256) throws IOException {
+        Path target = localFile(key);
+        Files.createDirectories(target.getParent());
+        // Same directory, so the final rename never copies across file systems
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+        try {
+            long written = 0;
+            try (ReadableByteChannel source = Channels.newChannel(in);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                long n;
+                while ((n = out.transferFrom(source, written, TRANSFER_CHUNK)) > 0) {
+                    written += n;
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            return new StoredFile(urlFor(key), key, Hashing.hex(sha256), written);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // The SDK reads exactly size bytes from the stream, so the digest is complete once the PUT returns
+    private StoredFile putToS3(String key, InputStream in, long size, MessageDigest sha256, String contentType) {
+        s3Client.putObject(PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .build(),
+            RequestBody.fromInputStream(in, size));
+        return new StoredFile(urlFor(key), key, Hashing.hex(sha256), size);
+    }
+
+    private StoredFile multipartToS3(String key, InputStream in, MessageDigest sha256, String contentType) throws IOException {
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .build()).uploadId();
+        try {
+            byte[] buffer = new byte[partSize];
+            List<CompletedPart> parts = new ArrayList<>();
+            long total = 0;
+            int n;
+            while ((n = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+                int partNumber = parts.size() + 1;
+                String eTag = s3Client.uploadPart(UploadPartRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength((long) n)
+                        .build(),
+                    RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, n), n)).eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+                total += n;
+            }
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                .build());
+            return new StoredFile(urlFor(key), key, Hashing.hex(sha256), total);
+        } catch (IOException | RuntimeException e) {
+            // Otherwise the parts already sent are kept, and billed, until a lifecycle rule clears them
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                .bucket(bucketName).key(key).uploadId(uploadId).build());
+            throw e;
         }
+    }
+
+    /** Where clients fetch {@code key} from. */
+    public String urlFor(String key) {
+        return s3Client == null
+            ? "/uploads/" + key
+            : String.format("https://%s.s3.%s.amazonaws.com/%s", bucketName, region, key);
+    }
+
+    public InputStream open(String key) throws IOException {
+        if (s3Client == null) {
+            return Files.newInputStream(localFile(key));
+        }
+        return s3Client.getObject(GetObjectRequest.builder().bucket(bucketName).key(key).build());
+    }
 
-        String fileName = UUID.randomUUID() + "_" + file.getOriginalFilename();
-        File dest = new File(folder, fileName);
-        file.transferTo(dest);
+    /**
+     * Renames {@code fromKey} to {@code toKey}, replacing whatever is there. Locally an atomic
+     * rename; on S3 a server-side copy and delete, so the bytes do not pass through this process.
+     */
+    public void move(String fromKey, String toKey) throws IOException {
+        if (s3Client == null) {
+            Path target = localFile(toKey);
+            Files.createDirectories(target.getParent());
+            Files.move(localFile(fromKey), target, StandardCopyOption.ATOMIC_MOVE);
+        } else {
+            s3Client.copyObject(CopyObjectRequest.builder()
+                .sourceBucket(bucketName).sourceKey(fromKey)
+                .destinationBucket(bucketName).destinationKey(toKey)
+                .build());
+            s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucketName).key(fromKey).build());
+        }
+    }
 
-        return "/uploads/" + fileName;
+    /** Deletes {@code key}; a key that does not exist is ignored. */
+    public void delete(String key) throws IOException {
+        if (s3Client == null) {
+            Files.deleteIfExists(localFile(key));
+        } else {
+            s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucketName).key(key).build());
+        }
+    }
+
+    /** Where {@code key} is, or would be, in the local store; rejects keys that leave it. */
+    public Path localFile(String key) throws IOException {
+        Path path = localDir.resolve(key).normalize();
+        if (!path.startsWith(localDir)) {
+            throw new IOException("Invalid storage key: " + key);
+        }
+        return path;
+    }
+
+    /** The last path element of a client-supplied name, limited to characters safe in keys and URLs. */
+    static String safeName(String originalName) {
+        if (originalName == null || originalName.isBlank()) {
+            return "upload";
+        }
+        String name = originalName.substring(Math.max(originalName.lastIndexOf('/'), originalName.lastIndexOf('\\')) + 1);
+        name = name.replaceAll("[^A-Za-z0-9._-]", "_");
+        return name.isEmpty() || name.chars().allMatch(c -> c == '.') ? "upload" : name;
     }
 }
@@ -0,0 +1,276 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.StoredObject;
+import com.emysore.ecom_mysore_backend.repository.ComplaintRepository;
+import com.emysore.ecom_mysore_backend.repository.StoredObjectRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Makes a thumbnail and a web-size JPEG of each stored image on the {@code imageRenditionExecutor}
+ * pool, then points every complaint with that image at them. Renditions are derived from the
+ * content, so they are stored next to the original under its hash and made once per object.
+ */
+@Service
+public class ImageRenditionService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageRenditionService.class);
+
+    public static final String THUMBNAIL = "thumb";
+    public static final String WEB = "web";
+
+    @Autowired
+    private StoredObjectRepository storedObjectRepository;
+
+    @Autowired
+    private ComplaintRepository complaintRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    @Qualifier("imageRenditionExecutor")
+    private ThreadPoolTaskExecutor executor;
+
+    @Value("${storage.renditions.thumbnailSize:320}")
+    private int thumbnailSize;
+
+    @Value("${storage.renditions.webSize:1280}")
+    private int webSize;
+
+    @Value("${storage.renditions.quality:0.8}")
+    private float quality;
+
+    // Checked against the header before any pixel is decoded, so a crafted file cannot exhaust the heap
+    @Value("${storage.renditions.maxPixels:50000000}")
+    private long maxPixels;
+
+    @Value("${storage.renditions.retryAfter:PT2M}")
+    private Duration retryAfter;
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry registry;
+
+    // Objects queued or running, so the retry sweep and repeat uploads do not submit them twice.
+    // True when a complaint committed meanwhile, so the task attaches once more before it ends.
+    private final ConcurrentHashMap<String, Boolean> inFlight = new ConcurrentHashMap<>();
+
+    public ImageRenditionService(PlatformTransactionManager transactionManager, MeterRegistry registry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.registry = registry;
+    }
+
+    /** Key of {@code variant} ({@link #THUMBNAIL} or {@link #WEB}) of the object {@code sha256}. */
+    public static String renditionKey(String sha256, String variant) {
+        return "objects/" + sha256.substring(0, 2) + "/" + sha256 + "-" + variant + ".jpg";
+    }
+
+    /**
+     * Queue renditions for an object. When called inside a transaction the task is only submitted
+     * once that transaction commits, so it sees the complaints referencing the object.
+     */
+    public void enqueueAfterCommit(String sha256) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(sha256);
+                }
+            });
+        } else {
+            submit(sha256);
+        }
+    }
+
+    private void submit(String sha256) {
+        Boolean queued;
+        while ((queued = inFlight.putIfAbsent(sha256, Boolean.FALSE)) != null) {
+            // The running task may have attached already; have it attach again for this complaint
+            if (queued || inFlight.replace(sha256, Boolean.FALSE, Boolean.TRUE)) {
+                return;
+            }
+            // It finished in between; submit afresh
+        }
+        try {
+            executor.execute(() -> {
+                do {
+                    try {
+                        render(sha256);
+                    } catch (Exception e) {
+                        registry.counter("storage.renditions", "result", "failed").increment();
+                        logger.error("Renditions failed for stored object {}", sha256, e);
+                    }
+                    // Only submit sets true and only this task clears it, so the swap cannot fail
+                } while (!inFlight.remove(sha256, Boolean.FALSE) && inFlight.replace(sha256, Boolean.TRUE, Boolean.FALSE));
+            });
+        } catch (TaskRejectedException e) {
+            inFlight.remove(sha256);
+            logger.warn("Rendition queue full; stored object {} left pending for retry", sha256);
+        }
+    }
+
+    private void render(String sha256) throws IOException {
+        StoredObject object = storedObjectRepository.findById(sha256).orElse(null);
+        if (object == null || StoredObject.RENDITIONS_UNSUPPORTED.equals(object.getRenditionStatus())
+                || StoredObject.DELETING.equals(object.getRenditionStatus())) {
+            return;
+        }
+        String thumbnailKey = renditionKey(sha256, THUMBNAIL);
+        String webKey = renditionKey(sha256, WEB);
+        if (StoredObject.RENDITIONS_READY.equals(object.getRenditionStatus())) {
+            // Made already; a complaint committed after they were attached still needs them
+            complaintRepository.attachImageRenditions(sha256, fileStorageService.urlFor(thumbnailKey), fileStorageService.urlFor(webKey));
+            return;
+        }
+
+        BufferedImage source;
+        try (InputStream in = fileStorageService.open(object.getStorageKey())) {
+            try {
+                source = decode(in, webSize);
+            } catch (IIOException | RuntimeException corrupt) {
+                // ImageIO's decoders also fail on malformed data with unchecked exceptions, e.g.
+                // IllegalArgumentException or ArrayIndexOutOfBoundsException; retrying cannot help
+                logger.warn("Stored object {} could not be decoded: {}", sha256, corrupt.toString());
+                source = null;
+            }
+        }
+        if (source == null) {
+            storedObjectRepository.finishRenditions(sha256, StoredObject.RENDITIONS_UNSUPPORTED, LocalDateTime.now());
+            registry.counter("storage.renditions", "result", "unsupported").increment();
+            return;
+        }
+
+        // The thumbnail is scaled from the web size, which is already a fraction of the original
+        BufferedImage web = fit(source, webSize);
+        BufferedImage thumbnail = fit(web, thumbnailSize);
+        put(webKey, web);
+        put(thumbnailKey, thumbnail);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            storedObjectRepository.finishRenditions(sha256, StoredObject.RENDITIONS_READY, LocalDateTime.now());
+            complaintRepository.attachImageRenditions(sha256, fileStorageService.urlFor(thumbnailKey), fileStorageService.urlFor(webKey));
+        });
+        registry.counter("storage.renditions", "result", "ready").increment();
+        logger.debug("Made renditions of stored object {} ({}x{})", sha256, web.getWidth(), web.getHeight());
+    }
+
+    /**
+     * Decodes the first image in {@code in}, or returns null if no reader understands it or it is
+     * over {@code maxPixels}. Rows and columns are skipped in the decoder down to about twice
+     * {@code targetSize}, so a 12 MP photo never needs a full-resolution raster.
+     */
+    private BufferedImage decode(InputStream in, int targetSize) throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = stream == null ? null : ImageIO.getImageReaders(stream);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / (2 * targetSize));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halves at most once per pass: one bilinear step over a larger ratio drops pixels and aliases
+    static BufferedImage fit(BufferedImage source, int maxSize) {
+        double scale = Math.min(1.0, (double) maxSize / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage current = source;
+        do {
+            int width = Math.max(targetWidth, current.getWidth() / 2);
+            int height = Math.max(targetHeight, current.getHeight() / 2);
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                // JPEG has no alpha; transparent areas become white rather than black
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, width, height);
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (current.getWidth() != targetWidth || current.getHeight() != targetHeight);
+        return current;
+    }
+
+    private void put(String key, BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        fileStorageService.store(key, new ByteArrayInputStream(out.toByteArray()), out.size(), "image/jpeg");
+    }
+
+    /**
+     * Re-queues objects still waiting for renditions, e.g. rejected while the queue was full or
+     * lost in a restart.
+     */
+    @Scheduled(fixedDelayString = "${storage.renditions.sweepInterval:PT1M}", initialDelayString = "PT30S")
+    public void resubmitPending() {
+        List<String> pending = storedObjectRepository.findShasByRenditionStatusAndUpdatedAtBefore(
+            StoredObject.RENDITIONS_PENDING, LocalDateTime.now().minus(retryAfter), PageRequest.of(0, 100));
+        for (String sha256 : pending) {
+            submit(sha256);
+        }
+        if (!pending.isEmpty()) {
+            logger.info("Re-queued {} stored objects pending renditions", pending.size());
+        }
+    }
+}
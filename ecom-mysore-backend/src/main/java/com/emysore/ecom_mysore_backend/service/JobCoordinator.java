@@ -0,0 +1,183 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits scheduled escalation work across replicas. Every node renews a lease named
+ * {@code node:<scheduler.nodeId>} each {@code scheduler.lease.heartbeat}; a lease not renewed
+ * within {@code scheduler.lease.ttl} is dead. The live nodes, sorted by id, each take the
+ * complaints with {@code id mod nodes = position}, so adding a replica shares the load instead of
+ * repeating it. Leases live in {@code scheduler_leases}, or in a Redis sorted set when
+ * {@code scheduler.lease.redis.enabled} is set. Node clocks are assumed to agree to well within
+ * the TTL.
+ * <p>
+ * Membership changes publish {@link PartitionChanged} on the heartbeat thread, so listeners must
+ * hand slow work off rather than delay the next renewal. While nodes disagree for a heartbeat or
+ * two, two nodes may work on the same complaint; the escalation claim is conditional, so only
+ * one of them escalates it.
+ */
+@Component
+public class JobCoordinator {
+    private static final Logger logger = LoggerFactory.getLogger(JobCoordinator.class);
+
+    private static final String NODE_PREFIX = "node:";
+    private static final String REDIS_NODES = "scheduler:nodes";
+
+    /** This node's share of the complaints: those with {@code id mod count = index}. */
+    public record Partition(int index, int count) {
+        public static final Partition ALL = new Partition(0, 1);
+
+        /** Predicate on {@code id} selecting the partition; values are ints, so safe to inline. */
+        public String sql() {
+            return count == 1 ? "1 = 1" : "MOD(id, " + count + ") = " + index;
+        }
+    }
+
+    public record PartitionChanged(Partition partition) {}
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired(required = false)
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    private final String nodeId;
+    private final Duration heartbeat;
+    private final Duration ttl;
+    private final boolean redisEnabled;
+    private final ScheduledExecutorService heartbeats;
+    private volatile Partition partition;
+
+    public JobCoordinator(@Value("${scheduler.nodeId:}") String nodeId,
+                          @Value("${scheduler.lease.heartbeat:PT10S}") Duration heartbeat,
+                          @Value("${scheduler.lease.ttl:PT30S}") Duration ttl,
+                          @Value("${scheduler.lease.redis.enabled:false}") boolean redisEnabled) {
+        this.nodeId = nodeId.isBlank()
+            ? System.getenv().getOrDefault("HOSTNAME", "node") + "-" + UUID.randomUUID().toString().substring(0, 8)
+            : nodeId;
+        this.heartbeat = heartbeat;
+        this.ttl = ttl;
+        this.redisEnabled = redisEnabled;
+        // Own thread, so a long sweep on the shared scheduler never lets the lease lapse
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "scheduler-lease");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Joins before other startup listeners, so they see this node's partition. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void join() {
+        heartbeat();
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+        logger.info("Scheduler node {} joined as partition {}", nodeId, partition);
+    }
+
+    @PreDestroy
+    void leave() {
+        heartbeats.shutdownNow();
+        try {
+            if (useRedis()) {
+                redisTemplate.opsForZSet().remove(REDIS_NODES, nodeId);
+            } else {
+                jdbcTemplate.update("DELETE FROM scheduler_leases WHERE name = ? AND owner = ?", NODE_PREFIX + nodeId, nodeId);
+            }
+        } catch (Exception e) {
+            logger.debug("Could not release scheduler lease of {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /** The current partition; everything until this node has joined. */
+    public Partition partition() {
+        Partition p = partition;
+        return p != null ? p : Partition.ALL;
+    }
+
+    void heartbeat() {
+        Partition next;
+        try {
+            List<String> live = useRedis() ? renewInRedis() : renewInDatabase();
+            int index = live.indexOf(nodeId);
+            next = index < 0 ? partition() : new Partition(index, live.size());
+        } catch (Exception e) {
+            // Keep working on the last known share; other nodes will drop us once the lease lapses
+            logger.warn("Scheduler lease renewal failed for {}: {}", nodeId, e.getMessage());
+            next = partition();
+        }
+        if (!next.equals(partition)) {
+            Partition previous = partition;
+            partition = next;
+            if (previous != null) {
+                logger.info("Scheduler node {} moved from partition {} to {}", nodeId, previous, next);
+            }
+            events.publishEvent(new PartitionChanged(next));
+        }
+    }
+
+    private boolean useRedis() {
+        return redisEnabled && redisTemplate != null;
+    }
+
+    /** Renews this node's lease and returns the live node ids in order. */
+    private List<String> renewInDatabase() {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp expires = Timestamp.valueOf(now.plus(ttl));
+        String name = NODE_PREFIX + nodeId;
+        if (jdbcTemplate.update("UPDATE scheduler_leases SET owner = ?, expires_at = ? WHERE name = ?", nodeId, expires, name) == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO scheduler_leases (name, owner, expires_at) VALUES (?, ?, ?)", name, nodeId, expires);
+            } catch (DuplicateKeyException e) {
+                jdbcTemplate.update("UPDATE scheduler_leases SET owner = ?, expires_at = ? WHERE name = ?", nodeId, expires, name);
+            }
+        }
+        // Leases of nodes that died without leaving
+        jdbcTemplate.update("DELETE FROM scheduler_leases WHERE expires_at < ?", Timestamp.valueOf(now.minus(ttl)));
+        return jdbcTemplate.queryForList(
+            "SELECT owner FROM scheduler_leases WHERE name LIKE ? AND expires_at > ? ORDER BY owner",
+            String.class, NODE_PREFIX + "%", Timestamp.valueOf(now));
+    }
+
+    /** Same in Redis: one sorted set scored by lease expiry. */
+    private List<String> renewInRedis() {
+        long now = System.currentTimeMillis();
+        redisTemplate.opsForZSet().add(REDIS_NODES, nodeId, now + ttl.toMillis());
+        redisTemplate.opsForZSet().removeRangeByScore(REDIS_NODES, Double.NEGATIVE_INFINITY, now);
+        Set<String> live = redisTemplate.opsForZSet().rangeByScore(REDIS_NODES, now, Double.POSITIVE_INFINITY);
+        List<String> sorted = new ArrayList<>(live == null ? Set.of() : live);
+        sorted.sort(null);
+        return sorted;
+    }
+}
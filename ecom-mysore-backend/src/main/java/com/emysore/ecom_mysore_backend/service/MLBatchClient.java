@@ -0,0 +1,190 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects concurrent /predict requests and sends them to /predict/batch as one call. A batch is
+ * flushed when it reaches {@code maxBatchSize} items or when the oldest item has waited
+ * {@code maxWaitMillis}, whichever comes first. Each caller gets its own future back. At most
+ * {@code maxInFlightBatches} calls run at once; beyond that the queue fills and {@link #submit}
+ * fails fast.
+ */
+class MLBatchClient {
+    private static final Logger logger = LoggerFactory.getLogger(MLBatchClient.class);
+
+    private record Pending(String title, String description, CompletableFuture<MLPrediction> future, long enqueuedAt) {}
+
+    private final RestTemplate restTemplate;
+    private final String batchUrl;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<Pending> queue;
+    private final ExecutorService senders;
+    private final Semaphore inFlightPermits;
+    private final Thread collector;
+    private volatile boolean running = true;
+
+    private final DistributionSummary batchSize;
+    private final Timer queueWait;
+    private final Timer batchLatency;
+
+    MLBatchClient(RestTemplate restTemplate, String batchUrl, int maxBatchSize, long maxWaitMillis,
+                  int queueCapacity, int maxInFlightBatches, MeterRegistry registry) {
+        this.restTemplate = restTemplate;
+        this.batchUrl = batchUrl;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.inFlightPermits = new Semaphore(maxInFlightBatches);
+        this.senders = Executors.newFixedThreadPool(maxInFlightBatches, r -> {
+            Thread t = new Thread(r, "ml-batch-sender");
+            t.setDaemon(true);
+            return t;
+        });
+        this.collector = new Thread(this::collectLoop, "ml-batch-collector");
+        this.collector.setDaemon(true);
+
+        this.batchSize = DistributionSummary.builder("ml.batch.size")
+            .description("Number of complaints sent per /predict/batch call")
+            .publishPercentiles(0.5, 0.95)
+            .register(registry);
+        this.queueWait = Timer.builder("ml.batch.queue.wait")
+            .description("Time a prediction request waited before its batch was sent")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(registry);
+        this.batchLatency = Timer.builder("ml.batch.request")
+            .description("Round trip of one /predict/batch call")
+            .register(registry);
+        registry.gauge("ml.batch.queue.depth", queue, BlockingQueue::size);
+    }
+
+    void start() {
+        collector.start();
+    }
+
+    void shutdown() {
+        running = false;
+        collector.interrupt();
+        senders.shutdown();
+        Pending p;
+        while ((p = queue.poll()) != null) {
+            p.future().completeExceptionally(new IllegalStateException("ML batch client shut down"));
+        }
+    }
+
+    CompletableFuture<MLPrediction> submit(String title, String description) {
+        CompletableFuture<MLPrediction> future = new CompletableFuture<>();
+        if (!queue.offer(new Pending(title, description, future, System.nanoTime()))) {
+            future.completeExceptionally(new RejectedExecutionException("ML batch queue full"));
+        }
+        return future;
+    }
+
+    private void collectLoop() {
+        while (running) {
+            try {
+                Pending first = queue.take();
+                List<Pending> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                long deadline = first.enqueuedAt() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("ML batch collector error", e);
+            }
+        }
+    }
+
+    private void dispatch(List<Pending> batch) throws InterruptedException {
+        // Blocks the collector while every sender is busy, so the bounded queue pushes back on callers
+        try {
+            inFlightPermits.acquire();
+        } catch (InterruptedException e) {
+            batch.forEach(p -> p.future().completeExceptionally(new IllegalStateException("ML batch client shut down")));
+            throw e;
+        }
+        try {
+            senders.execute(() -> {
+                try {
+                    send(batch);
+                } finally {
+                    inFlightPermits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlightPermits.release();
+            batch.forEach(p -> p.future().completeExceptionally(e));
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        long sentAt = System.nanoTime();
+        for (Pending p : batch) {
+            queueWait.record(sentAt - p.enqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+        batchSize.record(batch.size());
+
+        try {
+            List<Map<String, Object>> items = new ArrayList<>(batch.size());
+            for (Pending p : batch) {
+                items.add(MLService.predictRequest(p.title(), p.description()));
+            }
+            Map<String, Object> request = new HashMap<>();
+            request.put("items", items);
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+
+            Map<String, Object> response = batchLatency.recordCallable(
+                () -> restTemplate.postForObject(batchUrl, new HttpEntity<>(request, headers), Map.class));
+
+            Object predictions = response != null ? response.get("predictions") : null;
+            if (!(predictions instanceof List<?> list) || list.size() != batch.size()) {
+                throw new IllegalStateException("ML batch response does not match request size " + batch.size());
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> item = (Map<String, Object>) list.get(i);
+                batch.get(i).future().complete(MLPrediction.fromResponse(item));
+            }
+        } catch (Exception e) {
+            logger.error("ML batch call failed for {} complaints", batch.size(), e);
+            batch.forEach(p -> p.future().completeExceptionally(e));
+        }
+    }
+}
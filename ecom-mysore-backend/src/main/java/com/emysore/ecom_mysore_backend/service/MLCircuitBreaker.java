@@ -0,0 +1,174 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker for calls to the ML service.
+ * <ul>
+ *   <li>CLOSED: calls pass; the outcome of the last {@code windowSize} calls is tracked and the
+ *   breaker opens once at least {@code minimumCalls} have been seen and the failure rate reaches
+ *   {@code failureRateThreshold} percent.</li>
+ *   <li>OPEN: calls are rejected immediately until {@code openDuration} has elapsed.</li>
+ *   <li>HALF_OPEN: up to {@code halfOpenPermits} trial calls pass; if all succeed the breaker
+ *   closes, any failure re-opens it.</li>
+ * </ul>
+ */
+class MLCircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    interface TransitionListener {
+        void onTransition(State from, State to);
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenPermits;
+    private final LongSupplier clock;
+    private final TransitionListener listener;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final boolean[] outcomes;  // true = failure, ring buffer over the last windowSize calls
+    private int recorded;
+    private int next;
+    private int failures;
+
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenIssued;
+    private int halfOpenSucceeded;
+
+    MLCircuitBreaker(int windowSize, int minimumCalls, int failureRateThreshold, long openDurationMillis,
+                     int halfOpenPermits, LongSupplier clock, TransitionListener listener) {
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMillis);
+        this.halfOpenPermits = halfOpenPermits;
+        this.clock = clock;
+        this.listener = listener;
+        this.outcomes = new boolean[windowSize];
+    }
+
+    State getState() {
+        return state;
+    }
+
+    /** Returns false when the call must short-circuit to the fallback. */
+    boolean tryAcquirePermission() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (clock.getAsLong() - openedAt < openDurationNanos) {
+                    return false;
+                }
+                transition(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (halfOpenIssued >= halfOpenPermits) {
+                    return false;
+                }
+                halfOpenIssued++;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands back a permission that was granted but not used for a call, e.g. because the bulkhead
+     * was full. Without it a HALF_OPEN breaker would wait forever for the trial's outcome.
+     */
+    void releasePermission() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN && halfOpenIssued > halfOpenSucceeded) {
+                halfOpenIssued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onSuccess() {
+        record(false);
+    }
+
+    void onFailure() {
+        record(true);
+    }
+
+    private void record(boolean failure) {
+        lock.lock();
+        try {
+            switch (state) {
+                case HALF_OPEN -> {
+                    if (failure) {
+                        open();
+                    } else if (++halfOpenSucceeded >= halfOpenPermits) {
+                        resetWindow();
+                        transition(State.CLOSED);
+                    }
+                }
+                case CLOSED -> {
+                    if (recorded == windowSize && outcomes[next]) {
+                        failures--;
+                    }
+                    outcomes[next] = failure;
+                    next = (next + 1) % windowSize;
+                    if (recorded < windowSize) {
+                        recorded++;
+                    }
+                    if (failure) {
+                        failures++;
+                    }
+                    if (recorded >= minimumCalls && failures * 100 >= failureRateThreshold * recorded) {
+                        open();
+                    }
+                }
+                case OPEN -> {
+                    // late result of a call issued before the breaker opened
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() {
+        openedAt = clock.getAsLong();
+        resetWindow();
+        transition(State.OPEN);
+    }
+
+    private void resetWindow() {
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        halfOpenIssued = 0;
+        halfOpenSucceeded = 0;
+        Arrays.fill(outcomes, false);
+    }
+
+    private void transition(State to) {
+        State from = state;
+        if (from == to) {
+            return;
+        }
+        state = to;
+        if (to == State.HALF_OPEN) {
+            halfOpenIssued = 0;
+            halfOpenSucceeded = 0;
+        }
+        listener.onTransition(from, to);
+    }
+}
@@ -0,0 +1,60 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Parsed result of a /predict call. Kept separate from the Complaint entity so the ML round trip
+ * can run outside any transaction and the result applied later.
+ */
+public record MLPrediction(
+        String category,
+        String urgency,
+        String sentiment,
+        Double confidence,
+        String assignedDept,
+        List<String> departmentHierarchy) {
+
+    public static MLPrediction defaults() {
+        return new MLPrediction("GENERAL", "MEDIUM", "NEUTRAL", 0.5, null, null);
+    }
+
+    public static MLPrediction fromResponse(Map<String, Object> response) {
+        Object category = response.get("category");
+        Object urgency = response.get("urgency");
+        Object sentiment = response.get("sentiment");
+        Object confidence = response.get("confidence");
+        Object assignedDept = response.get("assigned_dept");
+        Object deptHierarchy = response.get("department_hierarchy");
+
+        Double score = null;
+        if (confidence != null) {
+            try {
+                score = Double.valueOf(confidence.toString());
+            } catch (NumberFormatException e) {
+                score = 0.5; // Default confidence
+            }
+        }
+
+        List<String> hierarchy = null;
+        if (deptHierarchy instanceof List<?> list) {
+            hierarchy = list.stream().map(Object::toString).collect(Collectors.toList());
+        } else if (deptHierarchy != null) {
+            hierarchy = List.of(deptHierarchy.toString());
+        }
+
+        return new MLPrediction(
+                category != null ? category.toString() : null,
+                urgency != null ? urgency.toString() : null,
+                sentiment != null ? sentiment.toString() : null,
+                score,
+                assignedDept != null ? assignedDept.toString() : null,
+                hierarchy);
+    }
+
+    /** Hierarchy in the form persisted on {@code complaints.department_hierarchy}. */
+    public String joinedHierarchy() {
+        return departmentHierarchy == null ? null : String.join(" > ", departmentHierarchy);
+    }
+}
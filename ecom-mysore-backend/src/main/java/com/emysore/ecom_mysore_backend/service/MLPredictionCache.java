@@ -0,0 +1,144 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.util.ExpiringLruCache;
+import com.emysore.ecom_mysore_backend.util.Hashing;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * Content-addressed cache of ML predictions. Complaints whose title and description normalize to
+ * the same text share one entry, so 40 reports of the same pothole cost one /predict call.
+ * <p>
+ * The first tier is an in-process LRU bounded by {@code ml.cache.maxEntries} with a TTL. When
+ * {@code ml.cache.redis.enabled} is set, misses fall through to Redis so replicas share results.
+ */
+@Component
+public class MLPredictionCache {
+    private static final Logger logger = LoggerFactory.getLogger(MLPredictionCache.class);
+    private static final String REDIS_PREFIX = "ml:prediction:";
+
+    private final long ttlNanos;
+    private final Duration ttl;
+    private final boolean redisEnabled;
+    private final LongSupplier nanoClock;
+
+    private final ExpiringLruCache<String, MLPrediction> entries;
+
+    @Autowired(required = false)
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+
+    @Autowired
+    public MLPredictionCache(@Value("${ml.cache.maxEntries:10000}") int maxEntries,
+                             @Value("${ml.cache.ttl:PT6H}") Duration ttl,
+                             @Value("${ml.cache.redis.enabled:false}") boolean redisEnabled,
+                             MeterRegistry registry) {
+        this(maxEntries, ttl, redisEnabled, registry, System::nanoTime);
+    }
+
+    MLPredictionCache(int maxEntries, Duration ttl, boolean redisEnabled, MeterRegistry registry, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.ttl = ttl;
+        this.ttlNanos = ttl.toNanos();
+        this.redisEnabled = redisEnabled;
+        this.hits = Counter.builder("ml.cache.hits").tag("tier", "local").register(registry);
+        this.misses = Counter.builder("ml.cache.misses").tag("tier", "local").register(registry);
+        this.evictions = Counter.builder("ml.cache.evictions").register(registry);
+        this.redisHits = Counter.builder("ml.cache.hits").tag("tier", "redis").register(registry);
+        this.redisMisses = Counter.builder("ml.cache.misses").tag("tier", "redis").register(registry);
+        this.entries = new ExpiringLruCache<>(maxEntries, nanoClock, evictions::increment);
+        registry.gauge("ml.cache.size", entries, ExpiringLruCache::size);
+    }
+
+    public MLPrediction get(String key) {
+        MLPrediction local = entries.get(key);
+        if (local != null) {
+            hits.increment();
+            return local;
+        }
+        misses.increment();
+
+        MLPrediction shared = getFromRedis(key);
+        if (shared != null) {
+            putLocal(key, shared);
+        }
+        return shared;
+    }
+
+    public void put(String key, MLPrediction prediction) {
+        putLocal(key, prediction);
+        putToRedis(key, prediction);
+    }
+
+    private void putLocal(String key, MLPrediction prediction) {
+        entries.put(key, prediction, nanoClock.getAsLong() + ttlNanos);
+    }
+
+    private MLPrediction getFromRedis(String key) {
+        if (!redisEnabled || redisTemplate == null) {
+            return null;
+        }
+        try {
+            String json = redisTemplate.opsForValue().get(REDIS_PREFIX + key);
+            if (json == null) {
+                redisMisses.increment();
+                return null;
+            }
+            redisHits.increment();
+            return objectMapper.readValue(json, MLPrediction.class);
+        } catch (Exception e) {
+            logger.debug("Redis prediction cache read failed", e);
+            return null;
+        }
+    }
+
+    private void putToRedis(String key, MLPrediction prediction) {
+        if (!redisEnabled || redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(REDIS_PREFIX + key, objectMapper.writeValueAsString(prediction), ttl);
+        } catch (Exception e) {
+            logger.debug("Redis prediction cache write failed", e);
+        }
+    }
+
+    /**
+     * SHA-256 of the normalized title and description: case, accents, punctuation and runs of
+     * whitespace are ignored so trivially different reports map to the same key.
+     */
+    public static String keyFor(String title, String description) {
+        return Hashing.sha256Hex(normalize(title) + "\n" + normalize(description));
+    }
+
+    /** Folds accents, case, dashes and other punctuation, and runs of whitespace. */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFKD)
+            .replaceAll("\\p{M}+", "")
+            .toLowerCase(Locale.ROOT);
+        return folded.replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+}
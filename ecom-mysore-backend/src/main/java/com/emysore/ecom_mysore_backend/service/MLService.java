@@ -1,19 +1,28 @@
 package com.emysore.ecom_mysore_backend.service;
 
 import com.emysore.ecom_mysore_backend.model.Complaint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.BufferingClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class MLService {
@@ -22,17 +31,230 @@ public class MLService {
     @Value("${ml.service.url:http://localhost:8000}")
     private String mlServiceUrl;
 
+    @Value("${ml.batch.enabled:true}")
+    private boolean batchEnabled;
+
+    @Value("${ml.batch.maxSize:32}")
+    private int batchMaxSize;
+
+    @Value("${ml.batch.maxWaitMs:5}")
+    private long batchMaxWaitMs;
+
+    @Value("${ml.batch.queueCapacity:2000}")
+    private int batchQueueCapacity;
+
+    @Value("${ml.batch.maxInFlight:4}")
+    private int batchMaxInFlight;
+
+    @Value("${ml.breaker.windowSize:20}")
+    private int breakerWindowSize;
+
+    @Value("${ml.breaker.minimumCalls:10}")
+    private int breakerMinimumCalls;
+
+    @Value("${ml.breaker.failureRateThreshold:50}")
+    private int breakerFailureRateThreshold;
+
+    @Value("${ml.breaker.openDurationMs:30000}")
+    private long breakerOpenDurationMs;
+
+    @Value("${ml.breaker.halfOpenPermits:3}")
+    private int breakerHalfOpenPermits;
+
+    @Value("${ml.bulkhead.maxConcurrent:16}")
+    private int bulkheadMaxConcurrent;
+
+    @Value("${ml.bulkhead.maxWaitMs:50}")
+    private long bulkheadMaxWaitMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MLPredictionCache predictionCache;
+
+    @Autowired
+    private DepartmentClassifier departmentClassifier;
+
+    // "local" classifies in-process only; "remote" calls the ML service first
+    @Value("#{'${ml.classifier.mode:remote}'.equalsIgnoreCase('local')}")
+    private boolean localPrimary;
+
+    @Value("${ml.classifier.localFallback:true}")
+    private boolean localFallback;
+
+    private final long mlServiceTimeoutMs;
+
     private final RestTemplate restTemplate;
 
-    public MLService() {
-        this.restTemplate = new RestTemplate();
+    private MLBatchClient batchClient;
+
+    private MLCircuitBreaker circuitBreaker;
+
+    private Semaphore bulkhead;
+
+    private Counter shortCircuited;
+
+    private Counter bulkheadRejected;
+
+    public MLService(@Value("${ml.service.timeout:5000}") long mlServiceTimeoutMs,
+                     @Value("${ml.service.connectTimeout:1000}") long connectTimeoutMs) {
+        this.mlServiceTimeoutMs = mlServiceTimeoutMs;
+        // JDK client keeps idle keep-alive connections pooled per host
+        HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(mlServiceTimeoutMs));
+        // Buffer the small JSON bodies so requests carry Content-Length instead of chunked encoding
+        this.restTemplate = new RestTemplate(new BufferingClientHttpRequestFactory(requestFactory));
+    }
+
+    @PostConstruct
+    void init() {
+        circuitBreaker = new MLCircuitBreaker(breakerWindowSize, breakerMinimumCalls, breakerFailureRateThreshold,
+            breakerOpenDurationMs, breakerHalfOpenPermits, System::nanoTime, (from, to) -> {
+                logger.warn("ML service circuit breaker {} -> {}", from, to);
+                meterRegistry.counter("ml.circuit.transitions", "from", from.name(), "to", to.name()).increment();
+            });
+        meterRegistry.gauge("ml.circuit.state", circuitBreaker, cb -> cb.getState().ordinal());
+        bulkhead = new Semaphore(bulkheadMaxConcurrent);
+        meterRegistry.gauge("ml.bulkhead.available", bulkhead, Semaphore::availablePermits);
+        shortCircuited = meterRegistry.counter("ml.circuit.short_circuited");
+        bulkheadRejected = meterRegistry.counter("ml.bulkhead.rejected");
+
+        if (batchEnabled) {
+            batchClient = new MLBatchClient(restTemplate, mlServiceUrl + "/predict/batch", batchMaxSize,
+                batchMaxWaitMs, batchQueueCapacity, batchMaxInFlight, meterRegistry);
+            batchClient.start();
+        }
+    }
+
+    MLCircuitBreaker.State circuitBreakerState() {
+        return circuitBreaker.getState();
+    }
+
+    @PreDestroy
+    void stopBatchClient() {
+        if (batchClient != null) {
+            batchClient.shutdown();
+        }
+    }
+
+    /** Body of a /predict call; {@code text} is included for the stub, which classifies on it. */
+    static Map<String, Object> predictRequest(String title, String description) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("title", title);
+        request.put("description", description);
+        request.put("text", predictText(title, description));
+        return request;
+    }
+
+    /** Title and description joined the way the ML services classify them. */
+    static String predictText(String title, String description) {
+        if (title == null || title.isEmpty()) {
+            return description == null ? "" : description;
+        }
+        return description == null || description.isEmpty() ? title : title + " " + description;
     }
 
     public void enrichComplaint(Complaint complaint) {
+        applyPrediction(complaint, predict(complaint.getTitle(), complaint.getDescription()));
+    }
+
+    /**
+     * Returns the prediction for this text, from the cache when an equivalent complaint has been
+     * seen, otherwise via /predict. Never touches the database, so callers can run it outside a
+     * transaction. When the ML service is unavailable the in-process classifier answers instead
+     * (or default values, if {@code ml.classifier.localFallback} is off).
+     */
+    public MLPrediction predict(String title, String description) {
+        MLPrediction prediction = predictIfAvailable(title, description);
+        return prediction != null ? prediction : fallbackPrediction(title, description);
+    }
+
+    /**
+     * The stand-in {@link #predict} uses when the ML service cannot answer: the in-process
+     * classifier, or default values if {@code ml.classifier.localFallback} is off.
+     */
+    public MLPrediction fallbackPrediction(String title, String description) {
+        return localFallback
+            ? departmentClassifier.classify(predictText(title, description), null)
+            : MLPrediction.defaults();
+    }
+
+    /**
+     * Like {@link #predict}, but returns null instead of a fallback when the ML service could not
+     * answer, so callers that can retry later do not keep a stand-in result.
+     */
+    public MLPrediction predictIfAvailable(String title, String description) {
+        if (localPrimary) {
+            return departmentClassifier.classify(predictText(title, description), null);
+        }
+
+        String cacheKey = MLPredictionCache.keyFor(title, description);
+        MLPrediction cached = predictionCache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        MLPrediction prediction = predictRemote(title, description);
+        // Failures are not cached so the next report retries the ML service
+        if (prediction != null) {
+            predictionCache.put(cacheKey, prediction);
+        }
+        return prediction;
+    }
+
+    /**
+     * Guards the ML round trip with the circuit breaker and bulkhead. Returns null without calling
+     * the service when the breaker is open or too many calls are already in flight.
+     */
+    private MLPrediction predictRemote(String title, String description) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            shortCircuited.increment();
+            return null;
+        }
+        boolean acquired = false;
         try {
-            Map<String, Object> request = new HashMap<>();
-            request.put("title", complaint.getTitle());
-            request.put("description", complaint.getDescription());
+            acquired = bulkhead.tryAcquire(bulkheadMaxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!acquired) {
+            circuitBreaker.releasePermission();
+            bulkheadRejected.increment();
+            return null;
+        }
+        try {
+            MLPrediction prediction = callPredict(title, description);
+            if (prediction != null) {
+                circuitBreaker.onSuccess();
+            } else {
+                circuitBreaker.onFailure();
+            }
+            return prediction;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private MLPrediction callPredict(String title, String description) {
+        if (batchClient != null) {
+            try {
+                return batchClient.submit(title, description)
+                    .get(mlServiceTimeoutMs + batchMaxWaitMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.error("Failed to enrich complaint with ML analysis", e);
+            }
+            return null;
+        }
+
+        try {
+            Map<String, Object> request = predictRequest(title, description);
 
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
@@ -42,82 +264,53 @@ public class MLService {
             Map<String, Object> response = restTemplate.postForObject(predictUrl, entity, Map.class);
 
             if (response != null) {
-                updateComplaintFromMLResponse(complaint, response);
-                logger.info("Successfully enriched complaint #{} with ML analysis", complaint.getId());
+                return MLPrediction.fromResponse(response);
             }
         } catch (Exception e) {
             logger.error("Failed to enrich complaint with ML analysis", e);
-            setDefaultMLValues(complaint);
         }
+        return null;
     }
 
-    private void updateComplaintFromMLResponse(Complaint complaint, Map<String, Object> response) {
-        try {
-            Object category = response.get("category");
-            Object urgency = response.get("urgency");
-            Object sentiment = response.get("sentiment");
-            Object confidence = response.get("confidence");
+    public void applyPrediction(Complaint complaint, MLPrediction prediction) {
+        if ((complaint.getCategory() == null || complaint.getCategory().isEmpty()) && prediction.category() != null) {
+            complaint.setCategory(prediction.category());
+        }
 
-            if ((complaint.getCategory() == null || complaint.getCategory().isEmpty()) && category != null) {
-                complaint.setCategory(category.toString());
-            }
-            
-            if (urgency != null) {
-                complaint.setUrgency(urgency.toString());
-            }
-            
-            if (sentiment != null) {
-                complaint.setSentiment(sentiment.toString());
-            }
-            
-            if (confidence != null) {
-                try {
-                    complaint.setConfidenceScore(Double.valueOf(confidence.toString()));
-                } catch (NumberFormatException e) {
-                    logger.warn("Invalid confidence score format in ML response", e);
-                    complaint.setConfidenceScore(0.5); // Default confidence
-                }
-            }
+        if (prediction.urgency() != null) {
+            complaint.setUrgency(prediction.urgency());
+        }
 
-            // New: pick up assigned department (if ML provided one)
-            Object assignedDept = response.get("assigned_dept");
-            if ((complaint.getAssignedDept() == null || complaint.getAssignedDept().isEmpty()) && assignedDept != null) {
-                complaint.setAssignedDept(assignedDept.toString());
-            }
+        if (prediction.sentiment() != null) {
+            complaint.setSentiment(prediction.sentiment());
+        }
 
-            // Optionally persist department hierarchy if provided
-            Object deptHierarchy = response.get("department_hierarchy");
-            if (deptHierarchy != null) {
-                try {
-                    if (deptHierarchy instanceof List) {
-                        @SuppressWarnings("unchecked")
-                        List<Object> list = (List<Object>) deptHierarchy;
-                        String joined = list.stream().map(Object::toString).collect(Collectors.joining(" > "));
-                        complaint.setDepartmentHierarchy(joined);
-                    } else {
-                        complaint.setDepartmentHierarchy(deptHierarchy.toString());
-                    }
-                    logger.debug("ML suggested department hierarchy for complaint #{}: {}", complaint.getId(), complaint.getDepartmentHierarchy());
-                } catch (Exception ex) {
-                    logger.warn("Failed to parse department_hierarchy from ML response", ex);
-                }
-            }
-        } catch (Exception e) {
-            logger.error("Error parsing ML response", e);
-            setDefaultMLValues(complaint);
+        if (prediction.confidence() != null) {
+            complaint.setConfidenceScore(prediction.confidence());
         }
-    }
 
-    private void setDefaultMLValues(Complaint complaint) {
-        complaint.setUrgency("MEDIUM");
-        complaint.setSentiment("NEUTRAL");
-        if (complaint.getCategory() == null || complaint.getCategory().isEmpty()) {
-            complaint.setCategory("GENERAL");
+        // Pick up assigned department (if ML provided one)
+        if ((complaint.getAssignedDept() == null || complaint.getAssignedDept().isEmpty()) && prediction.assignedDept() != null) {
+            complaint.setAssignedDept(prediction.assignedDept());
+        }
+
+        // Persist department hierarchy if provided
+        if (prediction.departmentHierarchy() != null) {
+            complaint.setDepartmentHierarchy(prediction.joinedHierarchy());
+            complaint.setMaxEscalationLevel(SlaPolicy.maxEscalationLevel(prediction.departmentHierarchy().size()));
+            logger.debug("ML suggested department hierarchy for complaint #{}: {}", complaint.getId(), complaint.getDepartmentHierarchy());
         }
-        complaint.setConfidenceScore(0.5);
     }
 
     public Map<String, Object> analyzeSentiment(String text) {
+        if (batchClient != null) {
+            // /predict already returns sentiment, so ride on the shared batch
+            MLPrediction prediction = predict(null, text);
+            return Map.of(
+                "sentiment", prediction.sentiment() != null ? prediction.sentiment() : "NEUTRAL",
+                "confidence", prediction.confidence() != null ? prediction.confidence() : 0.5
+            );
+        }
         try {
             Map<String, Object> request = new HashMap<>();
             request.put("text", text);
@@ -138,6 +331,13 @@ public class MLService {
     }
 
     public Map<String, Object> predictCategory(String text) {
+        if (batchClient != null) {
+            MLPrediction prediction = predict(null, text);
+            return Map.of(
+                "category", prediction.category() != null ? prediction.category() : "GENERAL",
+                "confidence", prediction.confidence() != null ? prediction.confidence() : 0.5
+            );
+        }
         try {
             Map<String, Object> request = new HashMap<>();
             request.put("text", text);
@@ -0,0 +1,251 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups outgoing mail into flush windows and sends each group over a single SMTP session
+ * ({@link JavaMailSender#send(MimeMessage...)} connects once per call). At most
+ * {@code maxSessions} sessions are open at a time, each carrying up to {@code maxBatchSize}
+ * messages. Recipient domains are rate limited with a token bucket; messages over a domain's
+ * budget wait for a later window instead of being sent. Each caller gets its own future back.
+ */
+class MailBatchDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(MailBatchDispatcher.class);
+
+    // Buckets are dropped (and refilled) once this many domains have been seen
+    private static final int MAX_TRACKED_DOMAINS = 10_000;
+
+    private record Pending(MimeMessage message, String domain, CompletableFuture<Void> future, long enqueuedAt) {}
+
+    private final JavaMailSender mailSender;
+    private final long flushWindowNanos;
+    private final int maxBatchSize;
+    private final int maxWindowSize;
+    private final int queueCapacity;
+    private final double domainRatePerSecond;
+    private final int domainBurst;
+    private final BlockingQueue<Pending> queue;
+    private final Semaphore sessionPermits;
+    private final ExecutorService sessions;
+    private final Thread collector;
+    private volatile boolean running = true;
+
+    // Owned by the collector thread
+    private final Map<String, TokenBucket> buckets = new HashMap<>();
+    private final List<Pending> deferred = new ArrayList<>();
+
+    private final Counter sent;
+    private final Counter failed;
+    private final Counter rateLimited;
+    private final DistributionSummary batchSize;
+    private final Timer queueWait;
+    private final Timer session;
+
+    MailBatchDispatcher(JavaMailSender mailSender, long flushWindowMillis, int maxBatchSize, int maxSessions,
+                        double domainRatePerSecond, int domainBurst, int queueCapacity, MeterRegistry registry) {
+        this.mailSender = mailSender;
+        this.flushWindowNanos = TimeUnit.MILLISECONDS.toNanos(flushWindowMillis);
+        this.maxBatchSize = maxBatchSize;
+        this.maxWindowSize = maxBatchSize * maxSessions;
+        this.domainRatePerSecond = domainRatePerSecond;
+        this.domainBurst = domainBurst;
+        this.queueCapacity = queueCapacity;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.sessionPermits = new Semaphore(maxSessions);
+        this.sessions = Executors.newFixedThreadPool(maxSessions, r -> {
+            Thread t = new Thread(r, "mail-session");
+            t.setDaemon(true);
+            return t;
+        });
+        this.collector = new Thread(this::collectLoop, "mail-batch-collector");
+        this.collector.setDaemon(true);
+
+        this.sent = Counter.builder("mail.dispatch.sent")
+            .description("Messages accepted by the SMTP server")
+            .register(registry);
+        this.failed = Counter.builder("mail.dispatch.failed")
+            .description("Messages the SMTP server rejected or that could not be sent")
+            .register(registry);
+        this.rateLimited = Counter.builder("mail.dispatch.rate_limited")
+            .description("Messages held back to a later window by a per-domain rate limit")
+            .register(registry);
+        this.batchSize = DistributionSummary.builder("mail.dispatch.batch.size")
+            .description("Messages sent per SMTP session")
+            .publishPercentiles(0.5, 0.95)
+            .register(registry);
+        this.queueWait = Timer.builder("mail.dispatch.queue.wait")
+            .description("Time a message waited before its SMTP session started")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(registry);
+        this.session = Timer.builder("mail.dispatch.session")
+            .description("Duration of one SMTP session, connect to quit")
+            .register(registry);
+        registry.gauge("mail.dispatch.queue.depth", queue, BlockingQueue::size);
+    }
+
+    void start() {
+        collector.start();
+    }
+
+    void shutdown() {
+        running = false;
+        collector.interrupt();
+        sessions.shutdown();
+        Pending p;
+        while ((p = queue.poll()) != null) {
+            p.future().completeExceptionally(new IllegalStateException("Mail dispatcher shut down"));
+        }
+    }
+
+    CompletableFuture<Void> submit(MimeMessage message, String recipient) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (!queue.offer(new Pending(message, domainOf(recipient), future, System.nanoTime()))) {
+            future.completeExceptionally(new RejectedExecutionException("Mail queue full"));
+        }
+        return future;
+    }
+
+    static String domainOf(String recipient) {
+        int at = recipient == null ? -1 : recipient.lastIndexOf('@');
+        return at < 0 ? "" : recipient.substring(at + 1).trim().toLowerCase();
+    }
+
+    private void collectLoop() {
+        while (running) {
+            try {
+                List<Pending> window = new ArrayList<>(deferred);
+                deferred.clear();
+                if (window.isEmpty()) {
+                    window.add(queue.take());
+                }
+                // Held-back messages count against the queue capacity, so a throttled domain
+                // cannot absorb an unbounded backlog
+                int limit = window.size() >= queueCapacity ? window.size() : window.size() + maxWindowSize;
+                long deadline = System.nanoTime() + flushWindowNanos;
+                while (window.size() < limit) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    window.add(next);
+                }
+                if (flush(window) == 0) {
+                    // Everything was held back; wait for the buckets to refill
+                    TimeUnit.NANOSECONDS.sleep(Math.max(deadline - System.nanoTime(), 0));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                logger.error("Mail batch collector error", e);
+            }
+        }
+        deferred.forEach(p -> p.future().completeExceptionally(new IllegalStateException("Mail dispatcher shut down")));
+    }
+
+    /** Sends what the domain budgets allow and returns how many messages were released. */
+    private int flush(List<Pending> window) throws InterruptedException {
+        Map<String, List<Pending>> byDomain = new LinkedHashMap<>();
+        for (Pending p : window) {
+            byDomain.computeIfAbsent(p.domain(), d -> new ArrayList<>()).add(p);
+        }
+        if (buckets.size() > MAX_TRACKED_DOMAINS) {
+            buckets.clear();
+        }
+        long now = System.nanoTime();
+        List<Pending> released = new ArrayList<>(window.size());
+        for (Map.Entry<String, List<Pending>> entry : byDomain.entrySet()) {
+            List<Pending> items = entry.getValue();
+            int allowed = items.size();
+            if (domainRatePerSecond > 0) {
+                allowed = buckets.computeIfAbsent(entry.getKey(), d -> new TokenBucket(domainRatePerSecond, domainBurst, now))
+                    .take(items.size(), now);
+            }
+            released.addAll(items.subList(0, allowed));
+            if (allowed < items.size()) {
+                deferred.addAll(items.subList(allowed, items.size()));
+                rateLimited.increment(items.size() - allowed);
+            }
+        }
+        for (int from = 0; from < released.size(); from += maxBatchSize) {
+            dispatch(new ArrayList<>(released.subList(from, Math.min(from + maxBatchSize, released.size()))));
+        }
+        return released.size();
+    }
+
+    private void dispatch(List<Pending> batch) throws InterruptedException {
+        // Blocks the collector while all sessions are busy, so the bounded queue pushes back on callers
+        sessionPermits.acquire();
+        try {
+            sessions.execute(() -> {
+                try {
+                    send(batch);
+                } finally {
+                    sessionPermits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            sessionPermits.release();
+            batch.forEach(p -> p.future().completeExceptionally(e));
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        long startedAt = System.nanoTime();
+        for (Pending p : batch) {
+            queueWait.record(startedAt - p.enqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+        batchSize.record(batch.size());
+
+        MimeMessage[] messages = batch.stream().map(Pending::message).toArray(MimeMessage[]::new);
+        try {
+            session.record(() -> mailSender.send(messages));
+            sent.increment(batch.size());
+            batch.forEach(p -> p.future().complete(null));
+        } catch (MailSendException e) {
+            // JavaMailSenderImpl keeps going after a rejected message and reports each failure
+            Map<Object, Exception> failures = e.getFailedMessages();
+            for (Pending p : batch) {
+                Exception failure = failures.isEmpty() ? e : failures.get(p.message());
+                if (failure == null) {
+                    sent.increment();
+                    p.future().complete(null);
+                } else {
+                    failed.increment();
+                    p.future().completeExceptionally(failure);
+                }
+            }
+            logger.warn("{} of {} messages in SMTP session failed", failures.isEmpty() ? batch.size() : failures.size(), batch.size());
+        } catch (Exception e) {
+            logger.error("SMTP session failed for {} messages", batch.size(), e);
+            failed.increment(batch.size());
+            batch.forEach(p -> p.future().completeExceptionally(e));
+        }
+    }
+}
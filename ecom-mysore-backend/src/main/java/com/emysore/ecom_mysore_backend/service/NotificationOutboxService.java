@@ -0,0 +1,242 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.NotificationOutbox;
+import com.emysore.ecom_mysore_backend.repository.NotificationOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Transactional outbox for email and SMS. {@link #enqueue} writes a row in the caller's
+ * transaction; after commit the dispatcher claims due rows in batches ({@code FOR UPDATE SKIP
+ * LOCKED}), pushes their next attempt past a lease so a crashed instance's claims come back, and
+ * hands them to the batching email and SMS clients; results are recorded on the notification
+ * worker pool. Failures are retried with exponential backoff until
+ * {@code notification.outbox.maxAttempts}, then left as FAILED.
+ */
+@Service
+public class NotificationOutboxService {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationOutboxService.class);
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private SMSService smsService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    @Qualifier("notificationDispatchExecutor")
+    private ThreadPoolTaskExecutor executor;
+
+    @Autowired
+    @Qualifier("notificationDrainExecutor")
+    private ThreadPoolTaskExecutor drainExecutor;
+
+    @Value("${notification.outbox.batchSize:50}")
+    private int batchSize;
+
+    @Value("${notification.outbox.maxAttempts:8}")
+    private int maxAttempts;
+
+    @Value("${notification.outbox.initialBackoff:PT30S}")
+    private Duration initialBackoff;
+
+    @Value("${notification.outbox.maxBackoff:PT1H}")
+    private Duration maxBackoff;
+
+    // How long a claimed row stays invisible to other dispatchers while it is being delivered
+    @Value("${notification.outbox.lease:PT2M}")
+    private Duration lease;
+
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean wakeRequested;
+
+    public NotificationOutboxService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // A delivery key already queued is skipped by the database, so concurrent writers never fail the
+    // caller's transaction. delivery_key is the only unique column a caller supplies, so the conflict
+    // needs no target (H2 does not accept one).
+    private static final String INSERT_SQL =
+        "INSERT INTO notification_outbox (delivery_key, channel, recipient, subject, body, status, attempts, next_attempt_at, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, 'PENDING', 0, ?, ?) ON CONFLICT DO NOTHING";
+
+    /**
+     * Adds a message to the outbox in the current transaction (or a new one) and wakes the
+     * dispatcher once it commits. A second enqueue with the same {@code deliveryKey} is ignored.
+     */
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void enqueue(NotificationOutbox.Channel channel, String recipient, String subject, String body,
+                        String deliveryKey) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int inserted = jdbcTemplate.update(INSERT_SQL,
+            deliveryKey, channel.name(), recipient, subject, body, now, now);
+        if (inserted == 0) {
+            logger.debug("Outbox message {} already queued", deliveryKey);
+            return;
+        }
+        wakeUpAfterCommit();
+    }
+
+    /**
+     * Bulk form of {@link #enqueue} for sweeps: inserts all rows with one JDBC batch in the
+     * current transaction, skipping delivery keys that are already queued, and wakes the
+     * dispatcher once after commit.
+     */
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void enqueueAll(List<NotificationOutbox> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.getDeliveryKey());
+            ps.setString(2, row.getChannel().name());
+            ps.setString(3, row.getRecipient());
+            ps.setString(4, row.getSubject());
+            ps.setString(5, row.getBody());
+            ps.setTimestamp(6, now);
+            ps.setTimestamp(7, now);
+        });
+        wakeUpAfterCommit();
+    }
+
+    private void wakeUpAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                wakeUp();
+            }
+        });
+    }
+
+    /** Starts a drain on the drain thread unless one is already running or queued. */
+    public void wakeUp() {
+        wakeRequested = true;
+        if (!draining.get()) {
+            drainExecutor.execute(this::drain);
+        }
+    }
+
+    /** Backstop for retries that come due and wake-ups lost to a crash. */
+    @Scheduled(fixedDelayString = "${notification.outbox.pollInterval:PT5S}", initialDelayString = "PT10S")
+    public void poll() {
+        wakeUp();
+    }
+
+    void drain() {
+        while (wakeRequested && draining.compareAndSet(false, true)) {
+            try {
+                wakeRequested = false;
+                List<NotificationOutbox> batch;
+                do {
+                    batch = claimBatch();
+                    deliverAll(batch);
+                } while (batch.size() == batchSize);
+            } catch (Exception e) {
+                logger.error("Notification outbox drain failed", e);
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+
+    private List<NotificationOutbox> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<NotificationOutbox> due = outboxRepository.findDueForUpdate(now, PageRequest.of(0, batchSize));
+            for (NotificationOutbox row : due) {
+                row.setAttempts(row.getAttempts() + 1);
+                row.setNextAttemptAt(now.plus(lease));
+            }
+            return due;
+        });
+    }
+
+    private void deliverAll(List<NotificationOutbox> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        CompletableFuture.allOf(batch.stream()
+                .map(row -> send(row).handleAsync((ok, failure) -> {
+                    record(row, failure instanceof CompletionException ? failure.getCause() : failure);
+                    return null;
+                }, executor))
+                .toArray(CompletableFuture[]::new))
+            .join();
+    }
+
+    private CompletableFuture<Void> send(NotificationOutbox row) {
+        return switch (row.getChannel()) {
+            // Both clients group the whole batch into shared SMTP sessions / bulk gateway requests
+            case EMAIL -> emailService.sendEmailAsync(row.getRecipient(), row.getSubject(), row.getBody(), row.getDeliveryKey());
+            case SMS -> smsService.sendSMSAsync(row.getRecipient(), row.getBody(), row.getDeliveryKey());
+        };
+    }
+
+    private void record(NotificationOutbox row, Throwable failure) {
+        String channel = row.getChannel().name().toLowerCase();
+        if (failure == null) {
+            outboxRepository.markSent(row.getId(), LocalDateTime.now());
+            meterRegistry.counter("notification.outbox.sent", "channel", channel).increment();
+            return;
+        }
+        String error = failure.getMessage() == null ? failure.getClass().getSimpleName() : failure.getMessage();
+        if (error.length() > 1000) {
+            error = error.substring(0, 1000);
+        }
+        if (row.getAttempts() >= maxAttempts) {
+            outboxRepository.markFailedAttempt(row.getId(), NotificationOutbox.Status.FAILED, row.getNextAttemptAt(), error);
+            meterRegistry.counter("notification.outbox.failed", "channel", channel).increment();
+            logger.error("Giving up on {} {} to {} after {} attempts: {}",
+                channel, row.getDeliveryKey(), row.getRecipient(), row.getAttempts(), error);
+        } else {
+            LocalDateTime next = LocalDateTime.now().plus(backoff(row.getAttempts()));
+            outboxRepository.markFailedAttempt(row.getId(), NotificationOutbox.Status.PENDING, next, error);
+            meterRegistry.counter("notification.outbox.retried", "channel", channel).increment();
+            logger.warn("Delivery of {} {} failed (attempt {}), retrying at {}: {}",
+                channel, row.getDeliveryKey(), row.getAttempts(), next, error);
+        }
+    }
+
+    /** initialBackoff * 2^(attempt-1), capped at maxBackoff, with up to 20% jitter. */
+    Duration backoff(int attempt) {
+        long base = initialBackoff.toMillis() << Math.min(attempt - 1, 20);
+        long capped = Math.min(base, maxBackoff.toMillis());
+        return Duration.ofMillis(capped + ThreadLocalRandom.current().nextLong(capped / 5 + 1));
+    }
+}
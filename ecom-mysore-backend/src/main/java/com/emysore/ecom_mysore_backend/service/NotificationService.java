@@ -1,6 +1,7 @@
 package com.emysore.ecom_mysore_backend.service;
 
 import com.emysore.ecom_mysore_backend.model.Notification;
+import com.emysore.ecom_mysore_backend.model.NotificationOutbox;
 import com.emysore.ecom_mysore_backend.model.User;
 import com.emysore.ecom_mysore_backend.repository.NotificationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,11 +9,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
 
 @Service
 public class NotificationService {
@@ -21,6 +27,12 @@ public class NotificationService {
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private NotificationOutboxService outboxService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Transactional
     public Notification createNotification(User user, String title, String message, Notification.NotificationType type) {
         Notification notification = new Notification();
@@ -30,42 +42,64 @@ public class NotificationService {
         notification.setType(type);
         
         notification = notificationRepository.save(notification);
-        
-        // Async notification dispatch
-        sendNotificationAsync(notification);
-        
-        return notification;
-    }
 
-    @Autowired
-    private EmailService emailService;
-
-    @Autowired
-    private SMSService smsService;
-
-    @Async
-    protected void sendNotificationAsync(Notification notification) {
-        User user = notification.getUser();
-        String title = notification.getTitle();
-        String message = notification.getMessage();
-
-        // Send email if user has email
+        // Delivered by the outbox dispatcher after this transaction commits
         if (user.getEmail() != null && !user.getEmail().isEmpty()) {
-            try {
-                emailService.sendEmail(user.getEmail(), title, message);
-            } catch (Exception e) {
-                logger.error("Failed to send email notification", e);
-            }
+            outboxService.enqueue(NotificationOutbox.Channel.EMAIL, user.getEmail(), title, message,
+                "notification-" + notification.getId() + "-email");
         }
-
-        // Send SMS if user has phone
         if (user.getPhone() != null && !user.getPhone().isEmpty()) {
-            try {
-                smsService.sendSMS(user.getPhone(), title + ": " + message);
-            } catch (Exception e) {
-                logger.error("Failed to send SMS notification", e);
+            outboxService.enqueue(NotificationOutbox.Channel.SMS, user.getPhone(), title, title + ": " + message,
+                "notification-" + notification.getId() + "-sms");
+        }
+
+        return notification;
+    }
+
+    /**
+     * Bulk form of {@link #createNotification} for sweeps over many complaints: one JDBC batch for
+     * the notifications and one for their outbox rows. Each notification's email/SMS delivery keys
+     * start with {@code deliveryKeys} of it, which must be stable so a re-run does not send twice.
+     */
+    @Transactional
+    public void createNotifications(List<Notification> notifications, Function<Notification, String> deliveryKeys) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO notifications (user_id, title, message, type, read, created_at) VALUES (?, ?, ?, ?, false, ?)",
+            notifications, notifications.size(), (ps, n) -> {
+                ps.setLong(1, n.getUser().getId());
+                ps.setString(2, n.getTitle());
+                ps.setString(3, n.getMessage());
+                ps.setString(4, n.getType().name());
+                ps.setTimestamp(5, now);
+            });
+
+        List<NotificationOutbox> outbox = new ArrayList<>();
+        for (Notification n : notifications) {
+            User user = n.getUser();
+            String key = deliveryKeys.apply(n);
+            if (user.getEmail() != null && !user.getEmail().isEmpty()) {
+                outbox.add(outboxRow(NotificationOutbox.Channel.EMAIL, user.getEmail(), n.getTitle(), n.getMessage(), key + "-email"));
+            }
+            if (user.getPhone() != null && !user.getPhone().isEmpty()) {
+                outbox.add(outboxRow(NotificationOutbox.Channel.SMS, user.getPhone(), n.getTitle(), n.getTitle() + ": " + n.getMessage(), key + "-sms"));
             }
         }
+        outboxService.enqueueAll(outbox);
+    }
+
+    static NotificationOutbox outboxRow(NotificationOutbox.Channel channel, String recipient, String subject,
+                                        String body, String deliveryKey) {
+        NotificationOutbox row = new NotificationOutbox();
+        row.setChannel(channel);
+        row.setRecipient(recipient);
+        row.setSubject(subject);
+        row.setBody(body);
+        row.setDeliveryKey(deliveryKey);
+        return row;
     }
 
     @Transactional(readOnly = true)
@@ -100,23 +134,17 @@ public class NotificationService {
 
     /**
      * Send a direct notification to an external contact (department email/phone) without
-     * persisting a Notification entity.
+     * persisting a Notification entity. Queued in the outbox with the caller's transaction.
      */
+    @Transactional
     public void sendDirectContactNotification(String email, String phone, String title, String message) {
+        String key = "direct-" + UUID.randomUUID();
         if (email != null && !email.isEmpty()) {
-            try {
-                emailService.sendEmail(email, title, message);
-            } catch (Exception e) {
-                logger.error("Failed to send direct email to {}", email, e);
-            }
+            outboxService.enqueue(NotificationOutbox.Channel.EMAIL, email, title, message, key + "-email");
         }
 
         if (phone != null && !phone.isEmpty()) {
-            try {
-                smsService.sendSMS(phone, title + ": " + message);
-            } catch (Exception e) {
-                logger.error("Failed to send direct SMS to {}", phone, e);
-            }
+            outboxService.enqueue(NotificationOutbox.Channel.SMS, phone, title, title + ": " + message, key + "-sms");
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,275 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.Department;
+import com.emysore.ecom_mysore_backend.model.Notification;
+import com.emysore.ecom_mysore_backend.model.NotificationOutbox;
+import com.emysore.ecom_mysore_backend.model.User;
+import com.emysore.ecom_mysore_backend.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Moves PENDING complaints whose SLA {@code deadline} has passed one level up their
+ * {@code department_hierarchy}, in chunks of {@code complaint.escalation.chunkSize}. Each chunk is
+ * its own transaction: one set-based UPDATE claims the rows and bumps {@code escalation_level},
+ * the next level's deadlines, audit rows, citizen notifications and department alerts go out as
+ * JDBC batches, and it commits before the next chunk starts. A complaint at
+ * {@code max_escalation_level} has no deadline and is not claimed again. {@link SlaEngine} calls
+ * {@link #escalate} with the ids its timers fired for, and {@link #escalateDue} backs it up by
+ * sweeping the deadline index. Claims re-check that a row is still due, so replicas racing for
+ * the same complaint escalate it once.
+ */
+@Service
+public class OverdueEscalationService {
+    private static final Logger logger = LoggerFactory.getLogger(OverdueEscalationService.class);
+
+    private static final String DUE = "status = 'PENDING' AND deadline <= :now AND escalation_level < max_escalation_level";
+
+    private static final String CLAIMED_COLUMNS = "id, user_id, assigned_dept, urgency, department_hierarchy, escalation_level, max_escalation_level";
+
+    /** A complaint moved to {@code level}; {@code nextDeadline} is null at the top of its chain. */
+    public record Escalation(long complaintId, int level, LocalDateTime nextDeadline) {}
+
+    private record Claimed(long id, Long userId, String assignedDept, String urgency, String hierarchy,
+                           int level, int maxLevel) {}
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DepartmentDirectory departmentDirectory;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationOutboxService outboxService;
+
+    @Autowired
+    private SlaPolicy slaPolicy;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${complaint.escalation.chunkSize:500}")
+    private int chunkSize;
+
+    private final TransactionTemplate chunkTransaction;
+
+    // Hierarchies come from a handful of department rules; each distinct chain is split once
+    private final Map<String, String[]> chains = new ConcurrentHashMap<>();
+
+    private boolean postgres;
+
+    public OverdueEscalationService(PlatformTransactionManager transactionManager) {
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void init() {
+        try {
+            postgres = "PostgreSQL".equals(JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+        } catch (MetaDataAccessException e) {
+            logger.warn("Could not detect database for overdue escalation: {}", e.getMessage());
+        }
+    }
+
+    /** Escalates every complaint of {@code partition} past its deadline by one level. */
+    public List<Escalation> escalateDue(JobCoordinator.Partition partition) {
+        List<Escalation> escalated = new ArrayList<>();
+        String where = DUE + " AND " + partition.sql();
+        int claimed;
+        do {
+            claimed = chunkTransaction.execute(status -> escalateChunk(where, new MapSqlParameterSource(), escalated));
+        } while (claimed == chunkSize);
+        if (!escalated.isEmpty()) {
+            logger.info("Escalated {} overdue complaints", escalated.size());
+        }
+        return escalated;
+    }
+
+    /**
+     * Escalates those of {@code ids} that are still due; complaints resolved, escalated or given a
+     * later deadline since their timer was set are left alone.
+     */
+    public List<Escalation> escalate(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Long> all = new ArrayList<>(ids);
+        List<Escalation> escalated = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += chunkSize) {
+            List<Long> chunk = all.subList(from, Math.min(from + chunkSize, all.size()));
+            chunkTransaction.execute(status -> escalateChunk("id IN (:ids) AND " + DUE,
+                new MapSqlParameterSource("ids", chunk), escalated));
+        }
+        if (!escalated.isEmpty()) {
+            logger.info("Escalated {} complaints at their SLA deadline", escalated.size());
+        }
+        return escalated;
+    }
+
+    private int escalateChunk(String where, MapSqlParameterSource params, List<Escalation> escalated) {
+        LocalDateTime now = LocalDateTime.now();
+        params.addValue("now", Timestamp.valueOf(now)).addValue("limit", chunkSize);
+        List<Claimed> chunk = postgres ? claimReturning(where, params) : claimSelectThenUpdate(where, params);
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+
+        // The claim cleared deadline; complaints below the top of their chain get the next level's
+        List<Escalation> moved = new ArrayList<>(chunk.size());
+        for (Claimed c : chunk) {
+            moved.add(new Escalation(c.id(), c.level(),
+                c.level() < c.maxLevel() ? slaPolicy.levelDeadline(now, c.level(), c.urgency()) : null));
+        }
+        List<Escalation> timed = moved.stream().filter(e -> e.nextDeadline() != null).toList();
+        if (!timed.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE complaints SET deadline = ? WHERE id = ?",
+                timed, timed.size(), (ps, e) -> {
+                    ps.setTimestamp(1, Timestamp.valueOf(e.nextDeadline()));
+                    ps.setLong(2, e.complaintId());
+                });
+        }
+
+        Timestamp timestamp = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO complaint_audit_logs (complaint_id, action, old_value, new_value, comment, timestamp) VALUES (?, ?, ?, ?, ?, ?)",
+            chunk, chunk.size(), (ps, c) -> {
+                String[] chain = chain(c.hierarchy());
+                ps.setLong(1, c.id());
+                ps.setString(2, "ESCALATED");
+                ps.setString(3, levelName(chain, c.level() - 1));
+                ps.setString(4, levelName(chain, c.level()));
+                ps.setString(5, "Complaint automatically escalated to level " + c.level() + " of " + c.maxLevel()
+                    + ": SLA deadline passed");
+                ps.setTimestamp(6, timestamp);
+            });
+
+        Map<Long, User> users = new HashMap<>();
+        userRepository.findAllById(chunk.stream().map(Claimed::userId).filter(id -> id != null).distinct().toList())
+            .forEach(u -> users.put(u.getId(), u));
+        List<Notification> notifications = new ArrayList<>(chunk.size());
+        Map<Notification, String> deliveryKeys = new HashMap<>();
+        List<NotificationOutbox> departmentAlerts = new ArrayList<>();
+        for (Claimed c : chunk) {
+            String level = levelName(chain(c.hierarchy()), c.level());
+            // One set of notifications per complaint and level, so keys never repeat
+            String key = "escalation-" + c.id() + "-L" + c.level();
+            User user = c.userId() == null ? null : users.get(c.userId());
+            if (user != null) {
+                Notification n = new Notification();
+                n.setUser(user);
+                n.setTitle("Complaint Escalated");
+                n.setMessage("Your complaint #" + c.id() + " has been escalated to " + level + " due to delayed response");
+                n.setType(Notification.NotificationType.COMPLAINT_ESCALATED);
+                notifications.add(n);
+                deliveryKeys.put(n, key);
+            }
+            Department dept = departmentDirectory.find(c.assignedDept());
+            if (dept != null) {
+                String subject = "Complaint Escalated - " + c.id();
+                String body = "URGENT: Complaint #" + c.id() + " has been escalated to " + level
+                    + " due to delayed response. Immediate action required.";
+                if (dept.getContactEmail() != null && !dept.getContactEmail().isEmpty()) {
+                    departmentAlerts.add(NotificationService.outboxRow(NotificationOutbox.Channel.EMAIL, dept.getContactEmail(),
+                        subject, body, key + "-dept-email"));
+                }
+                if (dept.getPhone() != null && !dept.getPhone().isEmpty()) {
+                    departmentAlerts.add(NotificationService.outboxRow(NotificationOutbox.Channel.SMS, dept.getPhone(),
+                        subject, subject + ": " + body, key + "-dept-sms"));
+                }
+            }
+        }
+        notificationService.createNotifications(notifications, deliveryKeys::get);
+        outboxService.enqueueAll(departmentAlerts);
+        escalated.addAll(moved);
+        return chunk.size();
+    }
+
+    private String[] chain(String hierarchy) {
+        return hierarchy == null ? null : chains.computeIfAbsent(hierarchy, h -> h.split(" > "));
+    }
+
+    private static String levelName(String[] chain, int level) {
+        return chain != null && level < chain.length ? chain[level] : "level " + level;
+    }
+
+    /** PostgreSQL: claim and move up a chunk in one statement; SKIP LOCKED lets a second sweeper take other rows. */
+    private List<Claimed> claimReturning(String where, MapSqlParameterSource params) {
+        return namedJdbcTemplate.query(
+            "UPDATE complaints SET escalated = true, escalation_level = escalation_level + 1, deadline = NULL, "
+                + "updated_at = :now WHERE id IN ("
+                + "SELECT id FROM complaints WHERE " + where + " "
+                + "ORDER BY deadline LIMIT :limit FOR UPDATE SKIP LOCKED) "
+                + "RETURNING " + CLAIMED_COLUMNS,
+            params, claimed(0));
+    }
+
+    /**
+     * Other databases (H2 in dev): lock the chunk, then update it row by row. A row read while
+     * another node held its lock may have been escalated since, so each update re-checks that it
+     * is still due and only the rows it changed count as claimed.
+     */
+    private List<Claimed> claimSelectThenUpdate(String where, MapSqlParameterSource params) {
+        List<Claimed> locked = namedJdbcTemplate.query(
+            "SELECT " + CLAIMED_COLUMNS + " FROM complaints WHERE " + where + " ORDER BY deadline LIMIT :limit FOR UPDATE",
+            params, claimed(1));
+        if (locked.isEmpty()) {
+            return locked;
+        }
+        Timestamp now = (Timestamp) params.getValue("now");
+        int[] updated = jdbcTemplate.batchUpdate(
+            "UPDATE complaints SET escalated = true, escalation_level = escalation_level + 1, deadline = NULL, updated_at = ? "
+                + "WHERE id = ? AND escalation_level = ? AND status = 'PENDING' AND deadline <= ?",
+            locked, locked.size(), (ps, c) -> {
+                ps.setTimestamp(1, now);
+                ps.setLong(2, c.id());
+                ps.setInt(3, c.level() - 1);
+                ps.setTimestamp(4, now);
+            })[0];
+        List<Claimed> chunk = new ArrayList<>(locked.size());
+        for (int i = 0; i < locked.size(); i++) {
+            if (updated[i] > 0) {
+                chunk.add(locked.get(i));
+            }
+        }
+        return chunk;
+    }
+
+    /** Maps a claimed row; {@code levelOffset} turns the level read before the update into the new one. */
+    private static RowMapper<Claimed> claimed(int levelOffset) {
+        return (rs, i) -> new Claimed(rs.getLong("id"), rs.getObject("user_id", Long.class), rs.getString("assigned_dept"),
+            rs.getString("urgency"), rs.getString("department_hierarchy"),
+            rs.getInt("escalation_level") + levelOffset, rs.getInt("max_escalation_level"));
+    }
+}
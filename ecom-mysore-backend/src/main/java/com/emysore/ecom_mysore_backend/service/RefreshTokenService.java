@@ -0,0 +1,96 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.RefreshToken;
+import com.emysore.ecom_mysore_backend.model.User;
+import com.emysore.ecom_mysore_backend.repository.RefreshTokenRepository;
+import com.emysore.ecom_mysore_backend.util.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Opaque, single-use refresh tokens. Login starts a family; each refresh revokes the presented
+ * token and issues its successor in the same family. A token presented after it was used means it
+ * was copied, so the whole family is revoked and that login must start over. Only the SHA-256 of
+ * a token is stored.
+ */
+@Service
+public class RefreshTokenService {
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    /** The user and the refresh token replacing the one presented. */
+    public record Rotation(User user, String refreshToken) {}
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Value("${jwt.refresh.ttl:P14D}")
+    private Duration ttl;
+
+    /** Starts a new family for {@code user} and returns its first token. */
+    public String issue(User user) {
+        return issue(user, UUID.randomUUID().toString());
+    }
+
+    @Transactional
+    public Optional<Rotation> rotate(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        RefreshToken current = refreshTokenRepository.findByTokenHash(Hashing.sha256Hex(token)).orElse(null);
+        if (current == null || !current.getExpiresAt().isAfter(now)) {
+            return Optional.empty();
+        }
+        // Conditional, so two requests racing with the same token cannot both succeed
+        if (current.getRevokedAt() != null || refreshTokenRepository.revoke(current.getId(), now) == 0) {
+            int revoked = refreshTokenRepository.revokeFamily(current.getFamily(), now);
+            logger.warn("Refresh token reused for user {}; revoked {} tokens of its family", current.getUser().getId(), revoked);
+            return Optional.empty();
+        }
+        return Optional.of(new Rotation(current.getUser(), issue(current.getUser(), current.getFamily())));
+    }
+
+    /** Ends the login {@code token} belongs to; unknown tokens are ignored. */
+    public void revoke(String token) {
+        if (token == null || token.isBlank()) {
+            return;
+        }
+        refreshTokenRepository.findByTokenHash(Hashing.sha256Hex(token))
+            .ifPresent(t -> refreshTokenRepository.revokeFamily(t.getFamily(), LocalDateTime.now()));
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh.cleanupInterval:PT1H}", initialDelayString = "${jwt.refresh.cleanupInterval:PT1H}")
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("Deleted {} expired refresh tokens", deleted);
+        }
+    }
+
+    private String issue(User user, String family) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        RefreshToken row = new RefreshToken();
+        row.setUser(user);
+        row.setFamily(family);
+        row.setTokenHash(Hashing.sha256Hex(token));
+        row.setExpiresAt(LocalDateTime.now().plus(ttl));
+        refreshTokenRepository.save(row);
+        return token;
+    }
+}
@@ -1,42 +1,109 @@
 package com.emysore.ecom_mysore_backend.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Sends SMS through {@link SmsGatewayClient}, which batches concurrent messages into bulk gateway
+ * requests. With {@code sms.gateway.enabled=false} messages are only logged.
+ */
 @Service
 public class SMSService {
     private static final Logger logger = LoggerFactory.getLogger(SMSService.class);
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Value("${sms.api.key:dummy-key}")
     private String apiKey;
 
     @Value("${sms.api.url:http://localhost:8081/sms}")
     private String apiUrl;
 
-    private final RestTemplate restTemplate;
+    @Value("${sms.gateway.enabled:false}")
+    private boolean gatewayEnabled;
+
+    @Value("${sms.gateway.maxBatchSize:100}")
+    private int maxBatchSize;
+
+    @Value("${sms.gateway.maxWaitMs:20}")
+    private long maxWaitMs;
+
+    // Gateway quota, messages per second
+    @Value("${sms.gateway.ratePerSecond:50}")
+    private double ratePerSecond;
+
+    @Value("${sms.gateway.queueCapacity:5000}")
+    private int queueCapacity;
+
+    @Value("${sms.gateway.maxInFlight:4}")
+    private int maxInFlight;
+
+    @Value("${sms.gateway.timeoutMs:5000}")
+    private long timeoutMs;
+
+    private SmsGatewayClient gatewayClient;
+
+    @PostConstruct
+    void init() {
+        if (!gatewayEnabled) {
+            logger.info("SMS gateway disabled; messages will only be logged");
+            return;
+        }
+        // JDK client keeps idle keep-alive connections pooled per host
+        HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(timeoutMs))
+            .build();
+        gatewayClient = new SmsGatewayClient(httpClient, objectMapper, apiUrl, apiKey, Duration.ofMillis(timeoutMs),
+            maxBatchSize, maxWaitMs, ratePerSecond, queueCapacity, maxInFlight, meterRegistry);
+        gatewayClient.start();
+    }
 
-    public SMSService() {
-        this.restTemplate = new RestTemplate();
+    @PreDestroy
+    void stopGatewayClient() {
+        if (gatewayClient != null) {
+            gatewayClient.shutdown();
+        }
     }
 
     public void sendSMS(String phoneNumber, String message) {
         try {
-            // This is a stub implementation. In production, integrate with actual SMS gateway
-            logger.info("Sending SMS to {} with message: {}", phoneNumber, message);
-            
-            // Simulate API call
-            SMSRequest request = new SMSRequest(phoneNumber, message);
-            // restTemplate.postForObject(apiUrl, request, SMSResponse.class);
-            
+            sendSMSAsync(phoneNumber, message, null).join();
             logger.info("SMS sent successfully to: {}", phoneNumber);
-        } catch (Exception e) {
-            logger.error("Failed to send SMS to: {}", phoneNumber, e);
+        } catch (CompletionException e) {
+            logger.error("Failed to send SMS to: {}", phoneNumber, e.getCause());
             // In production, you might want to handle this differently
-            throw new RuntimeException("Failed to send SMS", e);
+            throw new RuntimeException("Failed to send SMS", e.getCause());
+        }
+    }
+
+    /**
+     * Queues a message for the next bulk request; the future completes when the gateway accepts
+     * or rejects it. {@code deliveryKey} is sent as the message reference so the gateway can drop
+     * a retried duplicate.
+     */
+    public CompletableFuture<Void> sendSMSAsync(String phoneNumber, String message, String deliveryKey) {
+        if (gatewayClient == null) {
+            logger.info("SMS gateway disabled, not sending {} to {}: {}", deliveryKey, phoneNumber, message);
+            return CompletableFuture.completedFuture(null);
         }
+        return gatewayClient.submit(phoneNumber, message, deliveryKey);
     }
 
     public void sendOTP(String phoneNumber, String otp) {
@@ -56,19 +123,4 @@ public class SMSService {
                         " has been escalated due to delay. A senior officer will review it.";
         sendSMS(phoneNumber, message);
     }
-
-    // Inner class for SMS request payload
-    private static class SMSRequest {
-        private String to;
-        private String message;
-
-        public SMSRequest(String to, String message) {
-            this.to = to;
-            this.message = message;
-        }
-
-        // Getters
-        public String getTo() { return to; }
-        public String getMessage() { return message; }
-    }
-}
\ No newline at end of file
+}
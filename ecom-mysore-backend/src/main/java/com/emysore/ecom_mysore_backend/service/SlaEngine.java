@@ -0,0 +1,274 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fires complaint escalations at their SLA deadline. Deadlines come from {@link SlaPolicy} and are
+ * stored in {@code complaints.deadline}, one per escalation level; every PENDING complaint below
+ * the top of its hierarchy and due within {@code complaint.sla.horizon} has a timer in a
+ * {@link TimerWheel} that ticks every {@code complaint.sla.tick}. When a timer fires the complaint
+ * moves up one level and its next level's timer is set. At startup the wheel is rebuilt with one
+ * range query on the {@code (status, deadline)} index; {@link #refill()} extends the horizon as time
+ * passes and {@link #sweep()} escalates anything a timer missed (a failed chunk, rows written
+ * outside {@link ComplaintService}).
+ * <p>
+ * With several replicas, loading, refilling and sweeping cover only this node's
+ * {@link JobCoordinator.Partition}, and the wheel is rebuilt whenever the partition changes.
+ * Complaints created on this node are timed here whatever their partition, so they still fire on
+ * time; the owner's timer and this one race for a conditional claim and only one escalates.
+ */
+@Service
+public class SlaEngine {
+    private static final Logger logger = LoggerFactory.getLogger(SlaEngine.class);
+
+    private static final int BACKFILL_CHUNK = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SlaPolicy slaPolicy;
+
+    @Autowired
+    private OverdueEscalationService escalationService;
+
+    @Autowired
+    private JobCoordinator coordinator;
+
+    private final Duration tick;
+    private final Duration horizon;
+    private final TimerWheel wheel;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ScheduledExecutorService ticker;
+    // Deadlines before this are in the wheel; later ones are picked up by refill()
+    private volatile LocalDateTime loadedUntil;
+
+    public SlaEngine(@Value("${complaint.sla.tick:PT1S}") Duration tick,
+                     @Value("${complaint.sla.horizon:P7D}") Duration horizon,
+                     MeterRegistry meterRegistry) {
+        this.tick = tick;
+        this.wheel = new TimerWheel(tick.toMillis(), System.currentTimeMillis());
+        this.horizon = horizon.toMillis() < wheel.rangeMillis() ? horizon : Duration.ofMillis(wheel.rangeMillis() / 2);
+        this.loadedUntil = LocalDateTime.now();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sla-timer-wheel");
+            t.setDaemon(true);
+            return t;
+        });
+        meterRegistry.gauge("complaint.sla.timers", this, SlaEngine::timers);
+    }
+
+    /**
+     * Runs on joining the cluster at startup and whenever the set of live nodes changes. The event
+     * comes from the lease heartbeat, so the rebuild is handed to the wheel's own thread rather
+     * than holding up the next renewal.
+     */
+    @EventListener
+    public void onPartitionChanged(JobCoordinator.PartitionChanged event) {
+        ticker.execute(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                // The sweep still covers the partition from the deadline index
+                logger.error("SLA timer wheel rebuild for partition {} failed", event.partition(), e);
+            }
+        });
+    }
+
+    /**
+     * Replaces the wheel's timers with those of this node's partition due within the horizon,
+     * including overdue ones.
+     */
+    public void rebuild() {
+        LocalDateTime until = LocalDateTime.now().plus(horizon);
+        lock.lock();
+        try {
+            // Timers of the previous partition are another node's now
+            wheel.clear();
+            loadedUntil = until;
+        } finally {
+            lock.unlock();
+        }
+        backfillDeadlines();
+        int loaded = load("deadline < ?", Timestamp.valueOf(until));
+        logger.info("SLA timer wheel loaded {} timers of partition {} due before {}", loaded, coordinator.partition(), until);
+    }
+
+    @PostConstruct
+    void start() {
+        ticker.scheduleAtFixedRate(this::tick, tick.toMillis(), tick.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Sets the timer for a complaint once the current transaction commits, or cancels it when
+     * {@code deadline} is null (no longer PENDING, escalated by hand).
+     */
+    public void scheduleAfterCommit(Long complaintId, LocalDateTime deadline) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    schedule(complaintId, deadline);
+                }
+            });
+        } else {
+            schedule(complaintId, deadline);
+        }
+    }
+
+    void schedule(Long complaintId, LocalDateTime deadline) {
+        lock.lock();
+        try {
+            if (deadline == null) {
+                wheel.cancel(complaintId);
+            } else if (deadline.isBefore(loadedUntil)) {
+                wheel.schedule(complaintId, toMillis(deadline));
+            } else {
+                // Beyond the horizon: refill() loads it, so drop any earlier, nearer timer
+                wheel.cancel(complaintId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Moves the horizon forward, loading the timers that now fall within it. */
+    public void refill() {
+        LocalDateTime from = loadedUntil;
+        LocalDateTime until = LocalDateTime.now().plus(horizon);
+        // Publish the new horizon first: a complaint committed after the query schedules itself
+        loadedUntil = until;
+        int loaded = load("deadline >= ? AND deadline < ?", Timestamp.valueOf(from), Timestamp.valueOf(until));
+        logger.debug("SLA horizon moved to {}, {} timers loaded", until, loaded);
+    }
+
+    /** Fills in missing deadlines and escalates everything overdue; returns how many were escalated. */
+    public int sweep() {
+        backfillDeadlines();
+        List<OverdueEscalationService.Escalation> escalated = escalationService.escalateDue(coordinator.partition());
+        scheduleNextLevels(escalated);
+        return escalated.size();
+    }
+
+    int timers() {
+        lock.lock();
+        try {
+            return wheel.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void tick() {
+        List<Long> fired;
+        lock.lock();
+        try {
+            fired = wheel.advance(System.currentTimeMillis());
+        } finally {
+            lock.unlock();
+        }
+        if (fired.isEmpty()) {
+            return;
+        }
+        try {
+            scheduleNextLevels(escalationService.escalate(fired));
+        } catch (Exception e) {
+            // The timers are gone; the next sweep escalates these from the deadline index
+            logger.error("SLA escalation of {} complaints failed", fired.size(), e);
+        }
+    }
+
+    // Each chunk has committed by the time escalate returns, so the timers can be set directly
+    private void scheduleNextLevels(List<OverdueEscalationService.Escalation> escalated) {
+        for (OverdueEscalationService.Escalation e : escalated) {
+            if (e.nextDeadline() != null) {
+                schedule(e.complaintId(), e.nextDeadline());
+            }
+        }
+    }
+
+    private int load(String range, Object... args) {
+        int[] loaded = {0};
+        jdbcTemplate.query(
+            "SELECT id, deadline FROM complaints WHERE status = 'PENDING' AND " + range
+                + " AND escalation_level < max_escalation_level AND " + coordinator.partition().sql(),
+            rs -> {
+                schedule(rs.getLong("id"), rs.getTimestamp("deadline").toLocalDateTime());
+                loaded[0]++;
+            },
+            args);
+        return loaded[0];
+    }
+
+    /**
+     * Computes deadlines for pending complaints below the top level that have none: rows from
+     * before the SLA engine, or escalated before levels existed (counted from their last update).
+     */
+    private void backfillDeadlines() {
+        record Missing(long id, LocalDateTime deadline) {}
+        List<Missing> chunk;
+        do {
+            chunk = jdbcTemplate.query(
+                "SELECT id, created_at, updated_at, assigned_dept, urgency, escalation_level FROM complaints "
+                    + "WHERE status = 'PENDING' AND deadline IS NULL AND escalation_level < max_escalation_level "
+                    + "AND " + coordinator.partition().sql() + " ORDER BY id LIMIT ?",
+                (rs, i) -> {
+                    int level = rs.getInt("escalation_level");
+                    String urgency = rs.getString("urgency");
+                    if (level > 0) {
+                        return new Missing(rs.getLong("id"),
+                            slaPolicy.levelDeadline(rs.getTimestamp("updated_at").toLocalDateTime(), level, urgency));
+                    }
+                    Timestamp createdAt = rs.getTimestamp("created_at");
+                    return new Missing(rs.getLong("id"), slaPolicy.deadlineFor(
+                        createdAt == null ? null : createdAt.toLocalDateTime(), rs.getString("assigned_dept"), urgency));
+                },
+                BACKFILL_CHUNK);
+            if (chunk.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.batchUpdate("UPDATE complaints SET deadline = ? WHERE id = ? AND deadline IS NULL",
+                chunk, chunk.size(), (ps, m) -> {
+                    ps.setTimestamp(1, Timestamp.valueOf(m.deadline()));
+                    ps.setLong(2, m.id());
+                });
+            LocalDateTime now = LocalDateTime.now();
+            for (Missing m : chunk) {
+                // Overdue ones are left to the sweep that follows, not raced by the ticker
+                if (m.deadline().isAfter(now)) {
+                    schedule(m.id(), m.deadline());
+                }
+            }
+        } while (chunk.size() == BACKFILL_CHUNK);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,68 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.Complaint;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Complaint SLA: {@code deadline = created_at + (department SLA or complaint.sla.default) x
+ * urgency factor}. Department SLAs ({@code complaint.sla.departments}, ISO-8601 durations) and
+ * urgency factors ({@code complaint.sla.urgencyFactors}) are matched case-insensitively; an
+ * unknown urgency keeps the department SLA as is.
+ * <p>
+ * After each escalation the next level gets {@code complaint.sla.levels[level - 1]} (the last
+ * entry repeats for deeper levels), scaled by the same urgency factor and counted from the
+ * escalation.
+ */
+@Component
+public class SlaPolicy {
+
+    private final Duration defaultSla;
+    private final Map<String, Duration> departmentSla = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Map<String, Double> urgencyFactors = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final List<Duration> levelSla;
+
+    public SlaPolicy(@Value("${complaint.sla.default:P3D}") Duration defaultSla,
+                     @Value("#{${complaint.sla.departments:{:}}}") Map<String, String> departmentSla,
+                     @Value("#{${complaint.sla.urgencyFactors:{:}}}") Map<String, Double> urgencyFactors,
+                     @Value("${complaint.sla.levels:P2D}") List<Duration> levelSla) {
+        this.defaultSla = defaultSla;
+        this.levelSla = List.copyOf(levelSla);
+        departmentSla.forEach((dept, sla) -> this.departmentSla.put(dept, Duration.parse(sla)));
+        this.urgencyFactors.putAll(urgencyFactors);
+    }
+
+    public LocalDateTime deadlineFor(Complaint complaint) {
+        return deadlineFor(complaint.getCreatedAt(), complaint.getAssignedDept(), complaint.getUrgency());
+    }
+
+    public LocalDateTime deadlineFor(LocalDateTime createdAt, String department, String urgency) {
+        return (createdAt != null ? createdAt : LocalDateTime.now()).plus(slaFor(department, urgency));
+    }
+
+    /** Deadline for handling a complaint at {@code level} (1 and up), counted from {@code escalatedAt}. */
+    public LocalDateTime levelDeadline(LocalDateTime escalatedAt, int level, String urgency) {
+        return escalatedAt.plus(scaled(levelSla.get(Math.min(level, levelSla.size()) - 1), urgency));
+    }
+
+    /** A chain of n owners can be escalated n - 1 times; a complaint without one escalates once. */
+    public static int maxEscalationLevel(int chainLength) {
+        return Math.max(chainLength - 1, 1);
+    }
+
+    Duration slaFor(String department, String urgency) {
+        Duration sla = department == null ? defaultSla : departmentSla.getOrDefault(department.trim(), defaultSla);
+        return scaled(sla, urgency);
+    }
+
+    private Duration scaled(Duration sla, String urgency) {
+        Double factor = urgency == null ? null : urgencyFactors.get(urgency.trim());
+        return factor == null ? sla : Duration.ofMillis(Math.round(sla.toMillis() * factor));
+    }
+}
@@ -0,0 +1,233 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk SMS client on the JDK {@link HttpClient}. Messages are queued, grouped into bulk requests
+ * of up to {@code maxBatchSize} recipients (or whatever arrived within {@code maxWaitMillis}), held
+ * to the gateway quota with a token bucket and sent with {@code sendAsync}, so no thread waits on
+ * the gateway. At most {@code maxInFlight} requests are outstanding; keep-alive connections are
+ * pooled by the client.
+ * <p>
+ * Request: {@code POST {"messages": [{"to", "message", "reference"}]}} with a bearer API key;
+ * {@code reference} is the caller's idempotency key. Response: {@code {"results": [{"status",
+ * "error"}]}} in request order, where any status other than {@code ACCEPTED} fails that message.
+ */
+class SmsGatewayClient {
+    private static final Logger logger = LoggerFactory.getLogger(SmsGatewayClient.class);
+
+    private record Pending(String to, String message, String reference, CompletableFuture<Void> future, long enqueuedAt) {}
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final URI bulkUri;
+    private final String apiKey;
+    private final Duration requestTimeout;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final TokenBucket quota;
+    private final BlockingQueue<Pending> queue;
+    private final Semaphore inFlight;
+    private final Thread collector;
+    private volatile boolean running = true;
+
+    private final Counter accepted;
+    private final Counter rejected;
+    private final DistributionSummary batchSize;
+    private final Timer queueWait;
+    private final Timer requestLatency;
+
+    SmsGatewayClient(HttpClient httpClient, ObjectMapper objectMapper, String bulkUrl, String apiKey,
+                     Duration requestTimeout, int maxBatchSize, long maxWaitMillis, double ratePerSecond,
+                     int queueCapacity, int maxInFlight, MeterRegistry registry) {
+        // Zero would make the token bucket sleep for centuries, a negative rate spin
+        if (!(ratePerSecond > 0)) {
+            throw new IllegalArgumentException("sms.gateway.ratePerSecond must be positive, was " + ratePerSecond);
+        }
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.bulkUri = URI.create(bulkUrl);
+        this.apiKey = apiKey;
+        this.requestTimeout = requestTimeout;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        // A batch never needs more tokens than the bucket holds; one second of quota, at least one
+        int burst = Math.max((int) ratePerSecond, 1);
+        this.maxBatchSize = Math.min(maxBatchSize, burst);
+        this.quota = new TokenBucket(ratePerSecond, burst, System.nanoTime());
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.inFlight = new Semaphore(maxInFlight);
+        this.collector = new Thread(this::collectLoop, "sms-batch-collector");
+        this.collector.setDaemon(true);
+
+        this.accepted = Counter.builder("sms.gateway.accepted")
+            .description("Messages the SMS gateway accepted")
+            .register(registry);
+        this.rejected = Counter.builder("sms.gateway.rejected")
+            .description("Messages the SMS gateway rejected or that could not be sent")
+            .register(registry);
+        this.batchSize = DistributionSummary.builder("sms.gateway.batch.size")
+            .description("Recipients per bulk request")
+            .publishPercentiles(0.5, 0.95)
+            .register(registry);
+        this.queueWait = Timer.builder("sms.gateway.queue.wait")
+            .description("Time a message waited before its bulk request was sent")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(registry);
+        this.requestLatency = Timer.builder("sms.gateway.request")
+            .description("Round trip of one bulk request")
+            .register(registry);
+        registry.gauge("sms.gateway.queue.depth", queue, BlockingQueue::size);
+    }
+
+    void start() {
+        collector.start();
+    }
+
+    void shutdown() {
+        running = false;
+        collector.interrupt();
+        Pending p;
+        while ((p = queue.poll()) != null) {
+            p.future().completeExceptionally(new IllegalStateException("SMS client shut down"));
+        }
+    }
+
+    CompletableFuture<Void> submit(String to, String message, String reference) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (!queue.offer(new Pending(to, message, reference, future, System.nanoTime()))) {
+            future.completeExceptionally(new RejectedExecutionException("SMS queue full"));
+        }
+        return future;
+    }
+
+    private void collectLoop() {
+        while (running) {
+            try {
+                Pending first = queue.take();
+                List<Pending> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                long deadline = first.enqueuedAt() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                quota.acquire(batch.size());
+                inFlight.acquire();
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("SMS batch collector error", e);
+            }
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        long sentAt = System.nanoTime();
+        for (Pending p : batch) {
+            queueWait.record(sentAt - p.enqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+        batchSize.record(batch.size());
+
+        HttpRequest request;
+        try {
+            List<Map<String, Object>> messages = new ArrayList<>(batch.size());
+            for (Pending p : batch) {
+                Map<String, Object> item = new HashMap<>();
+                item.put("to", p.to());
+                item.put("message", p.message());
+                item.put("reference", p.reference());
+                messages.add(item);
+            }
+            request = HttpRequest.newBuilder(bulkUri)
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + apiKey)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(Map.of("messages", messages))))
+                .build();
+        } catch (Exception e) {
+            inFlight.release();
+            fail(batch, e);
+            return;
+        }
+
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+            .whenComplete((response, error) -> {
+                inFlight.release();
+                requestLatency.record(System.nanoTime() - sentAt, TimeUnit.NANOSECONDS);
+                if (error != null) {
+                    logger.warn("SMS bulk request for {} recipients failed: {}", batch.size(), error.toString());
+                    fail(batch, error);
+                } else {
+                    complete(batch, response);
+                }
+            });
+    }
+
+    private void complete(List<Pending> batch, HttpResponse<byte[]> response) {
+        try {
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException("SMS gateway returned HTTP " + response.statusCode());
+            }
+            JsonNode results = objectMapper.readTree(response.body()).path("results");
+            if (!results.isArray() || results.size() != batch.size()) {
+                throw new IllegalStateException("SMS gateway response does not match request size " + batch.size());
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                JsonNode result = results.get(i);
+                if ("ACCEPTED".equalsIgnoreCase(result.path("status").asText())) {
+                    accepted.increment();
+                    batch.get(i).future().complete(null);
+                } else {
+                    rejected.increment();
+                    batch.get(i).future().completeExceptionally(new IllegalStateException(
+                        "SMS rejected: " + result.path("error").asText(result.path("status").asText())));
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("SMS bulk request for {} recipients failed: {}", batch.size(), e.getMessage());
+            fail(batch, e);
+        }
+    }
+
+    private void fail(List<Pending> batch, Throwable error) {
+        for (Pending p : batch) {
+            if (!p.future().isDone()) {
+                rejected.increment();
+                p.future().completeExceptionally(error);
+            }
+        }
+    }
+}
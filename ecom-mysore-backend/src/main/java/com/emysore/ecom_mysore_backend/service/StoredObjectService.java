@@ -0,0 +1,216 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.StoredObject;
+import com.emysore.ecom_mysore_backend.repository.StoredObjectRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Content-addressed storage for complaint images. Each distinct SHA-256 is stored once, under
+ * {@code objects/<first two hex digits>/<sha256>}, and counts the complaints pointing at it.
+ * <p>
+ * An upload goes through {@link #prepare} before the complaint's transaction opens. The upload is
+ * streamed once to a staging key and hashed on the way. New content is then moved under its hash
+ * and its row committed with no references. A duplicate's staged copy is dropped. Inside the
+ * complaint's transaction {@link #acquire} only takes the reference. If that transaction rolls
+ * back, the object is left unreferenced, and the garbage sweep deletes it after
+ * {@code storage.objects.gcGrace}. Preparing restarts that grace period, so the sweep cannot take
+ * an object between the two steps.
+ * <p>
+ * The sweep marks an object {@link StoredObject#DELETING}, deletes its files and only then its
+ * row. Uploads treat a marked object as absent, and one that lands while the files are being
+ * deleted waits for the row to go before moving its file into place.
+ */
+@Service
+public class StoredObjectService {
+    private static final Logger logger = LoggerFactory.getLogger(StoredObjectService.class);
+
+    private static final Map<String, String> EXTENSIONS = Map.of(
+        "image/jpeg", ".jpg",
+        "image/png", ".png",
+        "image/gif", ".gif",
+        "image/webp", ".webp");
+
+    // Uploads land here while they are hashed, before their content address is known
+    private static final String STAGING_PREFIX = "staging/";
+
+    /** What a complaint records about its image; the rendition URLs are null until they exist. */
+    public record ImageRef(String sha256, String url, String thumbnailUrl, String webUrl) {}
+
+    @Autowired
+    private StoredObjectRepository storedObjectRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private ImageRenditionService renditionService;
+
+    @Value("${storage.objects.gcGrace:PT24H}")
+    private Duration gcGrace;
+
+    // How long an upload waits for the sweep to finish deleting an earlier copy of the same content
+    @Value("${storage.objects.deletingWait:PT5S}")
+    private Duration deletingWait;
+
+    private final TransactionTemplate newTransaction;
+
+    private final Counter stored;
+    private final Counter deduplicated;
+
+    public StoredObjectService(PlatformTransactionManager transactionManager, MeterRegistry registry) {
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.stored = Counter.builder("storage.uploads").tag("result", "stored").register(registry);
+        this.deduplicated = Counter.builder("storage.uploads").tag("result", "deduplicated").register(registry);
+    }
+
+    /**
+     * Stores {@code file} unless its content is already stored, and returns its SHA-256 for
+     * {@link #acquire}. Runs its own short transactions, so call it before the complaint's
+     * transaction opens; holding that one meanwhile would take a second pooled connection.
+     */
+    public String prepare(MultipartFile file) throws IOException {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Images must be prepared before the complaint's transaction opens");
+        }
+        String contentType = file.getContentType();
+        FileStorageService.StoredFile staged;
+        try (InputStream in = file.getInputStream()) {
+            staged = fileStorageService.store(STAGING_PREFIX + UUID.randomUUID(), in, file.getSize(), contentType);
+        }
+        String sha256 = staged.sha256();
+        try {
+            if (storedObjectRepository.touch(sha256, LocalDateTime.now()) == 1) {
+                deduplicated.increment();
+            } else {
+                // New, or being garbage-collected
+                register(sha256, staged, contentType);
+                stored.increment();
+            }
+        } finally {
+            // Gone already once moved into place; a missing key is ignored
+            fileStorageService.delete(staged.key());
+        }
+        return sha256;
+    }
+
+    /**
+     * Takes a reference to the object {@link #prepare} returned, in the current transaction.
+     * Renditions are queued once that transaction commits.
+     */
+    public ImageRef acquire(String sha256) {
+        if (storedObjectRepository.acquire(sha256, LocalDateTime.now()) == 0) {
+            throw new IllegalStateException("Stored object " + sha256 + " was collected before it was attached");
+        }
+        StoredObject object = storedObjectRepository.findById(sha256).orElseThrow();
+
+        String url = fileStorageService.urlFor(object.getStorageKey());
+        if (StoredObject.RENDITIONS_READY.equals(object.getRenditionStatus())) {
+            return new ImageRef(sha256, url,
+                fileStorageService.urlFor(ImageRenditionService.renditionKey(sha256, ImageRenditionService.THUMBNAIL)),
+                fileStorageService.urlFor(ImageRenditionService.renditionKey(sha256, ImageRenditionService.WEB)));
+        }
+        if (StoredObject.RENDITIONS_PENDING.equals(object.getRenditionStatus())) {
+            // Also when another upload queued it: if that finishes before this complaint commits,
+            // the task only attaches the existing renditions to this complaint
+            renditionService.enqueueAfterCommit(sha256);
+        }
+        return new ImageRef(sha256, url, null, null);
+    }
+
+    /** Drops one reference, e.g. when a complaint's image is removed. */
+    public void release(String sha256) {
+        if (sha256 != null) {
+            storedObjectRepository.release(sha256, LocalDateTime.now());
+        }
+    }
+
+    private void register(String sha256, FileStorageService.StoredFile staged, String contentType) throws IOException {
+        String key = "objects/" + sha256.substring(0, 2) + "/" + sha256 + EXTENSIONS.getOrDefault(contentType, "");
+        // The sweep would delete the file once moved into place; its row goes only after the files
+        awaitNotDeleting(sha256, System.nanoTime() + deletingWait.toNanos());
+        fileStorageService.move(staged.key(), key);
+
+        // Read back in the same transaction, in case a concurrent upload of the same bytes won the insert
+        StoredObject object = newTransaction.execute(status -> {
+            storedObjectRepository.insertIfAbsent(sha256, key, contentType, staged.size(), LocalDateTime.now());
+            return storedObjectRepository.findById(sha256).orElseThrow();
+        });
+        if (StoredObject.DELETING.equals(object.getRenditionStatus())) {
+            // Only with a gcGrace shorter than this upload: the sweep took the row it just inserted
+            throw new IOException("Stored object " + sha256 + " was collected while being stored");
+        }
+        if (!object.getStorageKey().equals(key)) {
+            // That upload was sent with another content type
+            fileStorageService.delete(key);
+        }
+    }
+
+    private void awaitNotDeleting(String sha256, long deadline) throws IOException {
+        while (true) {
+            StoredObject object = storedObjectRepository.findById(sha256).orElse(null);
+            if (object == null || !StoredObject.DELETING.equals(object.getRenditionStatus())) {
+                return;
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IOException("Stored object " + sha256 + " is still being deleted");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for stored object " + sha256 + " to be deleted");
+            }
+        }
+    }
+
+    /** Deletes objects no complaint has pointed at for {@code storage.objects.gcGrace}. */
+    @Scheduled(fixedDelayString = "${storage.objects.gcInterval:PT1H}", initialDelayString = "${storage.objects.gcInterval:PT1H}")
+    public void collectGarbage() {
+        LocalDateTime before = LocalDateTime.now().minus(gcGrace);
+        List<StoredObject> candidates = storedObjectRepository.findUnreferencedBefore(before, PageRequest.of(0, 100));
+        int deleted = 0;
+        for (StoredObject object : candidates) {
+            // Conditional, so an upload preparing or acquiring the object meanwhile keeps it
+            if (storedObjectRepository.markDeletingIfUnreferenced(object.getSha256(), before) == 0) {
+                continue;
+            }
+            try {
+                fileStorageService.delete(object.getStorageKey());
+                fileStorageService.delete(ImageRenditionService.renditionKey(object.getSha256(), ImageRenditionService.THUMBNAIL));
+                fileStorageService.delete(ImageRenditionService.renditionKey(object.getSha256(), ImageRenditionService.WEB));
+            } catch (IOException | RuntimeException e) {
+                // Left DELETING; the next sweep tries again
+                logger.warn("Could not delete files of stored object {}: {}", object.getSha256(), e.getMessage());
+                continue;
+            }
+            storedObjectRepository.deleteMarked(object.getSha256());
+            deleted++;
+        }
+        if (deleted > 0) {
+            logger.info("Deleted {} unreferenced stored objects", deleted);
+        }
+    }
+}
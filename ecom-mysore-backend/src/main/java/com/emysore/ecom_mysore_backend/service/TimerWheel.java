@@ -0,0 +1,250 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel keyed by complaint id. Four levels of 64 slots: level 0 holds timers
+ * due within 64 ticks, level 1 within 64², and so on; when a lower level wraps, the matching
+ * higher-level slot is cascaded down. Scheduling is O(1) and advancing costs one slot per tick
+ * plus each timer's cascades, however many timers are waiting.
+ * <p>
+ * Timers are stored as (id, tick) pairs in primitive arrays and the live tick per id in an
+ * open-addressing map, so a million timers cost a few tens of megabytes and no per-timer objects.
+ * Rescheduling an id leaves its old entry in place and marks it stale, so cancel is O(1) too.
+ * Not thread-safe; the caller serialises access.
+ */
+class TimerWheel {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    // levels * SLOTS buckets, null while empty
+    private final Pairs[] buckets = new Pairs[LEVELS * SLOTS];
+    private final Pairs due = new Pairs();
+    // Id -> tick of its live timer; entries whose tick does not match are stale
+    private final TickMap scheduled = new TickMap();
+    private long currentTick;
+
+    TimerWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /** How far ahead a timer can be set. */
+    long rangeMillis() {
+        return tickMillis << (SLOT_BITS * LEVELS);
+    }
+
+    /**
+     * Sets (or moves) the timer for {@code id}. Deadlines round up to the next tick, so a timer
+     * never fires early. Returns false, leaving any earlier timer for the id cancelled, when the
+     * deadline is beyond {@link #rangeMillis()}.
+     */
+    boolean schedule(long id, long deadlineMillis) {
+        long tick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        if (tick - currentTick >= 1L << (SLOT_BITS * LEVELS)) {
+            scheduled.remove(id);
+            return false;
+        }
+        scheduled.put(id, tick);
+        place(id, tick);
+        return true;
+    }
+
+    void cancel(long id) {
+        scheduled.remove(id);
+    }
+
+    int size() {
+        return scheduled.size();
+    }
+
+    /** Drops every timer. */
+    void clear() {
+        Arrays.fill(buckets, null);
+        due.clear();
+        scheduled.clear();
+    }
+
+    /** Moves the wheel to {@code nowMillis} and returns the ids whose deadline has been reached. */
+    List<Long> advance(long nowMillis) {
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            currentTick++;
+            // Highest level first, so timers cascade through every level they pass in this tick
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    Pairs cascaded = take(level, currentTick);
+                    for (int i = 0; cascaded != null && i < cascaded.size; i++) {
+                        place(cascaded.ids[i], cascaded.ticks[i]);
+                    }
+                }
+            }
+            Pairs expired = take(0, currentTick);
+            for (int i = 0; expired != null && i < expired.size; i++) {
+                due.add(expired.ids[i], expired.ticks[i]);
+            }
+        }
+
+        List<Long> fired = new ArrayList<>();
+        for (int i = 0; i < due.size; i++) {
+            long id = due.ids[i];
+            if (scheduled.get(id) == due.ticks[i]) {
+                scheduled.remove(id);
+                fired.add(id);
+            }
+        }
+        due.clear();
+        return fired;
+    }
+
+    private void place(long id, long tick) {
+        long delta = tick - currentTick;
+        if (delta <= 0) {
+            due.add(id, tick);
+            return;
+        }
+        int level = 0;
+        while (delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int bucket = level * SLOTS + slotIndex(tick, level);
+        if (buckets[bucket] == null) {
+            buckets[bucket] = new Pairs();
+        }
+        buckets[bucket].add(id, tick);
+    }
+
+    // Detaches the bucket, so its memory goes once it has been processed
+    private Pairs take(int level, long tick) {
+        int bucket = level * SLOTS + slotIndex(tick, level);
+        Pairs pairs = buckets[bucket];
+        buckets[bucket] = null;
+        return pairs;
+    }
+
+    private static int slotIndex(long tick, int level) {
+        return (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+    }
+
+    /** Growable parallel arrays of (id, tick). */
+    private static final class Pairs {
+        long[] ids = new long[8];
+        long[] ticks = new long[8];
+        int size;
+
+        void add(long id, long tick) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                ticks = Arrays.copyOf(ticks, size * 2);
+            }
+            ids[size] = id;
+            ticks[size] = tick;
+            size++;
+        }
+
+        void clear() {
+            if (ids.length > 1024) {
+                ids = new long[8];
+                ticks = new long[8];
+            }
+            size = 0;
+        }
+    }
+
+    /** Open-addressing long to long map with linear probing and backward-shift deletion. */
+    private static final class TickMap {
+        static final long ABSENT = Long.MIN_VALUE;
+
+        private long[] keys = newKeys(16);
+        private long[] values = new long[16];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            keys = newKeys(16);
+            values = new long[16];
+            size = 0;
+        }
+
+        long get(long key) {
+            int mask = keys.length - 1;
+            for (int i = index(key, mask); ; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+                if (keys[i] == ABSENT) {
+                    return ABSENT;
+                }
+            }
+        }
+
+        void put(long key, long value) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int i = index(key, mask);
+            while (keys[i] != ABSENT && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == ABSENT) {
+                keys[i] = key;
+                size++;
+            }
+            values[i] = value;
+        }
+
+        void remove(long key) {
+            int mask = keys.length - 1;
+            int gap = index(key, mask);
+            while (keys[gap] != key) {
+                if (keys[gap] == ABSENT) {
+                    return;
+                }
+                gap = (gap + 1) & mask;
+            }
+            size--;
+            // Pull later entries of the probe run back into the gap so lookups never stop early
+            for (int j = (gap + 1) & mask; keys[j] != ABSENT; j = (j + 1) & mask) {
+                int home = index(keys[j], mask);
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    keys[gap] = keys[j];
+                    values[gap] = values[j];
+                    gap = j;
+                }
+            }
+            keys[gap] = ABSENT;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = newKeys(capacity);
+            values = new long[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != ABSENT) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static long[] newKeys(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, ABSENT);
+            return keys;
+        }
+
+        private static int index(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
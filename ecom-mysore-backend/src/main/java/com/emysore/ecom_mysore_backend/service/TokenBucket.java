@@ -0,0 +1,51 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket that refills continuously at {@code ratePerSecond} up to {@code burst} tokens.
+ * Not thread-safe; each owner keeps it on a single thread. Times are {@link System#nanoTime()}.
+ */
+final class TokenBucket {
+    private final double ratePerNano;
+    private final int burst;
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double ratePerSecond, int burst, long now) {
+        this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.tokens = burst;
+        this.refilledAt = now;
+    }
+
+    int burst() {
+        return burst;
+    }
+
+    /** Takes up to {@code wanted} whole tokens and returns how many were taken. */
+    int take(int wanted, long now) {
+        refill(now);
+        int granted = (int) Math.min(wanted, Math.floor(tokens));
+        tokens -= granted;
+        return granted;
+    }
+
+    /** Waits until {@code count} tokens (at most {@code burst}) are available, then takes them. */
+    void acquire(int count) throws InterruptedException {
+        while (true) {
+            long now = System.nanoTime();
+            refill(now);
+            if (tokens >= count) {
+                tokens -= count;
+                return;
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max((long) Math.ceil((count - tokens) / ratePerNano), 1));
+        }
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - refilledAt) * ratePerNano);
+        refilledAt = now;
+    }
+}
@@ -3,48 +3,117 @@ package com.emysore.ecom_mysore_backend.service;
 import com.emysore.ecom_mysore_backend.model.User;
 import com.emysore.ecom_mysore_backend.model.Role;
 import com.emysore.ecom_mysore_backend.repository.UserRepository;
+import com.emysore.ecom_mysore_backend.security.PasswordHashingSaturatedException;
+import com.emysore.ecom_mysore_backend.security.PrincipalCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class UserService {
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
     @Autowired
     private UserRepository userRepository;
 
-    private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private PasswordEncoder encoder;
+
+    // Hashing is deliberately slow; it runs on its own bounded pool, never on request threads
+    @Autowired
+    @Qualifier("passwordHashExecutor")
+    private ThreadPoolTaskExecutor passwordHashExecutor;
+
+    // Database work that follows a hash check runs here, keeping the hashing pool on CPU work
+    @Autowired
+    @Qualifier("loginExecutor")
+    private ThreadPoolTaskExecutor loginExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Outcome of the hash check; upgraded is the new hash when the stored one is outdated
+    private record Verification(boolean matches, String upgraded) {}
 
     // (Tokens are now JWTs; we no longer store session tokens in-memory)
 
     public User register(String username, String rawPassword) {
         User u = new User();
         u.setUsername(username);
-        u.setPassword(encoder.encode(rawPassword));
+        u.setPassword(hash(() -> encoder.encode(rawPassword)).join());
         return userRepository.save(u);
     }
 
     public User registerAdmin(String username, String rawPassword) {
         User u = new User();
         u.setUsername(username);
-        u.setPassword(encoder.encode(rawPassword));
+        u.setPassword(hash(() -> encoder.encode(rawPassword)).join());
         u.setRole(Role.ADMIN);
         return userRepository.save(u);
     }
 
+    /** Changes the role; tokens already issued pick it up on their next request. */
+    public Optional<User> changeRole(String username, Role role) {
+        return userRepository.findByUsername(username).map(u -> {
+            u.setRole(role);
+            User saved = userRepository.save(u);
+            principalCache.invalidate(username);
+            return saved;
+        });
+    }
+
     public Optional<User> findByUsername(String username) {
         return userRepository.findByUsername(username);
     }
 
-    public Optional<User> authenticate(String username, String rawPassword) {
+    /**
+     * Checks the password on the hashing pool. A hash made with an older scheme or a lower cost
+     * than configured is replaced while the plain password is at hand; that UPDATE runs on the
+     * login pool, where the returned future completes. Throws
+     * {@link PasswordHashingSaturatedException} straight away when the hashing pool is full.
+     */
+    public CompletableFuture<Optional<User>> authenticate(String username, String rawPassword) {
         Optional<User> maybe = userRepository.findByUsername(username);
-        if (maybe.isEmpty()) return Optional.empty();
+        if (maybe.isEmpty()) return CompletableFuture.completedFuture(Optional.empty());
         User u = maybe.get();
-        if (encoder.matches(rawPassword, u.getPassword())) {
+        String stored = u.getPassword();
+        return hash(() -> {
+            if (!encoder.matches(rawPassword, stored)) {
+                return new Verification(false, null);
+            }
+            return new Verification(true, encoder.upgradeEncoding(stored) ? encoder.encode(rawPassword) : null);
+        }).thenApplyAsync(verification -> {
+            if (!verification.matches()) {
+                return Optional.<User>empty();
+            }
+            String upgraded = verification.upgraded();
+            if (upgraded != null && userRepository.rehashPassword(u.getId(), stored, upgraded) == 1) {
+                u.setPassword(upgraded);
+                logger.debug("Rehashed password of user {}", u.getId());
+            }
             return Optional.of(u);
+        }, loginExecutor);
+    }
+
+    private <T> CompletableFuture<T> hash(Callable<T> task) {
+        try {
+            return passwordHashExecutor.submitCompletable(task);
+        } catch (TaskRejectedException e) {
+            meterRegistry.counter("security.password.rejected").increment();
+            throw new PasswordHashingSaturatedException();
         }
-        return Optional.empty();
     }
 }
@@ -0,0 +1,104 @@
+package com.emysore.ecom_mysore_backend.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe LRU map bounded by {@code maxEntries} whose entries carry their own expiry, read
+ * against {@code clock} (any monotonic unit; comparisons tolerate wrap-around). Expired entries
+ * are dropped when read; when a put overflows the bound, expired entries go first and then the
+ * least recently used ones. {@code onEviction} runs once per dropped entry, under the lock.
+ */
+public final class ExpiringLruCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) {}
+
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final Runnable onEviction;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public ExpiringLruCache(int maxEntries, LongSupplier clock, Runnable onEviction) {
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        this.onEviction = onEviction;
+    }
+
+    /** The live value for {@code key}, marking it most recently used, or null. */
+    public V get(K key) {
+        long now = clock.getAsLong();
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt() - now > 0) {
+                return entry.value();
+            }
+            entries.remove(key);
+            onEviction.run();
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Stores {@code value} until {@code expiresAt} on this cache's clock. */
+    public void put(K key, V value, long expiresAt) {
+        long now = clock.getAsLong();
+        lock.lock();
+        try {
+            entries.put(key, new Entry<>(value, expiresAt));
+            if (entries.size() > maxEntries) {
+                evictOverflow(now);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void removeIf(Predicate<? super V> filter) {
+        lock.lock();
+        try {
+            entries.values().removeIf(e -> filter.test(e.value()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Drop expired entries first, then least recently used ones until back under the bound
+    private void evictOverflow(long now) {
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (it.hasNext() && entries.size() > maxEntries) {
+            if (it.next().expiresAt() - now <= 0) {
+                it.remove();
+                onEviction.run();
+            }
+        }
+        it = entries.values().iterator();
+        while (it.hasNext() && entries.size() > maxEntries) {
+            it.next();
+            it.remove();
+            onEviction.run();
+        }
+    }
+}
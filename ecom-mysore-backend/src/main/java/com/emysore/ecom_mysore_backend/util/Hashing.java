@@ -0,0 +1,36 @@
+package com.emysore.ecom_mysore_backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/** SHA-256 helpers for cache keys, stored token hashes and content addresses. */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /** A fresh SHA-256 digest; every JVM is required to provide one. */
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Lowercase hex SHA-256 of {@code text} as UTF-8. */
+    public static String sha256Hex(String text) {
+        return hex(sha256().digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /** Completes {@code digest} and returns the result as lowercase hex. */
+    public static String hex(MessageDigest digest) {
+        return hex(digest.digest());
+    }
+
+    private static String hex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+}
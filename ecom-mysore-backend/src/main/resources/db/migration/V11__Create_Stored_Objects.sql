@@ -0,0 +1,24 @@
+-- Content-addressed uploads (StoredObjectService): one row and one stored file per distinct
+-- SHA-256, however many complaints attach the same photo. ref_count is the number of complaints
+-- pointing at the object; objects left at 0 are deleted by the garbage sweep after a grace period.
+-- rendition_status tracks the thumbnail and web-size copies made by the rendition worker pool.
+CREATE TABLE IF NOT EXISTS stored_objects (
+    sha256 VARCHAR(64) PRIMARY KEY,
+    storage_key VARCHAR(255) NOT NULL,
+    content_type VARCHAR(100),
+    size_bytes BIGINT NOT NULL,
+    ref_count INTEGER NOT NULL DEFAULT 0,
+    rendition_status VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_stored_objects_rendition_status_updated_at ON stored_objects(rendition_status, updated_at);
+CREATE INDEX IF NOT EXISTS idx_stored_objects_ref_count_updated_at ON stored_objects(ref_count, updated_at);
+
+-- Which object a complaint's image is, and the URLs of its renditions once they exist
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS image_sha256 VARCHAR(64);
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS image_thumbnail_url VARCHAR(255);
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS image_web_url VARCHAR(255);
+
+CREATE INDEX IF NOT EXISTS idx_complaints_image_sha256 ON complaints(image_sha256);
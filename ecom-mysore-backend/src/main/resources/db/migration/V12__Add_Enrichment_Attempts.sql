@@ -0,0 +1,14 @@
+-- Retry bookkeeping for ML enrichment. The sweep picks complaints whose next attempt is due,
+-- oldest due first, so one that keeps failing backs off instead of holding its slot; after
+-- ml.enrichment.maxAttempts failures the local fallback routes it (FALLBACK_ENRICHED) and the
+-- sweep keeps asking the ML service until it answers.
+
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS enrichment_attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS enrichment_next_attempt_at TIMESTAMP;
+
+UPDATE complaints SET enrichment_next_attempt_at = updated_at
+WHERE enrichment_status = 'PENDING_ENRICHMENT' AND enrichment_next_attempt_at IS NULL;
+
+DROP INDEX IF EXISTS idx_complaints_enrichment_status;
+CREATE INDEX IF NOT EXISTS idx_complaints_enrichment_status_next_attempt
+    ON complaints(enrichment_status, enrichment_next_attempt_at);
@@ -0,0 +1,8 @@
+-- Track asynchronous ML enrichment so complaints can be saved before the ML service answers
+
+ALTER TABLE complaints
+ADD COLUMN IF NOT EXISTS enrichment_status VARCHAR(32);
+
+CREATE INDEX IF NOT EXISTS idx_complaints_enrichment_status ON complaints(enrichment_status);
+
+COMMENT ON COLUMN complaints.enrichment_status IS 'PENDING_ENRICHMENT until the ML worker pool has applied category/urgency/department, then ENRICHED';
@@ -0,0 +1,10 @@
+-- Composite indexes for the filtered complaint list (GET /api/complaints).
+-- Equality filters come first and created_at last, so a filtered page sorted by created_at
+-- is read in index order instead of sorting the whole match set.
+
+CREATE INDEX IF NOT EXISTS idx_complaints_status_escalated_created_at ON complaints(status, escalated, created_at);
+CREATE INDEX IF NOT EXISTS idx_complaints_category_created_at ON complaints(category, created_at);
+CREATE INDEX IF NOT EXISTS idx_complaints_escalated_created_at ON complaints(escalated, created_at);
+
+-- Leading column of idx_complaints_status_escalated_created_at
+DROP INDEX IF EXISTS idx_complaints_status;
@@ -0,0 +1,5 @@
+-- SLA deadlines: the timer wheel is rebuilt at startup and refilled hourly with range queries on
+-- deadline over PENDING, not yet escalated complaints, and the backstop sweep claims due rows the
+-- same way. Existing rows get their deadline from the application (SlaPolicy) on first start.
+
+CREATE INDEX IF NOT EXISTS idx_complaints_status_escalated_deadline ON complaints(status, escalated, deadline);
@@ -0,0 +1,20 @@
+-- Multi-level escalation along department_hierarchy (e.g. AE > JE > EE > Commissioner).
+-- escalation_level 0 is the first entry of the chain; each missed SLA moves one level up until
+-- max_escalation_level (chain length - 1, at least 1). deadline is the current level's SLA and is
+-- NULL once the top level is reached.
+
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS escalation_level INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS max_escalation_level INTEGER NOT NULL DEFAULT 1;
+
+-- Levels = number of ' > ' separators
+UPDATE complaints
+SET max_escalation_level = GREATEST((LENGTH(department_hierarchy) - LENGTH(REPLACE(department_hierarchy, ' > ', ''))) / 3, 1)
+WHERE department_hierarchy IS NOT NULL;
+
+-- Complaints escalated before levels existed are at level 1; the application computes their
+-- next-level deadline on start
+UPDATE complaints SET escalation_level = 1, deadline = NULL WHERE escalated = true;
+
+-- Active SLA timers are PENDING rows with a deadline; escalated no longer bounds the range
+DROP INDEX IF EXISTS idx_complaints_status_escalated_deadline;
+CREATE INDEX IF NOT EXISTS idx_complaints_status_deadline ON complaints(status, deadline);
@@ -0,0 +1,8 @@
+-- Leases for coordinating scheduled jobs across replicas (JobCoordinator). Each live node renews
+-- node:<id> every heartbeat; rows past expires_at belong to nodes that died and are removed.
+
+CREATE TABLE IF NOT EXISTS scheduler_leases (
+    name VARCHAR(200) PRIMARY KEY,
+    owner VARCHAR(200) NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,188 @@
+package com.emysore.ecom_mysore_backend.config;
+
+import com.emysore.ecom_mysore_backend.EcomMysoreBackendApplication;
+import com.emysore.ecom_mysore_backend.model.User;
+import com.emysore.ecom_mysore_backend.security.JwtUtil;
+import com.emysore.ecom_mysore_backend.service.UserService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the same complaint-filing load against the application with platform threads and with
+ * {@code spring.threads.virtual.enabled}, and reports throughput, latency, pinned virtual threads
+ * and connection-pool waits for each. Opt-in because it saturates the machine for a while:
+ * <pre>
+ *   LOAD_BENCHMARK=1 ./mvnw test -Dtest=VirtualThreadLoadTest
+ * </pre>
+ * LOAD_CLIENTS (default 200) and LOAD_SECONDS (default 10) size the run.
+ */
+@EnabledIfEnvironmentVariable(named = "LOAD_BENCHMARK", matches = ".+")
+class VirtualThreadLoadTest {
+	private static final Logger logger = LoggerFactory.getLogger(VirtualThreadLoadTest.class);
+
+	private static final String BOUNDARY = "load-test-boundary";
+
+	private final int clients = Integer.parseInt(System.getenv().getOrDefault("LOAD_CLIENTS", "200"));
+	private final long seconds = Long.parseLong(System.getenv().getOrDefault("LOAD_SECONDS", "10"));
+
+	private record Result(long requests, long errors, double[] latencyNanos, double seconds,
+						  double pinned, double maxPendingConnections) {}
+
+	@Test
+	void platformVersusVirtualThreads() throws Exception {
+		Result platform = run(false);
+		Result virtual = run(true);
+
+		report("platform", platform);
+		report("virtual", virtual);
+		assertTrue(platform.requests() > 0 && virtual.requests() > 0);
+	}
+
+	private Result run(boolean virtualThreads) throws Exception {
+		String mode = virtualThreads ? "virtual" : "platform";
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(EcomMysoreBackendApplication.class)
+				.profiles("dev")
+				.run(
+						"--server.port=0",
+						"--spring.datasource.url=jdbc:h2:mem:load-" + mode + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+						"--spring.jpa.show-sql=false",
+						"--spring.threads.virtual.enabled=" + virtualThreads,
+						// Enrichment would otherwise wait on an ML service that is not running
+						"--ml.classifier.mode=local")) {
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			User citizen = context.getBean(UserService.class).register("load-citizen", "s3cret");
+			String token = context.getBean(JwtUtil.class).generateToken(citizen);
+			MeterRegistry registry = context.getBean(MeterRegistry.class);
+
+			HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+					.executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+			URI uri = URI.create("http://localhost:" + port + "/api/complaints");
+			// Warm up the JIT and the connection pools before measuring
+			drive(http, uri, token, Math.min(clients, 16), System.nanoTime() + 3_000_000_000L, null);
+
+			double pinnedBefore = pinned(registry);
+			double[] maxPending = {0};
+			long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+			Thread sampler = Thread.ofPlatform().daemon().start(() -> {
+				while (System.nanoTime() < deadline) {
+					Gauge pending = registry.find("hikaricp.connections.pending").gauge();
+					if (pending != null) {
+						maxPending[0] = Math.max(maxPending[0], pending.value());
+					}
+					try {
+						Thread.sleep(50);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			});
+			long start = System.nanoTime();
+			List<Long> latencies = new ArrayList<>();
+			long errors = drive(http, uri, token, clients, deadline, latencies);
+			double elapsed = (System.nanoTime() - start) / 1e9;
+			sampler.join();
+
+			double[] sorted = latencies.stream().mapToDouble(Long::doubleValue).sorted().toArray();
+			return new Result(sorted.length, errors, sorted, elapsed, pinned(registry) - pinnedBefore, maxPending[0]);
+		}
+	}
+
+	// Each client files complaints back to back until the deadline; returns the number of failed requests
+	private static long drive(HttpClient http, URI uri, String token, int clients, long deadline,
+							  List<Long> latencies) throws Exception {
+		AtomicLong errors = new AtomicLong();
+		try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Future<List<Long>>> futures = new ArrayList<>();
+			for (int c = 0; c < clients; c++) {
+				int client = c;
+				futures.add(pool.submit(() -> {
+					List<Long> mine = new ArrayList<>();
+					for (int i = 0; System.nanoTime() < deadline; i++) {
+						HttpRequest request = HttpRequest.newBuilder(uri)
+								.header("Authorization", "Bearer " + token)
+								.header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+								.POST(HttpRequest.BodyPublishers.ofByteArray(form(client, i)))
+								.build();
+						long start = System.nanoTime();
+						HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+						if (response.statusCode() == 200) {
+							mine.add(System.nanoTime() - start);
+						} else {
+							errors.incrementAndGet();
+						}
+					}
+					return mine;
+				}));
+			}
+			for (Future<List<Long>> f : futures) {
+				List<Long> mine = f.get();
+				if (latencies != null) {
+					latencies.addAll(mine);
+				}
+			}
+		}
+		return errors.get();
+	}
+
+	private static byte[] form(int client, int i) {
+		StringBuilder body = new StringBuilder();
+		String[][] fields = {
+				{"title", "Pothole " + client + "-" + i},
+				{"description", "Deep pothole near the bus stop on the main road"},
+				{"category", "Roads"},
+				{"location", "MG Road, Mysuru"}};
+		for (String[] field : fields) {
+			body.append("--").append(BOUNDARY).append("\r\n")
+					.append("Content-Disposition: form-data; name=\"").append(field[0]).append("\"\r\n\r\n")
+					.append(field[1]).append("\r\n");
+		}
+		body.append("--").append(BOUNDARY).append("--\r\n");
+		return body.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static double pinned(MeterRegistry registry) {
+		return registry.find("jvm.threads.virtual.pinned").counters().stream().mapToDouble(Counter::count).sum();
+	}
+
+	private void report(String mode, Result r) {
+		logger.info("{} threads, {} clients: {} complaints/s ({} ok, {} failed), p50 {} ms, p99 {} ms, "
+						+ "{} pinned events, max {} threads waiting for a connection",
+				mode, clients, String.format("%.0f", r.requests() / r.seconds()), r.requests(), r.errors(),
+				ms(percentile(r.latencyNanos(), 50)), ms(percentile(r.latencyNanos(), 99)),
+				(long) r.pinned(), (long) r.maxPendingConnections());
+	}
+
+	private static double percentile(double[] sorted, int p) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+	}
+
+	private static String ms(double nanos) {
+		return String.format("%.1f", nanos / 1e6);
+	}
+}
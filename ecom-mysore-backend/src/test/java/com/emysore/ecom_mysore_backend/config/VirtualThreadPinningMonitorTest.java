@@ -0,0 +1,47 @@
+package com.emysore.ecom_mysore_backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadPinningMonitorTest {
+
+	private final Object lock = new Object();
+
+	@Test
+	void reportsBlockingInsideSynchronized() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(registry, Duration.ofMillis(10));
+		monitor.start();
+		try {
+			long deadline = System.currentTimeMillis() + 15_000;
+			while (pinnedCount(registry) == 0) {
+				assertTrue(System.currentTimeMillis() < deadline, "no jdk.VirtualThreadPinned event reported");
+				Thread.ofVirtual().start(this::sleepWhileHoldingLock).join();
+				Thread.sleep(200);
+			}
+			Counter counter = registry.get("jvm.threads.virtual.pinned").counter();
+			assertEquals(VirtualThreadPinningMonitorTest.class.getName() + ".sleepWhileHoldingLock", counter.getId().getTag("site"));
+		} finally {
+			monitor.stop();
+		}
+	}
+
+	private void sleepWhileHoldingLock() {
+		synchronized (lock) {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static double pinnedCount(SimpleMeterRegistry registry) {
+		return registry.find("jvm.threads.virtual.pinned").counters().stream().mapToDouble(Counter::count).sum();
+	}
+}
@@ -0,0 +1,105 @@
+package com.emysore.ecom_mysore_backend.controller;
+
+import com.emysore.ecom_mysore_backend.service.FileStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:uploads;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+		"storage.local.dir=target/test-serving"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("dev")
+class UploadControllerTest {
+
+	private static final String SHA = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+	private static final String OBJECT = "objects/9f/" + SHA + ".jpg";
+	private static final String LEGACY = "complaints/7/0b1c-pothole.jpg";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private FileStorageService fileStorageService;
+
+	private final byte[] bytes = new byte[100_000];
+
+	@BeforeEach
+	void storeFiles() throws Exception {
+		new Random(7).nextBytes(bytes);
+		fileStorageService.store(OBJECT, new ByteArrayInputStream(bytes), bytes.length, "image/jpeg");
+		fileStorageService.store(LEGACY, new ByteArrayInputStream(bytes), bytes.length, "image/jpeg");
+	}
+
+	@Test
+	void contentAddressedObjectsAreImmutable() throws Exception {
+		byte[] body = mockMvc.perform(get("/uploads/" + OBJECT))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"" + SHA + "\""))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+				.andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/jpeg"))
+				.andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+				.andReturn().getResponse().getContentAsByteArray();
+		assertArrayEquals(bytes, body);
+
+		mockMvc.perform(get("/uploads/" + OBJECT).header(HttpHeaders.IF_NONE_MATCH, "\"" + SHA + "\""))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"));
+	}
+
+	@Test
+	void otherKeysGetWeakValidatorsAndShortCaching() throws Exception {
+		String etag = mockMvc.perform(get("/uploads/" + LEGACY))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=3600, public"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertTrue(etag.startsWith("W/\""), etag);
+
+		mockMvc.perform(get("/uploads/" + LEGACY).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void servesSingleByteRanges() throws Exception {
+		byte[] body = mockMvc.perform(get("/uploads/" + OBJECT).header(HttpHeaders.RANGE, "bytes=1000-1999"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 1000-1999/100000"))
+				.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 1000))
+				.andReturn().getResponse().getContentAsByteArray();
+		assertArrayEquals(Arrays.copyOfRange(bytes, 1000, 2000), body);
+
+		mockMvc.perform(get("/uploads/" + OBJECT).header(HttpHeaders.RANGE, "bytes=-10"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 99990-99999/100000"));
+
+		mockMvc.perform(get("/uploads/" + OBJECT).header(HttpHeaders.RANGE, "bytes=200000-"))
+				.andExpect(status().isRequestedRangeNotSatisfiable())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */100000"));
+
+		// A stale If-Range means the client's partial copy is of something else: send it all
+		mockMvc.perform(get("/uploads/" + OBJECT).header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, "\"other\""))
+				.andExpect(status().isOk())
+				.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, bytes.length));
+	}
+
+	@Test
+	void keysOutsideTheStoreAreNotFound() throws Exception {
+		mockMvc.perform(get("/uploads/objects/missing.jpg")).andExpect(status().isNotFound());
+		// The security firewall turns these away before the controller's own check
+		mockMvc.perform(get("/uploads/%2e%2e/pom.xml")).andExpect(status().is4xxClientError());
+	}
+}
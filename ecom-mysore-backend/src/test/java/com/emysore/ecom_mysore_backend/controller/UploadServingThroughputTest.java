@@ -0,0 +1,115 @@
+package com.emysore.ecom_mysore_backend.controller;
+
+import com.emysore.ecom_mysore_backend.service.FileStorageService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures images per second served from /uploads by one node over real HTTP, i.e. through
+ * Tomcat's sendfile path. Opt-in because it saturates the machine for a while:
+ * <pre>
+ *   UPLOAD_BENCHMARK=1 ./mvnw test -Dtest=UploadServingThroughputTest
+ * </pre>
+ * Full downloads and revalidations (If-None-Match, answered 304) are reported separately.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:upload-benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+		"storage.local.dir=target/upload-benchmark"
+})
+@ActiveProfiles("dev")
+@EnabledIfEnvironmentVariable(named = "UPLOAD_BENCHMARK", matches = ".+")
+class UploadServingThroughputTest {
+	private static final Logger logger = LoggerFactory.getLogger(UploadServingThroughputTest.class);
+
+	private static final int IMAGES = 64;
+	private static final int IMAGE_SIZE = 200 * 1024;
+	private static final int CLIENTS = 32;
+	private static final long SECONDS = 10;
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private FileStorageService fileStorageService;
+
+	@Test
+	void imagesPerSecond() throws Exception {
+		Random random = new Random(1);
+		List<String> urls = new ArrayList<>();
+		for (int i = 0; i < IMAGES; i++) {
+			byte[] bytes = new byte[IMAGE_SIZE];
+			random.nextBytes(bytes);
+			String sha = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+			String key = "objects/" + sha.substring(0, 2) + "/" + sha + ".jpg";
+			fileStorageService.store(key, new ByteArrayInputStream(bytes), bytes.length, "image/jpeg");
+			urls.add("http://localhost:" + port + "/uploads/" + key);
+		}
+		HttpClient client = HttpClient.newHttpClient();
+
+		// Warm up the JIT and the page cache before measuring
+		run(client, urls, false, 2);
+		double downloads = run(client, urls, false, SECONDS);
+		double revalidations = run(client, urls, true, SECONDS);
+
+		logger.info("{} clients, {} KB images: {} downloads/s ({} MB/s), {} revalidations/s",
+				CLIENTS, IMAGE_SIZE / 1024, Math.round(downloads), Math.round(downloads * IMAGE_SIZE / (1024 * 1024)),
+				Math.round(revalidations));
+		assertTrue(downloads > 0);
+		assertTrue(revalidations > 0);
+	}
+
+	private double run(HttpClient client, List<String> urls, boolean revalidate, long seconds) throws Exception {
+		AtomicLong served = new AtomicLong();
+		long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+		long start = System.nanoTime();
+		List<Future<?>> results = new ArrayList<>();
+		try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int c = 0; c < CLIENTS; c++) {
+				int offset = c;
+				results.add(clients.submit(() -> {
+					for (int i = offset; System.nanoTime() < deadline; i++) {
+						String url = urls.get(i % urls.size());
+						HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url));
+						if (revalidate) {
+							String sha = url.substring(url.lastIndexOf('/') + 1, url.lastIndexOf('.'));
+							request.header("If-None-Match", "\"" + sha + "\"");
+						}
+						HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+						assertEquals(revalidate ? 304 : 200, response.statusCode());
+						assertEquals(revalidate ? 0 : IMAGE_SIZE, response.body().length);
+						served.incrementAndGet();
+					}
+					return null;
+				}));
+			}
+		}
+		// Rethrows a client's failed assertion
+		for (Future<?> result : results) {
+			result.get();
+		}
+		return served.get() / ((System.nanoTime() - start) / 1e9);
+	}
+}
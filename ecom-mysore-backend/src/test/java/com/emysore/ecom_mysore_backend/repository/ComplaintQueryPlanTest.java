@@ -0,0 +1,202 @@
+package com.emysore.ecom_mysore_backend.repository;
+
+import com.emysore.ecom_mysore_backend.model.Complaint;
+import com.emysore.ecom_mysore_backend.model.ComplaintListItem;
+import com.emysore.ecom_mysore_backend.service.ComplaintService;
+import com.emysore.ecom_mysore_backend.service.CursorPage;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the dashboard list queries against PostgreSQL-mode H2 and checks with EXPLAIN that the
+ * SQL Hibernate generates is answered from the composite indexes rather than a table scan.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:queryplan;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+		"spring.jpa.show-sql=false",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+				+ "com.emysore.ecom_mysore_backend.repository.ComplaintQueryPlanTest$SqlRecorder"
+})
+@ActiveProfiles("dev")
+class ComplaintQueryPlanTest {
+
+	private static final String[] STATUSES = {"OPEN", "IN_PROGRESS", "RESOLVED", "CLOSED"};
+	private static final String[] CATEGORIES = {"Roads", "Water", "Electricity", "Sanitation", "Parks"};
+
+	public static class SqlRecorder implements StatementInspector {
+		static final List<String> statements = new CopyOnWriteArrayList<>();
+
+		@Override
+		public String inspect(String sql) {
+			statements.add(sql);
+			return sql;
+		}
+	}
+
+	@Autowired
+	private ComplaintService complaintService;
+
+	@Autowired
+	private ComplaintRepository complaintRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void seed() {
+		// The totals asserted below count exactly these rows
+		complaintRepository.deleteAllInBatch();
+		List<Complaint> complaints = new ArrayList<>();
+		LocalDateTime start = LocalDateTime.now().minusDays(30);
+		for (int i = 0; i < 2000; i++) {
+			Complaint c = new Complaint();
+			c.setTitle("Complaint " + i);
+			c.setStatus(STATUSES[i % STATUSES.length]);
+			c.setCategory(CATEGORIES[i % CATEGORIES.length]);
+			c.setEscalated(i % 7 == 0);
+			c.setCreatedAt(start.plusMinutes(i));
+			c.setUpdatedAt(start.plusDays(i % 3)); // heavy ties, to exercise the id tie-breaker
+			complaints.add(c);
+		}
+		complaintRepository.saveAll(complaints);
+		jdbcTemplate.execute("ANALYZE");
+		SqlRecorder.statements.clear();
+	}
+
+	@Test
+	void filtersByStatusAndEscalatedUsingCompositeIndex() {
+		Page<ComplaintListItem> page = complaintService.getComplaints("OPEN", null, true,
+				PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt")));
+
+		assertEquals(72, page.getTotalElements()); // i % 4 == 0 && i % 7 == 0 for i < 2000
+		assertTrue(page.getContent().stream().allMatch(c -> "OPEN".equals(c.status()) && c.escalated()));
+		assertSortedDescending(page.getContent());
+
+		String plan = explain(pageQuery(), "OPEN", true, 20);
+		assertTrue(plan.contains("IDX_COMPLAINTS_STATUS_ESCALATED_CREATED_AT"), plan);
+	}
+
+	@Test
+	void listPageSelectsCardColumnsInOneQueryPlusCount() {
+		complaintService.getComplaints(null, "Roads", null, PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt")));
+
+		assertEquals(2, SqlRecorder.statements.size(), SqlRecorder.statements.toString());
+		String sql = pageQuery();
+		// The dashboard still renders the image on each card
+		assertTrue(sql.contains("image_url"), sql);
+		assertFalse(sql.contains("description"), sql);
+		assertFalse(sql.contains("department_hierarchy"), sql);
+		assertFalse(sql.contains("users"), sql);
+	}
+
+	@Test
+	void filtersByCategoryUsingCompositeIndex() {
+		Page<ComplaintListItem> page = complaintService.getComplaints(null, "Water", null,
+				PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt")));
+
+		assertEquals(400, page.getTotalElements());
+		assertTrue(page.getContent().stream().allMatch(c -> "Water".equals(c.category())));
+		assertSortedDescending(page.getContent());
+
+		String plan = explain(pageQuery(), "Water", 20);
+		assertTrue(plan.contains("IDX_COMPLAINTS_CATEGORY_CREATED_AT"), plan);
+	}
+
+	@Test
+	void combinesAllFilters() {
+		Page<ComplaintListItem> page = complaintService.getComplaints("RESOLVED", "Roads", false,
+				PageRequest.of(0, 50, Sort.by(Sort.Direction.ASC, "createdAt")));
+
+		assertTrue(page.getTotalElements() > 0);
+		assertTrue(page.getContent().stream().allMatch(c ->
+				"RESOLVED".equals(c.status()) && "Roads".equals(c.category()) && !c.escalated()));
+	}
+
+	@Test
+	void noFiltersReturnsEverything() {
+		Page<ComplaintListItem> page = complaintService.getComplaints(null, null, null, PageRequest.of(0, 10));
+		assertEquals(complaintRepository.count(), page.getTotalElements());
+	}
+
+	@Test
+	void cursorWalkVisitsEveryRowOnceInOffsetOrder() {
+		for (String sortProperty : List.of("createdAt", "updatedAt", "id")) {
+			for (Sort.Direction direction : Sort.Direction.values()) {
+				Sort sort = Sort.by(direction, sortProperty).and(Sort.by(direction, "id"));
+				List<Long> expected = complaintService.getComplaints("OPEN", null, null, PageRequest.of(0, 1000, sort))
+						.map(ComplaintListItem::id).getContent();
+
+				List<Long> walked = new ArrayList<>();
+				String cursor = "";
+				CursorPage<ComplaintListItem> slice;
+				do {
+					slice = complaintService.getComplaintsByCursor("OPEN", null, null, sortProperty, direction, cursor, 37);
+					slice.content().forEach(c -> walked.add(c.id()));
+					cursor = slice.nextCursor();
+				} while (slice.hasNext());
+
+				assertEquals(expected, walked, sortProperty + " " + direction);
+			}
+		}
+	}
+
+	@Test
+	void cursorSliceSeeksWithoutOffsetOrCount() {
+		CursorPage<ComplaintListItem> first = complaintService.getComplaintsByCursor("OPEN", null, false,
+				"createdAt", Sort.Direction.DESC, null, 20);
+		SqlRecorder.statements.clear();
+		complaintService.getComplaintsByCursor("OPEN", null, false, "createdAt", Sort.Direction.DESC, first.nextCursor(), 20);
+
+		assertTrue(SqlRecorder.statements.stream().noneMatch(sql -> sql.contains("count(")), SqlRecorder.statements.toString());
+		String sql = pageQuery();
+		assertFalse(sql.contains("offset"), sql);
+
+		ComplaintListItem last = first.content().get(19);
+		String plan = explain(sql, "OPEN", false, last.createdAt(), last.createdAt(), last.id(), 21);
+		assertTrue(plan.contains("IDX_COMPLAINTS_STATUS_ESCALATED_CREATED_AT"), plan);
+	}
+
+	@Test
+	void cursorForDifferentSortIsRejected() {
+		CursorPage<ComplaintListItem> first = complaintService.getComplaintsByCursor(null, null, null,
+				"createdAt", Sort.Direction.DESC, null, 5);
+		assertThrows(IllegalArgumentException.class, () -> complaintService.getComplaintsByCursor(null, null, null,
+				"createdAt", Sort.Direction.ASC, first.nextCursor(), 5));
+		assertThrows(IllegalArgumentException.class, () -> complaintService.getComplaintsByCursor(null, null, null,
+				"title", Sort.Direction.ASC, null, 5));
+		assertThrows(IllegalArgumentException.class, () -> complaintService.getComplaintsByCursor(null, null, null,
+				"createdAt", Sort.Direction.DESC, "bm90LWEtY3Vyc29y", 5));
+	}
+
+	private String pageQuery() {
+		return SqlRecorder.statements.stream()
+				.filter(sql -> sql.contains("order by"))
+				.findFirst()
+				.orElseThrow(() -> new AssertionError("No page query recorded: " + SqlRecorder.statements));
+	}
+
+	private String explain(String sql, Object... args) {
+		return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, args).toUpperCase();
+	}
+
+	private static void assertSortedDescending(List<ComplaintListItem> complaints) {
+		for (int i = 1; i < complaints.size(); i++) {
+			assertFalse(complaints.get(i).createdAt().isAfter(complaints.get(i - 1).createdAt()));
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package com.emysore.ecom_mysore_backend.security;
+
+import com.emysore.ecom_mysore_backend.model.Role;
+import com.emysore.ecom_mysore_backend.model.User;
+import com.emysore.ecom_mysore_backend.service.UserService;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:jwt;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("dev")
+class JwtAuthenticationFilterTest {
+
+	@Autowired
+	private JwtAuthenticationFilter filter;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private AccessTokenRevocations revocations;
+
+	@MockitoSpyBean
+	private UserDetailsServiceImpl userDetailsService;
+
+	@AfterEach
+	void clear() {
+		SecurityContextHolder.clearContext();
+	}
+
+	private Authentication authenticate(String token) throws Exception {
+		SecurityContextHolder.clearContext();
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/complaints");
+		request.addHeader("Authorization", "Bearer " + token);
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		return SecurityContextHolder.getContext().getAuthentication();
+	}
+
+	private User user(String username) {
+		return userService.findByUsername(username).orElseGet(() -> userService.register(username, "secret"));
+	}
+
+	@Test
+	void loadsTheUserOncePerToken() throws Exception {
+		String token = jwtUtil.generateToken(user("cached-citizen"));
+
+		for (int i = 0; i < 50; i++) {
+			Authentication auth = authenticate(token);
+			assertEquals("cached-citizen", auth.getName());
+			assertTrue(auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_CITIZEN")));
+		}
+		verify(userDetailsService, times(1)).loadUserByUsername("cached-citizen");
+	}
+
+	@Test
+	void roleChangesReachTokensAlreadyIssued() throws Exception {
+		String token = jwtUtil.generateToken(user("promoted-officer"));
+		authenticate(token);
+
+		userService.changeRole("promoted-officer", Role.ADMIN);
+
+		Authentication auth = authenticate(token);
+		assertTrue(auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN")));
+		verify(userDetailsService, times(2)).loadUserByUsername("promoted-officer");
+	}
+
+	@Test
+	void ignoresTokensThatDoNotVerify() throws Exception {
+		String token = jwtUtil.generateToken(user("tampered-citizen"));
+		String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+		assertNull(authenticate(tampered));
+		assertNull(authenticate("not-a-jwt"));
+		verify(userDetailsService, never()).loadUserByUsername(anyString());
+	}
+
+	@Test
+	void revokedTokensStopWorkingEvenWhenCached() throws Exception {
+		String token = jwtUtil.generateToken(user("logged-out-citizen"));
+		assertNotNull(authenticate(token));
+
+		Claims claims = jwtUtil.parseClaims(token);
+		revocations.revoke(claims.getId(), claims.getExpiration());
+		assertNull(authenticate(token));
+
+		// Survives a reload from the database
+		revocations.sync();
+		assertNull(authenticate(token));
+		assertNotNull(authenticate(jwtUtil.generateToken(user("logged-out-citizen"))));
+	}
+}
@@ -0,0 +1,160 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.Complaint;
+import com.emysore.ecom_mysore_backend.model.Department;
+import com.emysore.ecom_mysore_backend.model.User;
+import com.emysore.ecom_mysore_backend.repository.ComplaintRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:enrichment;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+		// Nothing listens here, so every remote prediction fails
+		"ml.service.url=http://localhost:1",
+		"ml.batch.enabled=false",
+		"ml.classifier.localFallback=true",
+		"ml.enrichment.maxAttempts=2"
+})
+@ActiveProfiles("dev")
+class ComplaintEnrichmentServiceTest {
+
+	private static final String WATER_DEPT = "Vani Vilas Water Works (VVWW) – Pipeline Section";
+
+	@Autowired
+	private ComplaintService complaintService;
+
+	@Autowired
+	private ComplaintEnrichmentService enrichmentService;
+
+	@Autowired
+	private ComplaintRepository complaintRepository;
+
+	@Autowired
+	private UserService userService;
+
+	@MockitoSpyBean
+	private MLService mlService;
+
+	@MockitoSpyBean
+	private DepartmentDirectory departmentDirectory;
+
+	@MockitoBean
+	private NotificationService notificationService;
+
+	private User user(String username) {
+		return userService.findByUsername(username).orElseGet(() -> userService.register(username, "secret"));
+	}
+
+	private Complaint file(String title, String description) throws Exception {
+		Complaint complaint = new Complaint();
+		complaint.setTitle(title);
+		complaint.setDescription(description);
+		return complaintService.createComplaint(complaint, user("enrichment-reporter"), null);
+	}
+
+	private Complaint awaitComplaint(Long id, Predicate<Complaint> condition) throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			Complaint complaint = complaintRepository.findById(id).orElseThrow();
+			if (condition.test(complaint)) {
+				return complaint;
+			}
+			Thread.sleep(100);
+		}
+		fail("complaint #" + id + " never reached the expected state");
+		return null;
+	}
+
+	// Lets the sweep pick the complaint up now instead of after its backoff
+	private void makeDue(Long id) {
+		Complaint complaint = complaintRepository.findById(id).orElseThrow();
+		complaint.setEnrichmentNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+		complaintRepository.save(complaint);
+	}
+
+	private static Department department(String name) {
+		Department dept = new Department();
+		dept.setName(name);
+		dept.setContactEmail("dept@example.com");
+		dept.setPhone("+910000000000");
+		return dept;
+	}
+
+	@Test
+	void complaintsStayPendingAndBackOffWhileTheMlServiceIsDown() throws Exception {
+		LocalDateTime before = LocalDateTime.now();
+		Complaint complaint = file("Water leak", "Pipe burst on 4th cross");
+
+		Complaint failed = awaitComplaint(complaint.getId(), c -> c.getEnrichmentAttempts() == 1);
+		assertEquals(ComplaintEnrichmentService.PENDING_ENRICHMENT, failed.getEnrichmentStatus());
+		assertNull(failed.getAssignedDept());
+		assertTrue(failed.getEnrichmentNextAttemptAt().isAfter(before.plusSeconds(30)),
+				"the next attempt should wait out the backoff");
+	}
+
+	@Test
+	void fallbackRoutesAfterMaxAttemptsAndMlReenrichesLater() throws Exception {
+		doReturn(department(WATER_DEPT)).when(departmentDirectory).find(WATER_DEPT);
+		doReturn(department("MCC Water Engineer")).when(departmentDirectory).find("MCC Water Engineer");
+		Complaint complaint = file("Water leak", "Pipe burst near the water tap");
+		awaitComplaint(complaint.getId(), c -> c.getEnrichmentAttempts() == 1);
+
+		makeDue(complaint.getId());
+		enrichmentService.resubmitPending();
+		Complaint routed = awaitComplaint(complaint.getId(),
+				c -> ComplaintEnrichmentService.FALLBACK_ENRICHED.equals(c.getEnrichmentStatus()));
+		assertEquals(2, routed.getEnrichmentAttempts());
+		assertEquals(WATER_DEPT, routed.getAssignedDept());
+		assertNotNull(routed.getEnrichmentNextAttemptAt(), "the fallback should be revisited");
+		verify(notificationService, timeout(2000)).sendDirectContactNotification(
+				eq("dept@example.com"), anyString(), eq("New Complaint Assigned"), contains("#" + complaint.getId()));
+
+		// The ML service is back and disagrees with the fallback
+		doReturn(new MLPrediction("Water Supply", "HIGH", "NEGATIVE", 0.9, "MCC Water Engineer",
+				List.of("MCC Water Engineer", "MCC Commissioner")))
+				.when(mlService).predictIfAvailable(anyString(), anyString());
+		makeDue(complaint.getId());
+		enrichmentService.resubmitPending();
+		Complaint enriched = awaitComplaint(complaint.getId(),
+				c -> ComplaintEnrichmentService.ENRICHED.equals(c.getEnrichmentStatus()));
+		assertEquals("MCC Water Engineer", enriched.getAssignedDept());
+		assertEquals("HIGH", enriched.getUrgency());
+		assertNull(enriched.getEnrichmentNextAttemptAt());
+		verify(notificationService, timeout(2000).times(2)).sendDirectContactNotification(
+				eq("dept@example.com"), anyString(), eq("New Complaint Assigned"), contains("#" + complaint.getId()));
+	}
+
+	@Test
+	void sweepTakesTheLongestOverdueFirstAndSkipsBackedOffComplaints() {
+		LocalDateTime now = LocalDateTime.now();
+		Long[] ids = new Long[4];
+		LocalDateTime[] nextAttempts = {
+				now.minusMinutes(1), now.minusMinutes(30), now.plusMinutes(30), now.minusMinutes(10)};
+		for (int i = 0; i < ids.length; i++) {
+			Complaint complaint = new Complaint();
+			complaint.setTitle("Sweep order " + i);
+			complaint.setEnrichmentStatus(i == 3
+					? ComplaintEnrichmentService.FALLBACK_ENRICHED : ComplaintEnrichmentService.PENDING_ENRICHMENT);
+			complaint.setEnrichmentNextAttemptAt(nextAttempts[i]);
+			ids[i] = complaintRepository.save(complaint).getId();
+		}
+
+		List<Long> due = complaintRepository.findIdsDueForEnrichment(
+				List.of(ComplaintEnrichmentService.PENDING_ENRICHMENT, ComplaintEnrichmentService.FALLBACK_ENRICHED),
+				now, PageRequest.of(0, 100));
+		List<Long> mine = due.stream().filter(List.of(ids)::contains).toList();
+		assertEquals(List.of(ids[1], ids[3], ids[0]), mine);
+	}
+}
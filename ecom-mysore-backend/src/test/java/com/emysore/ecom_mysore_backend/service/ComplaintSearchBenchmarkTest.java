@@ -0,0 +1,143 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.repository.ComplaintRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares search latency before and after ranked search on a seeded complaints table. The old
+ * path is what /api/complaints/search used to do (load every complaint); the new one is
+ * {@link ComplaintSearchService#search}, one page of ranked hits. Opt-in because seeding and the
+ * old path take a while; 100k rows by default, set SEARCH_BENCHMARK_ROWS for the 1M run:
+ * <pre>
+ *   SEARCH_BENCHMARK=1 ./mvnw test -Dtest=ComplaintSearchBenchmarkTest
+ *   SEARCH_BENCHMARK=1 SEARCH_BENCHMARK_ROWS=1000000 ./mvnw test -Dtest=ComplaintSearchBenchmarkTest -DargLine=-Xmx6g
+ * </pre>
+ * Pass {@code -Dspring.datasource.url=jdbc:postgresql://...} and {@code -Dcomplaint.search.engine=postgres}
+ * to measure the GIN-indexed PostgreSQL query instead of the in-process index.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:search-benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+		"spring.jpa.show-sql=false"
+})
+@ActiveProfiles("dev")
+@EnabledIfEnvironmentVariable(named = "SEARCH_BENCHMARK", matches = ".+")
+class ComplaintSearchBenchmarkTest {
+	private static final Logger logger = LoggerFactory.getLogger(ComplaintSearchBenchmarkTest.class);
+
+	private static final String[] PLACES = {"MG Road", "Sayyaji Rao Road", "Kuvempunagar", "Vijayanagar", "Hebbal",
+			"Gokulam", "Saraswathipuram", "Bannimantap", "Jayalakshmipuram", "Nazarbad"};
+	private static final String[] ISSUES = {"pothole", "water leak", "street light", "garbage dump", "sewage overflow",
+			"broken footpath", "power cut", "stray dogs", "blocked drain", "fallen tree"};
+	private static final String[] DETAILS = {"near the main junction", "for three days", "outside the school",
+			"causing traffic", "since last week", "behind the market", "next to the bus stop", "on the main road"};
+	private static final String[] CATEGORIES = {"Roads", "Water", "Electricity", "Sanitation", "Parks"};
+	private static final String[] QUERIES = {"pot", "water leak", "street light main", "garbage market",
+			"drain school", "hebbal power", "sayyaji pothole junction", "tree"};
+
+	private static final int OLD_RUNS = 3;
+	private static final int NEW_RUNS = 200;
+
+	@Autowired
+	private ComplaintService complaintService;
+
+	@Autowired
+	private ComplaintSearchService searchService;
+
+	@Autowired
+	private ComplaintRepository complaintRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void searchLatency() {
+		int rows = Integer.parseInt(System.getenv().getOrDefault("SEARCH_BENCHMARK_ROWS", "100000"));
+		long seedStart = System.nanoTime();
+		seed(rows);
+		searchService.rebuildIndex();
+		logger.info("Seeded and indexed {} complaints in {}s", rows, String.format("%.1f", (System.nanoTime() - seedStart) / 1e9));
+
+		// Before: the endpoint returned every complaint and left matching to the client
+		double[] old = measure(OLD_RUNS, () -> complaintRepository.findAll().size());
+
+		// After: one ranked page per query; warm up the JIT first
+		for (int i = 0; i < NEW_RUNS; i++) {
+			complaintService.searchComplaints(QUERIES[i % QUERIES.length], PageRequest.of(0, 20));
+		}
+		int[] query = {0};
+		double[] ranked = measure(NEW_RUNS, () -> {
+			Page<ComplaintSearchHit> page = complaintService.searchComplaints(QUERIES[query[0]++ % QUERIES.length], PageRequest.of(0, 20));
+			return page.getNumberOfElements();
+		});
+
+		logger.info("{} rows, old full load: p50 {} ms, max {} ms ({} runs)",
+				rows, ms(percentile(old, 50)), ms(percentile(old, 100)), OLD_RUNS);
+		logger.info("{} rows, ranked search:  p50 {} ms, p95 {} ms, p99 {} ms ({} queries)",
+				rows, ms(percentile(ranked, 50)), ms(percentile(ranked, 95)), ms(percentile(ranked, 99)), NEW_RUNS);
+		assertTrue(complaintService.searchComplaints("pothole", PageRequest.of(0, 20)).getNumberOfElements() > 0);
+	}
+
+	// Plain JDBC batches; going through JPA would make seeding the slowest part of the run
+	private void seed(int rows) {
+		jdbcTemplate.update("DELETE FROM complaints");
+		Random random = new Random(1);
+		LocalDateTime start = LocalDateTime.now().minusDays(365);
+		int batchSize = 5_000;
+		for (int from = 0; from < rows; from += batchSize) {
+			List<Object[]> batch = new ArrayList<>(batchSize);
+			for (int i = from; i < Math.min(from + batchSize, rows); i++) {
+				String issue = ISSUES[random.nextInt(ISSUES.length)];
+				String place = PLACES[random.nextInt(PLACES.length)];
+				Timestamp createdAt = Timestamp.valueOf(start.plusSeconds(i * 30L));
+				batch.add(new Object[] {
+						Character.toUpperCase(issue.charAt(0)) + issue.substring(1) + " on " + place,
+						issue + " " + DETAILS[random.nextInt(DETAILS.length)] + ", reported by residents of " + place,
+						CATEGORIES[random.nextInt(CATEGORIES.length)],
+						place + ", Mysuru",
+						createdAt, createdAt});
+			}
+			jdbcTemplate.batchUpdate("INSERT INTO complaints (title, description, category, location, status, escalated, "
+					+ "escalation_level, max_escalation_level, enrichment_attempts, created_at, updated_at) "
+					+ "VALUES (?, ?, ?, ?, 'PENDING', false, 0, 1, 0, ?, ?)", batch);
+		}
+	}
+
+	private static double[] measure(int runs, Supplier<Integer> call) {
+		double[] nanos = new double[runs];
+		for (int i = 0; i < runs; i++) {
+			long start = System.nanoTime();
+			call.get();
+			nanos[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(nanos);
+		return nanos;
+	}
+
+	private static double percentile(double[] sorted, int p) {
+		int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+	}
+
+	private static String ms(double nanos) {
+		return String.format("%.2f", nanos / 1e6);
+	}
+}
@@ -0,0 +1,128 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.Complaint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComplaintSearchIndexTest {
+
+	private ComplaintSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new ComplaintSearchIndex();
+		ComplaintSearchIndex.Rebuild rebuild = index.beginRebuild();
+		rebuild.add(complaint(1L, "Street light not working", "Dark road near the park", "Electricity", "Kuvempunagar"));
+		rebuild.add(complaint(2L, "Water leak", "Pipe burst near street corner", "Water", "Gokulam"));
+		rebuild.add(complaint(3L, "Pothole on main road", "Deep pothole causing accidents", "Roads", "Vijayanagar"));
+		rebuild.add(complaint(4L, "ರಸ್ತೆ ಗುಂಡಿ", "ಮುಖ್ಯ ರಸ್ತೆಯಲ್ಲಿ ದೊಡ್ಡ ಗುಂಡಿ", "Roads", "Mysuru"));
+		rebuild.addComment(3L, "Contractor inspected the site");
+		rebuild.finish();
+	}
+
+	@Test
+	void matchesPrefixesOfEveryToken() {
+		assertEquals(List.of(3L), ids("poth road"));
+		assertEquals(List.of(3L), ids("POT"));
+		assertEquals(List.of(), ids("pothole water"));
+	}
+
+	@Test
+	void ranksTitleMatchesAboveDescriptionMatches() {
+		// "street" is in the title of #1 and the description of #2
+		assertEquals(List.of(1L, 2L), ids("street"));
+	}
+
+	@Test
+	void searchesKannadaWithCombiningMarks() {
+		assertEquals(List.of("ರಸ್ತೆ", "ಗುಂಡಿ"), ComplaintSearchIndex.tokenize("ರಸ್ತೆ ಗುಂಡಿ!"));
+		assertEquals(List.of(4L), ids("ರಸ್ತೆ"));
+	}
+
+	@Test
+	void reindexReplacesOldTerms() {
+		Complaint updated = complaint(2L, "Water leak", "Pipe burst", "Water", "Gokulam");
+		updated.setRemarks("Plumber dispatched");
+		index.index(updated);
+
+		assertEquals(List.of(1L), ids("street"));
+		assertEquals(List.of(2L), ids("plumb"));
+
+		index.remove(2L);
+		assertEquals(List.of(), ids("water"));
+		assertEquals(3, index.size());
+	}
+
+	@Test
+	void paginatesRankedResults() {
+		Page<ComplaintSearchHit> page = index.search("r", PageRequest.of(1, 1));
+		assertEquals(3, page.getTotalElements()); // road x2 and Roads category
+		assertEquals(1, page.getContent().size());
+		assertEquals(ids("r").get(1), page.getContent().get(0).id());
+	}
+
+	@Test
+	void searchesCommentsAndReturnsSummaries() {
+		ComplaintSearchHit hit = index.search("contractor", PageRequest.of(0, 10)).getContent().get(0);
+		assertEquals(3L, hit.id());
+		assertEquals("Pothole on main road", hit.title());
+		assertEquals("Roads", hit.category());
+		assertEquals(ComplaintSearchIndex.OTHER_WEIGHT, hit.score());
+
+		// re-indexing with the comments from the database keeps them searchable
+		index.index(complaint(3L, "Pothole fixed", "", "Roads", ""), List.of("Contractor inspected the site"));
+		assertEquals(List.of(3L), ids("contractor"));
+		assertEquals(List.of(), ids("deep"));
+	}
+
+	@Test
+	void topResultsMatchFullSortOnLargeIndex() {
+		ComplaintSearchIndex big = new ComplaintSearchIndex();
+		// ids arrive out of order to exercise posting list inserts
+		for (long id = 1000; id >= 1; id--) {
+			String title = id % 3 == 0 ? "garbage pile" : "drain";
+			String description = id % 5 == 0 ? "garbage not collected" : "blocked";
+			big.index(complaint(id, title, description, "Sanitation", "Ward " + id));
+		}
+		List<Long> expected = new ArrayList<>();
+		for (long id = 1000; id >= 1; id--) {
+			if (id % 3 == 0) expected.add(id);
+		}
+		for (long id = 1000; id >= 1; id--) {
+			if (id % 5 == 0 && id % 3 != 0) expected.add(id);
+		}
+
+		Page<ComplaintSearchHit> first = big.search("garb", PageRequest.of(0, 25));
+		Page<ComplaintSearchHit> third = big.search("garb", PageRequest.of(2, 25));
+		assertEquals(expected.size(), first.getTotalElements());
+		assertEquals(expected.subList(0, 25), first.getContent().stream().map(ComplaintSearchHit::id).toList());
+		assertEquals(expected.subList(50, 75), third.getContent().stream().map(ComplaintSearchHit::id).toList());
+	}
+
+	@Test
+	void buildsPrefixTsQuery() {
+		assertEquals("pot:* & main:*",
+				ComplaintSearchService.toPrefixTsQuery(ComplaintSearchIndex.tokenize("Pot, main!")));
+	}
+
+	private List<Long> ids(String query) {
+		return index.search(query, PageRequest.of(0, 10)).getContent().stream().map(ComplaintSearchHit::id).toList();
+	}
+
+	private static Complaint complaint(Long id, String title, String description, String category, String location) {
+		Complaint c = new Complaint();
+		c.setId(id);
+		c.setTitle(title);
+		c.setDescription(description);
+		c.setCategory(category);
+		c.setLocation(location);
+		return c;
+	}
+}
@@ -0,0 +1,65 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the in-process classifier against ml_stub.py. The expected values in
+ * {@code ml/department-parity-cases.json} were produced by running the stub's classify() on
+ * each case; regenerate them whenever the stub's rules change.
+ */
+class DepartmentClassifierParityTest {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static DepartmentClassifier classifier;
+
+	@BeforeAll
+	static void loadClassifier() throws IOException {
+		classifier = new DepartmentClassifier(new ClassPathResource("ml/department-rules.json"), MAPPER);
+	}
+
+	static List<Map<String, Object>> cases() throws IOException {
+		try (InputStream in = new ClassPathResource("ml/department-parity-cases.json").getInputStream()) {
+			return MAPPER.readValue(in, new TypeReference<>() {});
+		}
+	}
+
+	@ParameterizedTest(name = "{index}: {0}")
+	@MethodSource("cases")
+	void matchesStub(Map<String, Object> c) {
+		String text = MLService.predictText((String) c.get("title"), (String) c.get("description"));
+		MLPrediction p = classifier.classify(text, (String) c.get("category"));
+
+		assertEquals(c.get("assigned_dept"), p.assignedDept());
+		assertEquals(c.get("department_hierarchy"), p.departmentHierarchy());
+		assertEquals(c.get("urgency"), p.urgency());
+		assertEquals(c.get("sentiment"), p.sentiment());
+		assertEquals(((Number) c.get("confidence")).doubleValue(), p.confidence());
+		assertEquals(c.get("predicted_category"), p.category());
+	}
+
+	@Test
+	void automatonReportsOverlappingMatches() {
+		AhoCorasickMatcher matcher = new AhoCorasickMatcher(List.of("light", "street light", "streetlight", "tap"));
+		AtomicInteger[] counts = {new AtomicInteger(), new AtomicInteger(), new AtomicInteger(), new AtomicInteger()};
+		matcher.match("street light and streetlight near the tapestry", id -> counts[id].incrementAndGet());
+
+		assertEquals(2, counts[0].get(), "'light' inside both spellings");
+		assertEquals(1, counts[1].get());
+		assertEquals(1, counts[2].get());
+		assertEquals(1, counts[3].get(), "substring match, as the stub's 'in' check");
+	}
+}
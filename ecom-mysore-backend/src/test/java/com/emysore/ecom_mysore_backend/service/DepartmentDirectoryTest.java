@@ -0,0 +1,69 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.Department;
+import com.emysore.ecom_mysore_backend.repository.DepartmentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:departments;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("dev")
+class DepartmentDirectoryTest {
+
+	@Autowired
+	private DepartmentDirectory directory;
+
+	@Autowired
+	private DepartmentService departmentService;
+
+	@Autowired
+	private DepartmentRepository departmentRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private static Department department(String name, String email) {
+		Department d = new Department();
+		d.setName(name);
+		d.setContactEmail(email);
+		return d;
+	}
+
+	@Test
+	void matchesNamesWhateverTheirDashesCaseAndSpacing() {
+		departmentService.create(department("MCC - UGD Section", "ugd@mysore.test"));
+
+		assertEquals("ugd@mysore.test", directory.find("MCC – UGD Section").getContactEmail());
+		assertEquals("ugd@mysore.test", directory.find("mcc—ugd  section").getContactEmail());
+		assertNull(directory.find("MCC – SWM Ward Supervisor"));
+		assertNull(directory.find(null));
+	}
+
+	@Test
+	void servesLookupsFromTheSnapshotUntilAWriteReplacesIt() {
+		departmentService.create(department("Fire Station", "fire@mysore.test"));
+		double reloads = meterRegistry.counter("department.directory.reloads").count();
+		double hits = meterRegistry.counter("department.directory.lookups", "result", "hit").count();
+		for (int i = 0; i < 1_000; i++) {
+			assertNotNull(directory.find("Fire Station"));
+		}
+		assertEquals(reloads + 1, meterRegistry.counter("department.directory.reloads").count());
+		assertEquals(hits + 1_000, meterRegistry.counter("department.directory.lookups", "result", "hit").count());
+
+		// Written behind the directory's back: not seen until something invalidates the snapshot
+		departmentRepository.save(department("Local Police Station", "police@mysore.test"));
+		assertNull(directory.find("Local Police Station"));
+
+		Department fire = directory.find("Fire Station");
+		departmentService.update(fire.getId(), department("Fire Station", "fire-control@mysore.test"));
+		assertEquals("fire-control@mysore.test", directory.find("Fire Station").getContactEmail());
+		assertNotNull(directory.find("Local Police Station"));
+
+		departmentService.delete(fire.getId());
+		assertNull(directory.find("Fire Station"));
+	}
+}
@@ -0,0 +1,151 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class FileStorageServiceTest {
+
+	@TempDir
+	Path dir;
+
+	private static byte[] photo(int size) {
+		byte[] bytes = new byte[size];
+		new Random(size).nextBytes(bytes);
+		return bytes;
+	}
+
+	private static String sha256(byte[] bytes) throws Exception {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+	}
+
+	private FileStorageService storage(S3Client s3) {
+		return new FileStorageService(dir.toString(), DataSize.ofMegabytes(16), DataSize.ofMegabytes(5), "bucket", "ap-south-1", s3);
+	}
+
+	@Test
+	void streamsToTheLocalStoreAndHashesOnTheWay() throws Exception {
+		byte[] bytes = photo(3 * 1024 * 1024 + 17);
+		MockMultipartFile file = new MockMultipartFile("image", "IMG 0042.jpg", "image/jpeg", bytes);
+
+		FileStorageService.StoredFile stored = storage(null).store("complaints/7", file);
+
+		assertTrue(stored.url().startsWith("/uploads/complaints/7/"), stored.url());
+		assertTrue(stored.key().endsWith("-IMG_0042.jpg"), stored.key());
+		assertEquals(bytes.length, stored.size());
+		assertEquals(sha256(bytes), stored.sha256());
+		assertArrayEquals(bytes, Files.readAllBytes(dir.resolve(stored.key())));
+		try (var leftovers = Files.list(dir.resolve("complaints/7"))) {
+			assertEquals(1, leftovers.count(), "temp file renamed into place");
+		}
+	}
+
+	@Test
+	void keepsClientFileNamesInsideTheStore() throws Exception {
+		MockMultipartFile file = new MockMultipartFile("image", "../../etc/passwd", "image/jpeg", photo(10));
+		FileStorageService.StoredFile stored = storage(null).store("complaints/7", file);
+		assertTrue(dir.resolve(stored.key()).normalize().startsWith(dir.resolve("complaints/7")));
+		assertEquals("upload", FileStorageService.safeName(".."));
+	}
+
+	@Test
+	void sendsLargeFilesToS3InParts() throws Exception {
+		S3Client s3 = mock(S3Client.class);
+		when(s3.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+				.thenReturn(CreateMultipartUploadResponse.builder().uploadId("u1").build());
+		when(s3.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+				.thenAnswer(call -> UploadPartResponse.builder()
+						.eTag("e" + call.getArgument(0, UploadPartRequest.class).partNumber()).build());
+		byte[] bytes = photo(17 * 1024 * 1024);
+
+		FileStorageService.StoredFile stored = storage(s3).store("complaints/7/big.jpg", new ByteArrayInputStream(bytes), bytes.length, "image/jpeg");
+
+		assertEquals(sha256(bytes), stored.sha256());
+		assertEquals("https://bucket.s3.ap-south-1.amazonaws.com/complaints/7/big.jpg", stored.url());
+		// 5 + 5 + 5 + 2 MB
+		verify(s3, times(4)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+		verify(s3).completeMultipartUpload(argThat((CompleteMultipartUploadRequest r) ->
+				r.uploadId().equals("u1") && r.multipartUpload().parts().size() == 4));
+		verify(s3, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+	}
+
+	@Test
+	void abortsTheMultipartUploadWhenTheStreamFails() {
+		S3Client s3 = mock(S3Client.class);
+		when(s3.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+				.thenReturn(CreateMultipartUploadResponse.builder().uploadId("u2").build());
+		InputStream broken = new InputStream() {
+			@Override
+			public int read() throws IOException {
+				throw new IOException("client went away");
+			}
+		};
+
+		assertThrows(IOException.class, () -> storage(s3).store("complaints/7/big.jpg", broken, 64L * 1024 * 1024, "image/jpeg"));
+		verify(s3).abortMultipartUpload(argThat((AbortMultipartUploadRequest r) -> r.uploadId().equals("u2")));
+	}
+
+	@Test
+	void putsSmallFilesToS3InOneRequest() throws Exception {
+		S3Client s3 = mock(S3Client.class);
+		byte[][] sent = new byte[1][];
+		when(s3.putObject(any(PutObjectRequest.class), any(RequestBody.class))).thenAnswer(call -> {
+			try (InputStream body = call.getArgument(1, RequestBody.class).contentStreamProvider().newStream()) {
+				sent[0] = body.readAllBytes();
+			}
+			return PutObjectResponse.builder().build();
+		});
+		byte[] bytes = photo(200_000);
+
+		FileStorageService.StoredFile stored = storage(s3).store("complaints/7/small.jpg", new ByteArrayInputStream(bytes), bytes.length, "image/jpeg");
+
+		// Hashed as the SDK streams the body
+		assertArrayEquals(bytes, sent[0]);
+		assertEquals(sha256(bytes), stored.sha256());
+		assertEquals(bytes.length, stored.size());
+		verify(s3).putObject(any(PutObjectRequest.class), argThat((RequestBody body) ->
+				body.optionalContentLength().orElse(-1L) == bytes.length));
+		verifyNoMoreInteractions(s3);
+	}
+
+	@Test
+	void movesLocalFilesIntoPlace() throws Exception {
+		byte[] bytes = photo(1000);
+		FileStorageService storage = storage(null);
+		storage.store("staging/u1", new ByteArrayInputStream(bytes), bytes.length, "image/jpeg");
+
+		storage.move("staging/u1", "objects/ab/abc.jpg");
+
+		assertFalse(Files.exists(dir.resolve("staging/u1")));
+		assertArrayEquals(bytes, Files.readAllBytes(dir.resolve("objects/ab/abc.jpg")));
+	}
+
+	@Test
+	void movesOnS3WithoutDownloading() throws Exception {
+		S3Client s3 = mock(S3Client.class);
+
+		storage(s3).move("staging/u1", "objects/ab/abc.jpg");
+
+		verify(s3).copyObject(argThat((CopyObjectRequest r) -> r.sourceBucket().equals("bucket")
+				&& r.sourceKey().equals("staging/u1") && r.destinationKey().equals("objects/ab/abc.jpg")));
+		verify(s3).deleteObject(argThat((DeleteObjectRequest r) -> r.key().equals("staging/u1")));
+		verifyNoMoreInteractions(s3);
+	}
+}
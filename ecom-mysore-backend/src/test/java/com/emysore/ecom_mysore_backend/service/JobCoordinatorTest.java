@@ -0,0 +1,104 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.EcomMysoreBackendApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Two application contexts sharing one H2 database stand in for two replicas. */
+class JobCoordinatorTest {
+
+	private static final String DATABASE = "jdbc:h2:mem:cluster;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+
+	private ConfigurableApplicationContext nodeA;
+	private ConfigurableApplicationContext nodeB;
+
+	@AfterEach
+	void stop() {
+		if (nodeB != null) {
+			nodeB.close();
+		}
+		if (nodeA != null) {
+			nodeA.close();
+		}
+	}
+
+	private static ConfigurableApplicationContext start(String nodeId, String ddlAuto) {
+		return new SpringApplicationBuilder(EcomMysoreBackendApplication.class)
+				.profiles("dev")
+				// Arguments, so they win over the profile's own properties
+				.run(
+						"--server.port=0",
+						"--spring.datasource.url=" + DATABASE,
+						// Only the first node creates the schema; the second must not drop it
+						"--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+						"--scheduler.nodeId=" + nodeId,
+						"--scheduler.lease.heartbeat=PT0.2S",
+						"--scheduler.lease.ttl=PT1S",
+						"--complaint.escalation.chunkSize=7");
+	}
+
+	private static void await(BooleanSupplier condition, String message) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!condition.getAsBoolean()) {
+			if (System.currentTimeMillis() > deadline) {
+				fail(message);
+			}
+			Thread.sleep(50);
+		}
+	}
+
+	private static void insertOverdue(JdbcTemplate jdbc, int count) {
+		LocalDateTime old = LocalDateTime.now().minusDays(5);
+		for (int i = 0; i < count; i++) {
+			jdbc.update("INSERT INTO complaints (title, status, escalated, escalation_level, max_escalation_level, created_at, updated_at, deadline) "
+					+ "VALUES ('Pothole', 'PENDING', false, 0, 1, ?, ?, ?)", old, old, old.plusDays(3));
+		}
+	}
+
+	@Test
+	void replicasSplitTheSweepAndEscalateEachComplaintOnce() throws Exception {
+		nodeA = start("node-a", "create-drop");
+		nodeB = start("node-b", "none");
+		JobCoordinator a = nodeA.getBean(JobCoordinator.class);
+		JobCoordinator b = nodeB.getBean(JobCoordinator.class);
+		await(() -> a.partition().count() == 2 && b.partition().count() == 2, "nodes did not see each other");
+		assertEquals(Set.of(0, 1), Set.of(a.partition().index(), b.partition().index()));
+
+		JdbcTemplate jdbc = nodeA.getBean(JdbcTemplate.class);
+		insertOverdue(jdbc, 40);
+
+		SlaEngine engineA = nodeA.getBean(SlaEngine.class);
+		SlaEngine engineB = nodeB.getBean(SlaEngine.class);
+		CompletableFuture<Integer> sweepA = CompletableFuture.supplyAsync(engineA::sweep);
+		CompletableFuture<Integer> sweepB = CompletableFuture.supplyAsync(engineB::sweep);
+		assertEquals(20, sweepA.get());
+		assertEquals(20, sweepB.get());
+		assertEquals(40, jdbc.queryForObject("SELECT COUNT(*) FROM complaint_audit_logs WHERE action = 'ESCALATED'", Integer.class));
+
+		// Both nodes sweeping everything still escalates each complaint once
+		insertOverdue(jdbc, 30);
+		CompletableFuture<Integer> allA = CompletableFuture.supplyAsync(
+				() -> nodeA.getBean(OverdueEscalationService.class).escalateDue(JobCoordinator.Partition.ALL).size());
+		CompletableFuture<Integer> allB = CompletableFuture.supplyAsync(
+				() -> nodeB.getBean(OverdueEscalationService.class).escalateDue(JobCoordinator.Partition.ALL).size());
+		assertEquals(30, allA.get() + allB.get());
+		assertEquals(70, jdbc.queryForObject("SELECT COUNT(*) FROM complaint_audit_logs WHERE action = 'ESCALATED'", Integer.class));
+
+		// A node that leaves hands its share back
+		nodeB.close();
+		nodeB = null;
+		await(() -> a.partition().count() == 1, "node-a did not take over the whole range");
+		insertOverdue(jdbc, 10);
+		assertEquals(10, engineA.sweep());
+	}
+}
@@ -0,0 +1,180 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Runs the client against a local {@link HttpServer} standing in for the ML service's /predict/batch. */
+class MLBatchClientTest {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private HttpServer mlService;
+	private ExecutorService serverThreads;
+	// Item count of every /predict/batch call, in arrival order
+	private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+	private volatile boolean dropLastPrediction;
+	private volatile CountDownLatch release = new CountDownLatch(0);
+	private final CountDownLatch firstRequest = new CountDownLatch(1);
+	private SimpleMeterRegistry registry;
+	private MLBatchClient client;
+
+	@BeforeEach
+	void startService() throws IOException {
+		mlService = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		serverThreads = Executors.newFixedThreadPool(8);
+		mlService.setExecutor(serverThreads);
+		mlService.createContext("/predict/batch", this::handle);
+		mlService.start();
+		registry = new SimpleMeterRegistry();
+	}
+
+	@AfterEach
+	void stop() {
+		release.countDown();
+		if (client != null) {
+			client.shutdown();
+		}
+		mlService.stop(0);
+		serverThreads.shutdownNow();
+	}
+
+	/** Echoes each item's title back as its category, so callers can tell whose prediction they got. */
+	private void handle(HttpExchange exchange) throws IOException {
+		JsonNode items = MAPPER.readTree(exchange.getRequestBody()).path("items");
+		batchSizes.add(items.size());
+		firstRequest.countDown();
+		try {
+			release.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		List<Map<String, Object>> predictions = new ArrayList<>();
+		for (JsonNode item : items) {
+			predictions.add(Map.of("category", item.path("title").asText(), "urgency", "MEDIUM"));
+		}
+		if (dropLastPrediction) {
+			predictions.remove(predictions.size() - 1);
+		}
+		byte[] body = MAPPER.writeValueAsBytes(Map.of("predictions", predictions));
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, body.length);
+		exchange.getResponseBody().write(body);
+		exchange.close();
+	}
+
+	private void start(int maxBatchSize, long maxWaitMillis, int queueCapacity, int maxInFlight) {
+		client = new MLBatchClient(new RestTemplate(), "http://localhost:" + mlService.getAddress().getPort() + "/predict/batch",
+			maxBatchSize, maxWaitMillis, queueCapacity, maxInFlight, registry);
+		client.start();
+	}
+
+	private List<CompletableFuture<MLPrediction>> submitMany(int count) {
+		List<CompletableFuture<MLPrediction>> futures = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			futures.add(client.submit("complaint-" + i, "description " + i));
+		}
+		return futures;
+	}
+
+	private double queueDepth() {
+		return registry.get("ml.batch.queue.depth").gauge().value();
+	}
+
+	@Test
+	void fullBatchesGoOutWithoutWaitingForTheLinger() throws Exception {
+		start(4, 5_000, 100, 4);
+		long start = System.nanoTime();
+		List<CompletableFuture<MLPrediction>> futures = submitMany(8);
+		CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+		assertEquals(List.of(4, 4), batchSizes);
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5_000, "full batches should not linger");
+	}
+
+	@Test
+	void partialBatchGoesOutAfterTheLinger() throws Exception {
+		start(32, 100, 100, 4);
+		long start = System.nanoTime();
+		List<CompletableFuture<MLPrediction>> futures = submitMany(3);
+		CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+		assertEquals(List.of(3), batchSizes);
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 90, "a partial batch waits out the linger");
+	}
+
+	@Test
+	void eachCallerGetsItsOwnPrediction() throws Exception {
+		start(5, 20, 100, 2);
+		List<CompletableFuture<MLPrediction>> futures = submitMany(12);
+
+		for (int i = 0; i < futures.size(); i++) {
+			assertEquals("complaint-" + i, futures.get(i).get(5, TimeUnit.SECONDS).category());
+		}
+		assertEquals(12, batchSizes.stream().mapToInt(Integer::intValue).sum());
+		assertTrue(batchSizes.stream().allMatch(size -> size <= 5), "batches " + batchSizes);
+	}
+
+	@Test
+	void responseSizeMismatchFailsEveryFutureInTheBatch() {
+		dropLastPrediction = true;
+		start(3, 5_000, 100, 4);
+		List<CompletableFuture<MLPrediction>> futures = submitMany(3);
+
+		for (CompletableFuture<MLPrediction> f : futures) {
+			ExecutionException e = assertThrows(ExecutionException.class, () -> f.get(5, TimeUnit.SECONDS));
+			assertInstanceOf(IllegalStateException.class, e.getCause());
+		}
+		assertEquals(List.of(3), batchSizes);
+	}
+
+	@Test
+	void fullQueueRejectsWhileEverySenderIsBusy() throws Exception {
+		release = new CountDownLatch(1);
+		start(1, 0, 2, 1);
+
+		// The only sender is stuck on the first call
+		CompletableFuture<MLPrediction> inFlight = client.submit("first", "");
+		assertTrue(firstRequest.await(5, TimeUnit.SECONDS));
+		// The collector holds the second batch while it waits for a sender
+		CompletableFuture<MLPrediction> held = client.submit("second", "");
+		for (int i = 0; i < 50 && queueDepth() > 0; i++) {
+			Thread.sleep(20);
+		}
+		List<CompletableFuture<MLPrediction>> queued = List.of(client.submit("third", ""), client.submit("fourth", ""));
+		assertEquals(2.0, queueDepth());
+
+		CompletableFuture<MLPrediction> rejected = client.submit("fifth", "");
+		ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+		assertInstanceOf(RejectedExecutionException.class, e.getCause());
+
+		release.countDown();
+		assertEquals("first", inFlight.get(5, TimeUnit.SECONDS).category());
+		assertEquals("second", held.get(5, TimeUnit.SECONDS).category());
+		assertEquals("third", queued.get(0).get(5, TimeUnit.SECONDS).category());
+		assertEquals("fourth", queued.get(1).get(5, TimeUnit.SECONDS).category());
+	}
+}
@@ -0,0 +1,109 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MLCircuitBreakerTest {
+
+	private final AtomicLong clock = new AtomicLong();
+	private final List<String> transitions = new ArrayList<>();
+	private MLCircuitBreaker breaker;
+
+	@BeforeEach
+	void setUp() {
+		// window of 10, opens at 50% failures after 4 calls, 1s open, 2 half-open trials
+		breaker = new MLCircuitBreaker(10, 4, 50, 1000, 2, clock::get,
+				(from, to) -> transitions.add(from + "->" + to));
+	}
+
+	@Test
+	void staysClosedBelowMinimumCalls() {
+		for (int i = 0; i < 3; i++) {
+			assertTrue(breaker.tryAcquirePermission());
+			breaker.onFailure();
+		}
+		assertEquals(MLCircuitBreaker.State.CLOSED, breaker.getState());
+	}
+
+	@Test
+	void opensAtFailureRateAndShortCircuits() {
+		breaker.onSuccess();
+		breaker.onSuccess();
+		breaker.onFailure();
+		breaker.onFailure();
+
+		assertEquals(MLCircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquirePermission());
+		assertEquals(List.of("CLOSED->OPEN"), transitions);
+	}
+
+	@Test
+	void halfOpenClosesAfterSuccessfulTrials() {
+		tripOpen();
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+
+		assertTrue(breaker.tryAcquirePermission());
+		assertTrue(breaker.tryAcquirePermission());
+		assertFalse(breaker.tryAcquirePermission(), "only two trial calls allowed");
+		assertEquals(MLCircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+		breaker.onSuccess();
+		breaker.onSuccess();
+		assertEquals(MLCircuitBreaker.State.CLOSED, breaker.getState());
+		assertEquals(List.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), transitions);
+	}
+
+	@Test
+	void halfOpenFailureReopens() {
+		tripOpen();
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1500));
+
+		assertTrue(breaker.tryAcquirePermission());
+		breaker.onFailure();
+
+		assertEquals(MLCircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquirePermission());
+	}
+
+	@Test
+	void releasedTrialPermitIsIssuedAgain() {
+		tripOpen();
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+
+		assertTrue(breaker.tryAcquirePermission());
+		assertTrue(breaker.tryAcquirePermission());
+		breaker.releasePermission();
+		assertTrue(breaker.tryAcquirePermission(), "the unused trial can be handed out again");
+
+		breaker.onSuccess();
+		breaker.onSuccess();
+		assertEquals(MLCircuitBreaker.State.CLOSED, breaker.getState());
+	}
+
+	@Test
+	void slidingWindowForgetsOldFailures() {
+		breaker = new MLCircuitBreaker(4, 4, 75, 1000, 1, clock::get, (from, to) -> {});
+		breaker.onFailure();
+		breaker.onFailure();
+		breaker.onSuccess();
+		breaker.onSuccess();
+		// window is now [F, F, S, S]; the next success pushes out one failure
+		breaker.onSuccess();
+		breaker.onFailure();
+		assertEquals(MLCircuitBreaker.State.CLOSED, breaker.getState());
+	}
+
+	private void tripOpen() {
+		for (int i = 0; i < 4; i++) {
+			breaker.onFailure();
+		}
+		assertEquals(MLCircuitBreaker.State.OPEN, breaker.getState());
+	}
+}
@@ -0,0 +1,148 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MLPredictionCacheTest {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final MLPrediction POTHOLE = new MLPrediction("Roads", "HIGH", "NEGATIVE", 0.9,
+			"MCC – Engineering (Roads) Section", List.of("Assistant Engineer (AE)", "PWD"));
+
+	private final AtomicLong now = new AtomicLong();
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final Locale defaultLocale = Locale.getDefault();
+
+	@AfterEach
+	void restoreLocale() {
+		Locale.setDefault(defaultLocale);
+	}
+
+	private MLPredictionCache cache(int maxEntries, boolean redisEnabled, StringRedisTemplate redis) {
+		MLPredictionCache cache = new MLPredictionCache(maxEntries, Duration.ofMinutes(10), redisEnabled, registry, now::get);
+		ReflectionTestUtils.setField(cache, "objectMapper", MAPPER);
+		ReflectionTestUtils.setField(cache, "redisTemplate", redis);
+		return cache;
+	}
+
+	private static MLPrediction prediction(String category) {
+		return new MLPrediction(category, "MEDIUM", "NEUTRAL", 0.5, null, null);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static StringRedisTemplate redis(ValueOperations<String, String> ops) {
+		StringRedisTemplate redis = mock(StringRedisTemplate.class);
+		when(redis.opsForValue()).thenReturn(ops);
+		return redis;
+	}
+
+	@Test
+	void entriesExpireAfterTheTtl() {
+		MLPredictionCache cache = cache(100, false, null);
+		cache.put("k", POTHOLE);
+
+		now.addAndGet(Duration.ofMinutes(10).minusNanos(1).toNanos());
+		assertEquals(POTHOLE, cache.get("k"));
+		now.addAndGet(1);
+		assertNull(cache.get("k"));
+		assertEquals(1.0, registry.get("ml.cache.evictions").counter().count());
+	}
+
+	@Test
+	void evictsTheLeastRecentlyUsedEntryAtCapacity() {
+		MLPredictionCache cache = cache(2, false, null);
+		cache.put("a", prediction("A"));
+		cache.put("b", prediction("B"));
+		// Reading a makes b the least recently used
+		assertNotNull(cache.get("a"));
+		cache.put("c", prediction("C"));
+
+		assertNull(cache.get("b"));
+		assertEquals("A", cache.get("a").category());
+		assertEquals("C", cache.get("c").category());
+		assertEquals(2.0, registry.get("ml.cache.size").gauge().value());
+	}
+
+	@Test
+	void expiredEntriesAreEvictedBeforeLiveOnes() {
+		MLPredictionCache cache = cache(2, false, null);
+		cache.put("old", prediction("OLD"));
+		now.addAndGet(Duration.ofMinutes(6).toNanos());
+		cache.put("live", prediction("LIVE"));
+		// old is more recently used than live, but has expired by the time c arrives
+		assertNotNull(cache.get("old"));
+		now.addAndGet(Duration.ofMinutes(5).toNanos());
+		cache.put("c", prediction("C"));
+
+		assertEquals("LIVE", cache.get("live").category());
+		assertEquals("C", cache.get("c").category());
+	}
+
+	@Test
+	void equivalentReportsShareAKey() {
+		String key = MLPredictionCache.keyFor("Pothole on MG Road!", "Huge   pothole, near the café.");
+		assertEquals(key, MLPredictionCache.keyFor("  pothole on mg road ", "HUGE pothole near the cafe"));
+		assertEquals(key, MLPredictionCache.keyFor("POTHOLE—ON—MG—ROAD", "huge pothole; near the CAFÉ"));
+		assertNotEquals(key, MLPredictionCache.keyFor("Pothole on MG Road", "Small pothole near the cafe"));
+		// Title and description stay apart
+		assertNotEquals(MLPredictionCache.keyFor("water leak", ""), MLPredictionCache.keyFor("water", "leak"));
+	}
+
+	@Test
+	void keysDoNotDependOnTheDefaultLocale() {
+		String key = MLPredictionCache.keyFor("STREET LIGHT", "LIGHT IS OFF");
+		Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+		assertEquals("street light", MLPredictionCache.normalize("STREET LIGHT"));
+		assertEquals(key, MLPredictionCache.keyFor("STREET LIGHT", "LIGHT IS OFF"));
+	}
+
+	@Test
+	void worksLocallyWhenRedisIsEnabledButAbsent() {
+		MLPredictionCache cache = cache(100, true, null);
+		cache.put("k", POTHOLE);
+
+		assertEquals(POTHOLE, cache.get("k"));
+		assertNull(cache.get("missing"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void redisFailuresFallBackToTheLocalTier() {
+		ValueOperations<String, String> ops = mock(ValueOperations.class);
+		doThrow(new RedisConnectionFailureException("down")).when(ops).set(anyString(), anyString(), any(Duration.class));
+		when(ops.get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+		MLPredictionCache cache = cache(100, true, redis(ops));
+
+		cache.put("k", POTHOLE);
+		assertEquals(POTHOLE, cache.get("k"));
+		assertNull(cache.get("missing"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void redisHitsArePromotedToTheLocalTier() throws Exception {
+		ValueOperations<String, String> ops = mock(ValueOperations.class);
+		when(ops.get("ml:prediction:k")).thenReturn(MAPPER.writeValueAsString(POTHOLE));
+		MLPredictionCache cache = cache(100, true, redis(ops));
+
+		assertEquals(POTHOLE, cache.get("k"));
+		when(ops.get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+		assertEquals(POTHOLE, cache.get("k"));
+		verify(ops, times(1)).get("ml:prediction:k");
+	}
+}
@@ -0,0 +1,51 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:ml-bulkhead;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+		// Nothing listens here, so every call fails fast
+		"ml.service.url=http://localhost:1",
+		"ml.batch.enabled=false",
+		"ml.breaker.windowSize=1",
+		"ml.breaker.minimumCalls=1",
+		"ml.breaker.openDurationMs=200",
+		"ml.breaker.halfOpenPermits=1",
+		"ml.bulkhead.maxConcurrent=1",
+		"ml.bulkhead.maxWaitMs=10"
+})
+@ActiveProfiles("dev")
+class MLServiceBulkheadTest {
+
+	@Autowired
+	private MLService mlService;
+
+	@Test
+	void fullBulkheadDoesNotStrandTheHalfOpenTrial() throws Exception {
+		assertNull(mlService.predictIfAvailable("Pothole", "Near the bus stop"));
+		assertEquals(MLCircuitBreaker.State.OPEN, mlService.circuitBreakerState());
+		Thread.sleep(300);
+
+		Semaphore bulkhead = (Semaphore) ReflectionTestUtils.getField(mlService, "bulkhead");
+		bulkhead.acquire();
+		try {
+			// Takes the only trial permit, then gives up waiting for the bulkhead
+			assertNull(mlService.predictIfAvailable("Water leak", "Pipe burst on 4th cross"));
+			assertEquals(MLCircuitBreaker.State.HALF_OPEN, mlService.circuitBreakerState());
+		} finally {
+			bulkhead.release();
+		}
+
+		// The trial is still available, so this call reaches the service and its failure re-opens the breaker
+		assertNull(mlService.predictIfAvailable("Streetlight", "Dark since Monday"));
+		assertEquals(MLCircuitBreaker.State.OPEN, mlService.circuitBreakerState());
+	}
+}
@@ -0,0 +1,50 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs MLService against a slow local ml_stub.py. Start the stub with injected latency above the
+ * configured timeout, then point the test at it:
+ * <pre>
+ *   ML_STUB_LATENCY_MS=2000 python3 ml_stub.py
+ *   ML_STUB_URL=http://localhost:8000 ./mvnw test -Dtest=MLServiceStubLatencyTest
+ * </pre>
+ */
+@SpringBootTest(properties = {
+		"ml.service.url=${ML_STUB_URL}",
+		"ml.service.timeout=300",
+		"ml.breaker.windowSize=10",
+		"ml.breaker.minimumCalls=4",
+		"ml.breaker.openDurationMs=60000",
+		"ml.classifier.localFallback=false"
+})
+@ActiveProfiles("dev")
+@EnabledIfEnvironmentVariable(named = "ML_STUB_URL", matches = ".+")
+class MLServiceStubLatencyTest {
+
+	@Autowired
+	private MLService mlService;
+
+	@Test
+	void slowModelTripsBreakerAndShortCircuitsToDefaults() {
+		// Distinct texts so the prediction cache never answers
+		for (int i = 0; i < 4; i++) {
+			MLPrediction p = mlService.predict("Pothole " + i, "Large pothole near bus stop " + i);
+			assertEquals("MEDIUM", p.urgency(), "timed-out call falls back to defaults");
+		}
+		assertEquals(MLCircuitBreaker.State.OPEN, mlService.circuitBreakerState());
+
+		long start = System.nanoTime();
+		MLPrediction p = mlService.predict("Water leak", "Pipe burst on 4th cross");
+		long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+		assertEquals("NEUTRAL", p.sentiment());
+		assertTrue(elapsedMs < 100, "open breaker should not wait for the ML service, took " + elapsedMs + "ms");
+	}
+}
@@ -0,0 +1,195 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MailBatchDispatcherTest {
+
+	private SmtpStub smtp;
+	private JavaMailSenderImpl mailSender;
+	private SimpleMeterRegistry registry;
+	private MailBatchDispatcher dispatcher;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		smtp = new SmtpStub();
+		mailSender = new JavaMailSenderImpl();
+		mailSender.setHost("localhost");
+		mailSender.setPort(smtp.port());
+		registry = new SimpleMeterRegistry();
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		if (dispatcher != null) {
+			dispatcher.shutdown();
+		}
+		smtp.close();
+	}
+
+	private void start(int maxBatchSize, int sessions, double domainRate, int domainBurst) {
+		dispatcher = new MailBatchDispatcher(mailSender, 100, maxBatchSize, sessions, domainRate, domainBurst, 1000, registry);
+		dispatcher.start();
+	}
+
+	private CompletableFuture<Void> submit(String to) throws MessagingException {
+		MimeMessage message = mailSender.createMimeMessage();
+		MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+		helper.setFrom("noreply@e-mysore.test");
+		helper.setTo(to);
+		helper.setSubject("Complaint update");
+		helper.setText("Status changed");
+		return dispatcher.submit(message, to);
+	}
+
+	@Test
+	void burstSharesSmtpSessions() throws Exception {
+		start(50, 2, 0, 0);
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (int i = 0; i < 120; i++) {
+			futures.add(submit("citizen" + i + "@example" + (i % 7) + ".test"));
+		}
+		CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+		assertEquals(120, smtp.messages.get());
+		assertTrue(smtp.connections.get() <= 4, "expected a handful of sessions, got " + smtp.connections.get());
+		assertEquals(120.0, registry.get("mail.dispatch.sent").counter().count());
+		assertTrue(registry.get("mail.dispatch.batch.size").summary().max() <= 50);
+	}
+
+	@Test
+	void rejectedRecipientFailsOnlyItsOwnMessage() throws Exception {
+		start(50, 1, 0, 0);
+		CompletableFuture<Void> ok = submit("a@example.test");
+		CompletableFuture<Void> bounced = submit("bounce@example.test");
+		CompletableFuture<Void> alsoOk = submit("b@example.test");
+
+		ok.get(5, TimeUnit.SECONDS);
+		alsoOk.get(5, TimeUnit.SECONDS);
+		assertThrows(ExecutionException.class, () -> bounced.get(5, TimeUnit.SECONDS));
+		assertEquals(1, smtp.connections.get());
+		assertEquals(2, smtp.messages.get());
+		assertEquals(1.0, registry.get("mail.dispatch.failed").counter().count());
+	}
+
+	@Test
+	void busyDomainIsThrottledWithoutHoldingBackOthers() throws Exception {
+		// 10 per second with a burst of 5: the second half of the busy domain waits ~0.5s
+		start(50, 2, 10, 5);
+		long start = System.nanoTime();
+		List<CompletableFuture<Void>> busy = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			busy.add(submit("user" + i + "@busy.test"));
+		}
+		CompletableFuture<Void> other = submit("someone@quiet.test");
+
+		other.get(5, TimeUnit.SECONDS);
+		long otherMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		CompletableFuture.allOf(busy.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+		long busyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertTrue(otherMs < 400, "other domain went out in the first window, took " + otherMs + "ms");
+		assertTrue(busyMs >= 400, "busy domain should be spread out, took " + busyMs + "ms");
+		assertTrue(registry.get("mail.dispatch.rate_limited").counter().count() >= 5);
+		assertEquals(11, smtp.messages.get());
+	}
+
+	/** Minimal SMTP server: accepts everything except recipients starting with "bounce". */
+	static class SmtpStub implements AutoCloseable {
+		final AtomicInteger connections = new AtomicInteger();
+		final AtomicInteger messages = new AtomicInteger();
+		private final ServerSocket server;
+		private final List<Socket> clients = new CopyOnWriteArrayList<>();
+
+		SmtpStub() throws IOException {
+			server = new ServerSocket(0);
+			Thread acceptor = new Thread(this::acceptLoop, "smtp-stub");
+			acceptor.setDaemon(true);
+			acceptor.start();
+		}
+
+		int port() {
+			return server.getLocalPort();
+		}
+
+		private void acceptLoop() {
+			while (!server.isClosed()) {
+				try {
+					Socket socket = server.accept();
+					clients.add(socket);
+					connections.incrementAndGet();
+					Thread handler = new Thread(() -> handle(socket), "smtp-stub-session");
+					handler.setDaemon(true);
+					handler.start();
+				} catch (IOException e) {
+					return;
+				}
+			}
+		}
+
+		private void handle(Socket socket) {
+			try (socket;
+				 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+				 PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+				reply(out, "220 localhost ESMTP stub");
+				String line;
+				while ((line = in.readLine()) != null) {
+					String command = line.toUpperCase();
+					if (command.startsWith("RCPT TO:") && command.contains("<BOUNCE")) {
+						reply(out, "550 mailbox unavailable");
+					} else if (command.equals("DATA")) {
+						reply(out, "354 end with <CRLF>.<CRLF>");
+						while ((line = in.readLine()) != null && !line.equals(".")) {
+							// discard body
+						}
+						messages.incrementAndGet();
+						reply(out, "250 queued");
+					} else if (command.equals("QUIT")) {
+						reply(out, "221 bye");
+						return;
+					} else {
+						reply(out, "250 OK");
+					}
+				}
+			} catch (IOException e) {
+				// client went away
+			}
+		}
+
+		private static void reply(PrintWriter out, String line) {
+			out.print(line + "\r\n");
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			server.close();
+			for (Socket s : clients) {
+				s.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.Notification;
+import com.emysore.ecom_mysore_backend.model.NotificationOutbox;
+import com.emysore.ecom_mysore_backend.model.User;
+import com.emysore.ecom_mysore_backend.repository.NotificationOutboxRepository;
+import com.emysore.ecom_mysore_backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Uses its own in-memory database: other cached test contexts run their own outbox poller, which
+ * would otherwise claim these rows with the default backoff and real senders.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:outbox;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+		"notification.outbox.initialBackoff=PT0.05S",
+		"notification.outbox.maxBackoff=PT0.2S",
+		"notification.outbox.maxAttempts=3",
+		"notification.outbox.pollInterval=PT0.1S"
+})
+@ActiveProfiles("dev")
+class NotificationOutboxServiceTest {
+
+	@MockitoBean
+	private EmailService emailService;
+
+	@MockitoBean
+	private SMSService smsService;
+
+	@Autowired
+	private NotificationService notificationService;
+
+	@Autowired
+	private NotificationOutboxService outboxService;
+
+	@Autowired
+	private NotificationOutboxRepository outboxRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private User citizen;
+
+	@BeforeEach
+	void setUp() {
+		outboxRepository.deleteAll();
+		String name = "citizen-" + UUID.randomUUID();
+		citizen = new User();
+		citizen.setUsername(name);
+		citizen.setPassword("x");
+		citizen.setEmail(name + "@example.com");
+		citizen.setPhone("9999999999");
+		citizen = userRepository.save(citizen);
+		when(emailService.sendEmailAsync(anyString(), anyString(), anyString(), anyString()))
+				.thenReturn(CompletableFuture.completedFuture(null));
+		when(smsService.sendSMSAsync(anyString(), anyString(), anyString()))
+				.thenReturn(CompletableFuture.completedFuture(null));
+	}
+
+	@Test
+	void deliversAfterCommitWithDeliveryKeys() {
+		Notification n = new TransactionTemplate(transactionManager).execute(status -> {
+			Notification created = notificationService.createNotification(citizen, "Filed", "Complaint #1 filed",
+					Notification.NotificationType.COMPLAINT_CREATED);
+			// still inside the transaction: nothing sent yet
+			verifyNoInteractions(emailService, smsService);
+			return created;
+		});
+
+		await(() -> outboxRepository.findAll().stream().allMatch(r -> r.getStatus() == NotificationOutbox.Status.SENT)
+				&& outboxRepository.count() == 2);
+		verify(emailService).sendEmailAsync(citizen.getEmail(), "Filed", "Complaint #1 filed", "notification-" + n.getId() + "-email");
+		verify(smsService).sendSMSAsync("9999999999", "Filed: Complaint #1 filed", "notification-" + n.getId() + "-sms");
+	}
+
+	@Test
+	void rollbackLeavesNothingToSend() {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			notificationService.sendDirectContactNotification("dept@example.com", null, "Assigned", "Complaint #2");
+			status.setRollbackOnly();
+		});
+		outboxService.drain();
+
+		assertEquals(0, outboxRepository.count());
+		verifyNoInteractions(emailService);
+	}
+
+	@Test
+	void retriesWithBackoffThenSucceeds() {
+		when(emailService.sendEmailAsync(anyString(), anyString(), anyString(), anyString()))
+				.thenReturn(CompletableFuture.failedFuture(new RuntimeException("smtp down")))
+				.thenReturn(CompletableFuture.failedFuture(new RuntimeException("smtp down")))
+				.thenReturn(CompletableFuture.completedFuture(null));
+
+		notificationService.sendDirectContactNotification("dept@example.com", null, "Escalated", "Complaint #3");
+
+		await(() -> outboxRepository.findAll().stream().allMatch(r -> r.getStatus() == NotificationOutbox.Status.SENT));
+		NotificationOutbox row = outboxRepository.findAll().get(0);
+		assertEquals(3, row.getAttempts());
+		assertNull(row.getLastError());
+		verify(emailService, times(3)).sendEmailAsync(eq("dept@example.com"), eq("Escalated"), eq("Complaint #3"), eq(row.getDeliveryKey()));
+	}
+
+	@Test
+	void givesUpAfterMaxAttempts() {
+		when(emailService.sendEmailAsync(anyString(), anyString(), anyString(), anyString()))
+				.thenReturn(CompletableFuture.failedFuture(new RuntimeException("mailbox unavailable")));
+
+		notificationService.sendDirectContactNotification("gone@example.com", null, "Update", "Complaint #4");
+
+		await(() -> outboxRepository.findAll().stream().allMatch(r -> r.getStatus() == NotificationOutbox.Status.FAILED));
+		NotificationOutbox row = outboxRepository.findAll().get(0);
+		assertEquals(3, row.getAttempts());
+		assertEquals("mailbox unavailable", row.getLastError());
+	}
+
+	@Test
+	void duplicateDeliveryKeyIsQueuedOnce() {
+		outboxService.enqueue(NotificationOutbox.Channel.SMS, "8888888888", null, "hello", "dup-key");
+		outboxService.enqueue(NotificationOutbox.Channel.SMS, "8888888888", null, "hello", "dup-key");
+
+		await(() -> outboxRepository.findAll().stream().allMatch(r -> r.getStatus() == NotificationOutbox.Status.SENT));
+		List<NotificationOutbox> rows = outboxRepository.findAll();
+		assertEquals(1, rows.size());
+		verify(smsService, times(1)).sendSMSAsync("8888888888", "hello", "dup-key");
+	}
+
+	@Test
+	void concurrentWritersOfOneDeliveryKeyBothCommit() throws Exception {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		CountDownLatch firstInserted = new CountDownLatch(1);
+		CountDownLatch secondStarted = new CountDownLatch(1);
+		// The first writer's row is not yet visible when the second one inserts the same key
+		CompletableFuture<Void> first = CompletableFuture.runAsync(() -> tx.executeWithoutResult(status -> {
+			outboxService.enqueue(NotificationOutbox.Channel.SMS, "7777777777", null, "first", "race-key");
+			firstInserted.countDown();
+			try {
+				secondStarted.await(5, TimeUnit.SECONDS);
+				Thread.sleep(200);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}));
+		assertTrue(firstInserted.await(5, TimeUnit.SECONDS));
+		Notification second = tx.execute(status -> {
+			secondStarted.countDown();
+			outboxService.enqueue(NotificationOutbox.Channel.SMS, "7777777777", null, "second", "race-key");
+			return notificationService.createNotification(citizen, "Filed", "Complaint #5 filed",
+					Notification.NotificationType.COMPLAINT_CREATED);
+		});
+		first.get(10, TimeUnit.SECONDS);
+
+		assertNotNull(second.getId());
+		await(() -> outboxRepository.findAll().stream().allMatch(r -> r.getStatus() == NotificationOutbox.Status.SENT));
+		assertEquals(1, outboxRepository.findAll().stream().filter(r -> "race-key".equals(r.getDeliveryKey())).count());
+		verify(smsService, times(1)).sendSMSAsync("7777777777", "first", "race-key");
+	}
+
+	private static void await(BooleanSupplier condition) {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < deadline, "condition not met within 10s");
+			try {
+				Thread.sleep(20);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				fail(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.Complaint;
+import com.emysore.ecom_mysore_backend.model.Department;
+import com.emysore.ecom_mysore_backend.model.User;
+import com.emysore.ecom_mysore_backend.repository.ComplaintRepository;
+import com.emysore.ecom_mysore_backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:escalation;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+		"complaint.escalation.chunkSize=7"
+})
+@ActiveProfiles("dev")
+class OverdueEscalationServiceTest {
+
+	@MockitoBean
+	private EmailService emailService;
+
+	@MockitoBean
+	private SMSService smsService;
+
+	@Autowired
+	private ComplaintService complaintService;
+
+	@Autowired
+	private ComplaintRepository complaintRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private DepartmentService departmentService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final List<Long> overdueIds = new ArrayList<>();
+
+	@BeforeEach
+	void seed() {
+		when(emailService.sendEmailAsync(anyString(), anyString(), anyString(), anyString()))
+				.thenReturn(CompletableFuture.completedFuture(null));
+		when(smsService.sendSMSAsync(anyString(), anyString(), anyString()))
+				.thenReturn(CompletableFuture.completedFuture(null));
+		jdbcTemplate.update("DELETE FROM notification_outbox");
+		jdbcTemplate.update("DELETE FROM notifications");
+		jdbcTemplate.update("DELETE FROM complaint_audit_logs");
+		complaintRepository.deleteAll();
+
+		if (departmentService.findByName("Roads") == null) {
+			Department roads = new Department();
+			roads.setName("Roads");
+			roads.setContactEmail("roads@mysore.test");
+			departmentService.create(roads);
+		}
+		User citizen = userRepository.findByUsername("overdue-citizen").orElseGet(() -> {
+			User u = new User();
+			u.setUsername("overdue-citizen");
+			u.setPassword("x");
+			u.setEmail("citizen@mysore.test");
+			u.setPhone("9876543210");
+			return userRepository.save(u);
+		});
+
+		LocalDateTime old = LocalDateTime.now().minusDays(5);
+		List<Complaint> complaints = new ArrayList<>();
+		for (int i = 0; i < 25; i++) {
+			complaints.add(complaint(citizen, "PENDING", false, old.plusMinutes(i), "Roads"));
+		}
+		complaints.add(complaint(citizen, "PENDING", true, old, "Roads"));      // already escalated
+		complaints.add(complaint(citizen, "RESOLVED", false, old, "Roads"));    // not pending
+		complaints.add(complaint(citizen, "PENDING", false, LocalDateTime.now().minusHours(2), null)); // not overdue
+		complaintRepository.saveAll(complaints);
+		overdueIds.clear();
+		complaints.subList(0, 25).forEach(c -> overdueIds.add(c.getId()));
+	}
+
+	private static Complaint complaint(User user, String status, boolean escalated, LocalDateTime createdAt, String dept) {
+		Complaint c = new Complaint();
+		c.setTitle("Pothole");
+		c.setUser(user);
+		c.setStatus(status);
+		c.setEscalated(escalated);
+		c.setEscalationLevel(escalated ? 1 : 0);
+		c.setCreatedAt(createdAt);
+		c.setAssignedDept(dept);
+		return c;
+	}
+
+	@Test
+	void escalatesEachOverdueComplaintOnceInChunks() {
+		assertEquals(25, complaintService.escalateOverdue());
+
+		List<Long> escalated = jdbcTemplate.queryForList(
+				"SELECT id FROM complaints WHERE escalated = true AND status = 'PENDING' AND created_at > ? ORDER BY id",
+				Long.class, LocalDateTime.now().minusDays(6));
+		assertTrue(escalated.containsAll(overdueIds));
+		assertEquals(26, escalated.size(), "25 new plus the one escalated before");
+		assertEquals(25, count("SELECT COUNT(*) FROM complaint_audit_logs WHERE action = 'ESCALATED'"));
+		assertEquals(25, count("SELECT COUNT(*) FROM notifications WHERE type = 'COMPLAINT_ESCALATED'"));
+		assertEquals(25, count("SELECT COUNT(*) FROM notification_outbox WHERE delivery_key LIKE 'escalation-%-email' AND delivery_key NOT LIKE '%-dept-%'"));
+		assertEquals(25, count("SELECT COUNT(*) FROM notification_outbox WHERE delivery_key LIKE 'escalation-%-sms'"));
+		assertEquals(25, count("SELECT COUNT(*) FROM notification_outbox WHERE recipient = 'roads@mysore.test'"));
+
+		// The next tick finds nothing left to do
+		assertEquals(0, complaintService.escalateOverdue());
+		assertEquals(25, count("SELECT COUNT(*) FROM complaint_audit_logs WHERE action = 'ESCALATED'"));
+		assertEquals(75, count("SELECT COUNT(*) FROM notification_outbox"));
+	}
+
+	private int count(String sql) {
+		return jdbcTemplate.queryForObject(sql, Integer.class);
+	}
+}
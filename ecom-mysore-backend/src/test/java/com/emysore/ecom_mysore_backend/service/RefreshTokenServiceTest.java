@@ -0,0 +1,59 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:refresh;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("dev")
+class RefreshTokenServiceTest {
+
+	@Autowired
+	private RefreshTokenService refreshTokenService;
+
+	@Autowired
+	private UserService userService;
+
+	private User user(String username) {
+		return userService.findByUsername(username).orElseGet(() -> userService.register(username, "secret"));
+	}
+
+	@Test
+	void eachRefreshTokenWorksOnce() {
+		String first = refreshTokenService.issue(user("rotating-citizen"));
+
+		Optional<RefreshTokenService.Rotation> rotation = refreshTokenService.rotate(first);
+		assertTrue(rotation.isPresent());
+		assertEquals("rotating-citizen", rotation.get().user().getUsername());
+		assertNotEquals(first, rotation.get().refreshToken());
+
+		String second = rotation.get().refreshToken();
+		assertTrue(refreshTokenService.rotate(second).isPresent());
+		assertTrue(refreshTokenService.rotate("made-up").isEmpty());
+	}
+
+	@Test
+	void replayingAUsedTokenRevokesTheWholeLogin() {
+		User user = user("replayed-citizen");
+		String stolen = refreshTokenService.issue(user);
+		String next = refreshTokenService.rotate(stolen).orElseThrow().refreshToken();
+		String otherLogin = refreshTokenService.issue(user);
+
+		assertTrue(refreshTokenService.rotate(stolen).isEmpty());
+		assertTrue(refreshTokenService.rotate(next).isEmpty(), "successor revoked with its family");
+		assertTrue(refreshTokenService.rotate(otherLogin).isPresent(), "other logins are untouched");
+	}
+
+	@Test
+	void logoutRevokesTheLogin() {
+		String token = refreshTokenService.issue(user("leaving-citizen"));
+		refreshTokenService.revoke(token);
+		assertTrue(refreshTokenService.rotate(token).isEmpty());
+	}
+}
@@ -0,0 +1,169 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.Complaint;
+import com.emysore.ecom_mysore_backend.repository.ComplaintRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:sla;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+		"complaint.sla.tick=PT0.05S",
+		"complaint.sla.departments={'Water Supply':'P1D'}",
+		"complaint.sla.urgencyFactors={HIGH:0.5,LOW:2.0}",
+		"complaint.sla.levels=PT1S,P1D"
+})
+@ActiveProfiles("dev")
+class SlaEngineTest {
+
+	@MockitoBean
+	private EmailService emailService;
+
+	@MockitoBean
+	private SMSService smsService;
+
+	@Autowired
+	private SlaEngine slaEngine;
+
+	@Autowired
+	private SlaPolicy slaPolicy;
+
+	@Autowired
+	private ComplaintRepository complaintRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void clean() {
+		jdbcTemplate.update("DELETE FROM notification_outbox");
+		jdbcTemplate.update("DELETE FROM notifications");
+		jdbcTemplate.update("DELETE FROM complaint_audit_logs");
+		complaintRepository.deleteAll();
+	}
+
+	private Complaint pending(LocalDateTime deadline) {
+		Complaint c = new Complaint();
+		c.setTitle("Streetlight out");
+		c.setStatus("PENDING");
+		c.setDeadline(deadline);
+		return complaintRepository.save(c);
+	}
+
+	private boolean escalated(Long id) {
+		return complaintRepository.findById(id).orElseThrow().isEscalated();
+	}
+
+	@Test
+	void deadlineFollowsDepartmentAndUrgencyRules() {
+		LocalDateTime created = LocalDateTime.of(2025, 1, 1, 9, 0);
+		assertEquals(created.plusDays(3), slaPolicy.deadlineFor(created, "Roads", "Standard"));
+		assertEquals(created.plusDays(1), slaPolicy.deadlineFor(created, "water supply", null));
+		assertEquals(created.plusHours(12), slaPolicy.deadlineFor(created, "Water Supply", "high"));
+		assertEquals(created.plusDays(6), slaPolicy.deadlineFor(created, null, "LOW"));
+	}
+
+	@Test
+	void escalatesCloseToTheDeadline() throws InterruptedException {
+		LocalDateTime deadline = LocalDateTime.now().plusSeconds(1);
+		Complaint complaint = pending(deadline);
+		slaEngine.scheduleAfterCommit(complaint.getId(), deadline);
+
+		Thread.sleep(800);
+		assertFalse(escalated(complaint.getId()), "escalated before its deadline");
+
+		long waited = 0;
+		while (!escalated(complaint.getId()) && waited < 5_000) {
+			Thread.sleep(20);
+			waited += 20;
+		}
+		assertTrue(escalated(complaint.getId()));
+		LocalDateTime escalatedAt = jdbcTemplate.queryForObject(
+				"SELECT updated_at FROM complaints WHERE id = ?", LocalDateTime.class, complaint.getId());
+		assertFalse(escalatedAt.isBefore(deadline));
+		assertTrue(Duration.between(deadline, escalatedAt).toMillis() < 1_000, "late by " + Duration.between(deadline, escalatedAt));
+		assertEquals(1, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM complaint_audit_logs WHERE complaint_id = ? AND action = 'ESCALATED'", Integer.class, complaint.getId()));
+	}
+
+	@Test
+	void walksTheDepartmentHierarchyOneLevelPerDeadline() throws InterruptedException {
+		Complaint complaint = new Complaint();
+		complaint.setTitle("Water main burst");
+		complaint.setStatus("PENDING");
+		complaint.setDepartmentHierarchy("AE > JE > EE > Commissioner");
+		complaint.setMaxEscalationLevel(SlaPolicy.maxEscalationLevel(4));
+		complaint.setDeadline(LocalDateTime.now().plusNanos(200_000_000));
+		complaint = complaintRepository.save(complaint);
+		slaEngine.scheduleAfterCommit(complaint.getId(), complaint.getDeadline());
+
+		// Level 1 (JE) gets one second, then level 2 (EE) a day
+		long waited = 0;
+		while (level(complaint.getId()) < 2 && waited < 5_000) {
+			Thread.sleep(20);
+			waited += 20;
+		}
+		Complaint escalated = complaintRepository.findById(complaint.getId()).orElseThrow();
+		assertEquals(2, escalated.getEscalationLevel());
+		assertTrue(escalated.isEscalated());
+		assertTrue(escalated.getDeadline().isAfter(LocalDateTime.now().plusHours(23)));
+		assertEquals(List.of("AE>JE", "JE>EE"), jdbcTemplate.queryForList(
+				"SELECT old_value || '>' || new_value FROM complaint_audit_logs WHERE complaint_id = ? AND action = 'ESCALATED' ORDER BY id",
+				String.class, complaint.getId()));
+	}
+
+	@Test
+	void stopsAtTheTopOfTheHierarchy() {
+		Complaint complaint = new Complaint();
+		complaint.setTitle("Garbage not collected");
+		complaint.setStatus("PENDING");
+		complaint.setDepartmentHierarchy("JE > EE");
+		complaint.setMaxEscalationLevel(SlaPolicy.maxEscalationLevel(2));
+		complaint.setDeadline(LocalDateTime.now().minusMinutes(1));
+		complaint = complaintRepository.save(complaint);
+
+		assertEquals(1, slaEngine.sweep());
+		Complaint top = complaintRepository.findById(complaint.getId()).orElseThrow();
+		assertEquals(1, top.getEscalationLevel());
+		assertNull(top.getDeadline());
+		assertEquals(0, slaEngine.sweep());
+	}
+
+	private int level(Long id) {
+		return complaintRepository.findById(id).orElseThrow().getEscalationLevel();
+	}
+
+	@Test
+	void rebuildLoadsTimersWithinTheHorizonFromTheDatabase() throws InterruptedException {
+		// A timer from an earlier partition, or for a complaint since deleted
+		slaEngine.schedule(Long.MAX_VALUE, LocalDateTime.now().plusHours(1));
+		Complaint overdue = pending(LocalDateTime.now().minusHours(1));
+		Complaint dueSoon = pending(LocalDateTime.now().plusDays(2));
+		Complaint farOut = pending(LocalDateTime.now().plusDays(30));
+		Complaint backfilled = pending(null);
+
+		slaEngine.rebuild();
+
+		long waited = 0;
+		while (!escalated(overdue.getId()) && waited < 5_000) {
+			Thread.sleep(20);
+			waited += 20;
+		}
+		assertTrue(escalated(overdue.getId()), "overdue complaint escalated on the first tick");
+		assertFalse(escalated(dueSoon.getId()));
+		assertFalse(escalated(farOut.getId()));
+		// Only dueSoon and backfilled (created now, three days out) are in the wheel; farOut waits for a refill
+		assertEquals(2, slaEngine.timers());
+		assertNotNull(complaintRepository.findById(backfilled.getId()).orElseThrow().getDeadline());
+	}
+}
@@ -0,0 +1,152 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Runs the client against a local {@link HttpServer} standing in for the bulk SMS gateway. */
+class SmsGatewayClientTest {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private HttpServer gateway;
+	private ExecutorService gatewayThreads;
+	private final AtomicInteger requests = new AtomicInteger();
+	private final AtomicInteger received = new AtomicInteger();
+	private volatile int statusCode = 200;
+	private SimpleMeterRegistry registry;
+	private SmsGatewayClient client;
+
+	@BeforeEach
+	void startGateway() throws IOException {
+		gateway = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		gatewayThreads = Executors.newFixedThreadPool(8);
+		gateway.setExecutor(gatewayThreads);
+		gateway.createContext("/sms/bulk", this::handle);
+		gateway.start();
+		registry = new SimpleMeterRegistry();
+	}
+
+	@AfterEach
+	void stop() {
+		if (client != null) {
+			client.shutdown();
+		}
+		gateway.stop(0);
+		gatewayThreads.shutdownNow();
+	}
+
+	/** Accepts everything except numbers ending in 000. */
+	private void handle(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		JsonNode messages = MAPPER.readTree(exchange.getRequestBody()).path("messages");
+		received.addAndGet(messages.size());
+		assertEquals("Bearer test-key", exchange.getRequestHeaders().getFirst("Authorization"));
+
+		List<Map<String, String>> results = new ArrayList<>();
+		for (JsonNode m : messages) {
+			results.add(m.path("to").asText().endsWith("000")
+				? Map.of("status", "REJECTED", "error", "invalid number")
+				: Map.of("status", "ACCEPTED"));
+		}
+		byte[] body = MAPPER.writeValueAsBytes(Map.of("results", results));
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(statusCode, body.length);
+		exchange.getResponseBody().write(body);
+		exchange.close();
+	}
+
+	private void start(int maxBatchSize, double ratePerSecond) {
+		HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		client = new SmsGatewayClient(httpClient, MAPPER, "http://localhost:" + gateway.getAddress().getPort() + "/sms/bulk",
+			"test-key", Duration.ofSeconds(5), maxBatchSize, 10, ratePerSecond, 20_000, 8, registry);
+		client.start();
+	}
+
+	private List<CompletableFuture<Void>> sendMany(int count) {
+		List<CompletableFuture<Void>> futures = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			futures.add(client.submit(String.format("98%07d1", i), "Complaint #" + i + " updated", "key-" + i));
+		}
+		return futures;
+	}
+
+	@Test
+	void sustainsOverOneThousandMessagesPerSecond() throws Exception {
+		start(100, 100_000);
+		long start = System.nanoTime();
+		List<CompletableFuture<Void>> futures = sendMany(10_000);
+		CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		assertEquals(10_000, received.get());
+		assertTrue(requests.get() <= 200, "expected bulk requests, got " + requests.get());
+		assertTrue(10_000 / seconds > 1_000, "throughput " + (int) (10_000 / seconds) + " msg/s");
+		assertEquals(10_000.0, registry.get("sms.gateway.accepted").counter().count());
+	}
+
+	@Test
+	void holdsToTheGatewayQuota() throws Exception {
+		// One second of quota (500) goes out immediately, the remaining 1000 take two more seconds
+		start(100, 500);
+		long start = System.nanoTime();
+		CompletableFuture.allOf(sendMany(1_500).toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertTrue(elapsedMs >= 1_800, "quota should spread the send over ~2s, took " + elapsedMs + "ms");
+		assertEquals(1_500, received.get());
+	}
+
+	@Test
+	void rejectedRecipientFailsOnlyItsOwnFuture() throws Exception {
+		start(100, 1_000);
+		CompletableFuture<Void> ok = client.submit("9812345678", "hello", "a");
+		CompletableFuture<Void> bad = client.submit("9800000000", "hello", "b");
+
+		ok.get(5, TimeUnit.SECONDS);
+		ExecutionException e = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+		assertTrue(e.getCause().getMessage().contains("invalid number"));
+		assertEquals(1, requests.get());
+	}
+
+	@Test
+	void gatewayErrorFailsTheWholeBatch() {
+		statusCode = 503;
+		start(100, 1_000);
+		List<CompletableFuture<Void>> futures = sendMany(3);
+
+		for (CompletableFuture<Void> f : futures) {
+			ExecutionException e = assertThrows(ExecutionException.class, () -> f.get(5, TimeUnit.SECONDS));
+			assertTrue(e.getCause().getMessage().contains("HTTP 503"));
+		}
+	}
+
+	@Test
+	void nonPositiveQuotaIsRejectedAtStartup() {
+		for (double ratePerSecond : new double[] {0, -5}) {
+			IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> start(100, ratePerSecond));
+			assertTrue(e.getMessage().contains("sms.gateway.ratePerSecond"), e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,378 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.Complaint;
+import com.emysore.ecom_mysore_backend.model.ComplaintListItem;
+import com.emysore.ecom_mysore_backend.model.StoredObject;
+import com.emysore.ecom_mysore_backend.model.User;
+import com.emysore.ecom_mysore_backend.repository.ComplaintRepository;
+import com.emysore.ecom_mysore_backend.repository.StoredObjectRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.spi.IIORegistry;
+import javax.imageio.spi.ImageReaderSpi;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:objects;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+		"storage.local.dir=target/test-objects",
+		"storage.objects.gcGrace=PT0S"
+})
+@ActiveProfiles("dev")
+class StoredObjectServiceTest {
+
+	@Autowired
+	private ComplaintService complaintService;
+
+	@Autowired
+	private StoredObjectService storedObjectService;
+
+	@MockitoSpyBean
+	private ComplaintRepository complaintRepository;
+
+	@Autowired
+	private StoredObjectRepository storedObjectRepository;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Value("${storage.local.dir}")
+	private String localDir;
+
+	private static MockMultipartFile photo(int width, int height, Color color) throws Exception {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(color);
+		g.fillRect(0, 0, width, height);
+		g.dispose();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return new MockMultipartFile("image", "pothole.png", "image/png", out.toByteArray());
+	}
+
+	private Complaint report(String username, MockMultipartFile image) throws Exception {
+		User user = userService.findByUsername(username).orElseGet(() -> userService.register(username, "secret"));
+		Complaint complaint = new Complaint();
+		complaint.setTitle("Pothole on Sayyaji Rao Road");
+		complaint.setDescription("Deep pothole near the bus stop");
+		return complaintService.createComplaint(complaint, user, storedObjectService.prepare(image));
+	}
+
+	private Complaint awaitRenditions(Long id) throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			Complaint complaint = complaintRepository.findById(id).orElseThrow();
+			if (complaint.getImageThumbnailUrl() != null) {
+				return complaint;
+			}
+			Thread.sleep(100);
+		}
+		fail("no renditions for complaint #" + id);
+		return null;
+	}
+
+	private Path file(String url) {
+		return Paths.get(localDir).resolve(url.substring("/uploads/".length()));
+	}
+
+	@Test
+	void repeatReportsShareOneObjectAndItsRenditions() throws Exception {
+		MockMultipartFile image = photo(2400, 1800, new Color(120, 90, 60));
+		Complaint first = report("first-reporter", image);
+		Complaint second = report("second-reporter", image);
+
+		assertEquals(first.getImageUrl(), second.getImageUrl());
+		assertTrue(first.getImageUrl().startsWith("/uploads/objects/"), first.getImageUrl());
+		assertEquals(2, storedObjectRepository.findById(first.getImageSha256()).orElseThrow().getRefCount());
+
+		Complaint firstDone = awaitRenditions(first.getId());
+		Complaint secondDone = awaitRenditions(second.getId());
+		assertEquals(firstDone.getImageThumbnailUrl(), secondDone.getImageThumbnailUrl());
+		ComplaintListItem card = complaintService.getComplaints(null, null, null, PageRequest.of(0, 100)).stream()
+				.filter(item -> item.id().equals(first.getId())).findFirst().orElseThrow();
+		assertEquals(firstDone.getImageThumbnailUrl(), card.imageThumbnailUrl());
+		assertEquals(firstDone.getImageWebUrl(), card.imageWebUrl());
+
+		BufferedImage thumbnail = ImageIO.read(file(firstDone.getImageThumbnailUrl()).toFile());
+		assertEquals(320, thumbnail.getWidth());
+		assertEquals(240, thumbnail.getHeight());
+		BufferedImage web = ImageIO.read(file(firstDone.getImageWebUrl()).toFile());
+		assertEquals(1280, web.getWidth());
+		assertEquals(960, web.getHeight());
+	}
+
+	@Test
+	void undecodableUploadsKeepOnlyTheOriginal() throws Exception {
+		MockMultipartFile notAnImage = new MockMultipartFile("image", "scan.jpg", "image/jpeg", "not a jpeg".getBytes());
+		Complaint complaint = report("careless-reporter", notAnImage);
+
+		for (int i = 0; i < 100 && StoredObject.RENDITIONS_PENDING.equals(
+				storedObjectRepository.findById(complaint.getImageSha256()).orElseThrow().getRenditionStatus()); i++) {
+			Thread.sleep(100);
+		}
+		assertEquals(StoredObject.RENDITIONS_UNSUPPORTED,
+				storedObjectRepository.findById(complaint.getImageSha256()).orElseThrow().getRenditionStatus());
+		assertNull(complaintRepository.findById(complaint.getId()).orElseThrow().getImageThumbnailUrl());
+		assertTrue(Files.exists(file(complaint.getImageUrl())));
+	}
+
+	/** Claims files starting with {@code magic} and decodes them with {@code read}. */
+	static class StubReaderSpi extends ImageReaderSpi {
+		private final byte[] magic;
+		private final Supplier<BufferedImage> read;
+
+		StubReaderSpi(String magic, Supplier<BufferedImage> read) {
+			super("test", "1", new String[] {magic}, new String[] {magic}, new String[] {"image/x-" + magic},
+					StubReader.class.getName(), new Class<?>[] {ImageInputStream.class}, null,
+					false, null, null, null, null, false, null, null, null, null);
+			this.magic = magic.getBytes();
+			this.read = read;
+		}
+
+		@Override
+		public boolean canDecodeInput(Object source) throws IOException {
+			ImageInputStream stream = (ImageInputStream) source;
+			byte[] header = new byte[magic.length];
+			stream.mark();
+			try {
+				stream.readFully(header);
+			} catch (EOFException e) {
+				return false;
+			} finally {
+				stream.reset();
+			}
+			return Arrays.equals(header, magic);
+		}
+
+		@Override
+		public ImageReader createReaderInstance(Object extension) {
+			return new StubReader(this, read);
+		}
+
+		@Override
+		public String getDescription(Locale locale) {
+			return "Test decoder";
+		}
+	}
+
+	static class StubReader extends ImageReader {
+		private final Supplier<BufferedImage> read;
+
+		StubReader(ImageReaderSpi spi, Supplier<BufferedImage> read) {
+			super(spi);
+			this.read = read;
+		}
+
+		@Override
+		public int getNumImages(boolean allowSearch) {
+			return 1;
+		}
+
+		@Override
+		public int getWidth(int imageIndex) {
+			return 16;
+		}
+
+		@Override
+		public int getHeight(int imageIndex) {
+			return 16;
+		}
+
+		@Override
+		public Iterator<ImageTypeSpecifier> getImageTypes(int imageIndex) {
+			return List.of(ImageTypeSpecifier.createFromBufferedImageType(BufferedImage.TYPE_INT_RGB)).iterator();
+		}
+
+		@Override
+		public IIOMetadata getStreamMetadata() {
+			return null;
+		}
+
+		@Override
+		public IIOMetadata getImageMetadata(int imageIndex) {
+			return null;
+		}
+
+		@Override
+		public BufferedImage read(int imageIndex, ImageReadParam param) {
+			return read.get();
+		}
+	}
+
+	@Test
+	void imagesThatCrashTheDecoderAreUnsupported() throws Exception {
+		// Fails the way buggy decoders do on malformed data
+		StubReaderSpi spi = new StubReaderSpi("BOOM", () -> {
+			throw new ArrayIndexOutOfBoundsException("Index 4096 out of bounds for length 4096");
+		});
+		IIORegistry.getDefaultInstance().registerServiceProvider(spi);
+		try {
+			MockMultipartFile crafted = new MockMultipartFile("image", "crafted.jpg", "image/jpeg", "BOOM and then some".getBytes());
+			Complaint complaint = report("crafty-reporter", crafted);
+
+			for (int i = 0; i < 100 && StoredObject.RENDITIONS_PENDING.equals(
+					storedObjectRepository.findById(complaint.getImageSha256()).orElseThrow().getRenditionStatus()); i++) {
+				Thread.sleep(100);
+			}
+			// Not left PENDING, where the sweep would retry it forever
+			assertEquals(StoredObject.RENDITIONS_UNSUPPORTED,
+					storedObjectRepository.findById(complaint.getImageSha256()).orElseThrow().getRenditionStatus());
+		} finally {
+			IIORegistry.getDefaultInstance().deregisterServiceProvider(spi);
+		}
+	}
+
+	@Test
+	void uploadsAreReadOnce() throws Exception {
+		AtomicInteger reads = new AtomicInteger();
+		MockMultipartFile image = new MockMultipartFile("image", "pothole.png", "image/png",
+				photo(40, 30, Color.MAGENTA).getBytes()) {
+			@Override
+			public InputStream getInputStream() throws IOException {
+				reads.incrementAndGet();
+				return super.getInputStream();
+			}
+		};
+
+		String sha256 = storedObjectService.prepare(image);
+		assertEquals(1, reads.get());
+		// A repeat upload is hashed on its way to staging too, and its copy dropped
+		assertEquals(sha256, storedObjectService.prepare(image));
+		assertEquals(2, reads.get());
+		try (var staged = Files.list(Paths.get(localDir).resolve("staging"))) {
+			assertEquals(0, staged.filter(Files::isRegularFile).count());
+		}
+	}
+
+	@Test
+	void imagesArePreparedOutsideTheComplaintTransaction() throws Exception {
+		MockMultipartFile image = photo(32, 32, Color.PINK);
+		IllegalStateException e = assertThrows(IllegalStateException.class, () ->
+				new TransactionTemplate(transactionManager).execute(status -> {
+					try {
+						return storedObjectService.prepare(image);
+					} catch (IOException io) {
+						throw new AssertionError(io);
+					}
+				}));
+		assertTrue(e.getMessage().contains("before the complaint's transaction"), e.getMessage());
+	}
+
+	@Test
+	void complaintsCommittedWhileRenditionsRunGetThemToo() throws Exception {
+		CountDownLatch decoding = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		StubReaderSpi spi = new StubReaderSpi("SLOW", () -> {
+			decoding.countDown();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+		});
+		IIORegistry.getDefaultInstance().registerServiceProvider(spi);
+		try {
+			MockMultipartFile slow = new MockMultipartFile("image", "slow.jpg", "image/jpeg", "SLOW to decode".getBytes());
+			Complaint first = report("early-reporter", slow);
+			assertTrue(decoding.await(10, TimeUnit.SECONDS));
+			// Commits while the task for the same object is running; its submit is not dropped
+			Complaint second = report("late-reporter", slow);
+			release.countDown();
+
+			awaitRenditions(first.getId());
+			awaitRenditions(second.getId());
+			// The second pass only attaches what the first one made
+			verify(complaintRepository, timeout(10_000).times(2))
+					.attachImageRenditions(eq(first.getImageSha256()), anyString(), anyString());
+		} finally {
+			release.countDown();
+			IIORegistry.getDefaultInstance().deregisterServiceProvider(spi);
+		}
+	}
+
+	@Test
+	void objectsOfRolledBackComplaintsAreCollected() throws Exception {
+		String sha256 = storedObjectService.prepare(photo(64, 64, Color.ORANGE));
+		StoredObjectService.ImageRef ref = new TransactionTemplate(transactionManager).execute(status -> {
+			StoredObjectService.ImageRef acquired = storedObjectService.acquire(sha256);
+			status.setRollbackOnly();
+			return acquired;
+		});
+		assertEquals(0, storedObjectRepository.findById(ref.sha256()).orElseThrow().getRefCount());
+		assertTrue(Files.exists(file(ref.url())));
+
+		Thread.sleep(5);
+		storedObjectService.collectGarbage();
+
+		assertTrue(storedObjectRepository.findById(ref.sha256()).isEmpty());
+		assertFalse(Files.exists(file(ref.url())));
+	}
+
+	@Test
+	void reuploadDuringCollectionWaitsForTheSweepAndKeepsItsFile() throws Exception {
+		MockMultipartFile image = photo(48, 48, Color.CYAN);
+		String orphan = storedObjectService.prepare(image);
+		String orphanUrl = "/uploads/" + storedObjectRepository.findById(orphan).orElseThrow().getStorageKey();
+		// The sweep has claimed the object and is about to delete its files
+		Thread.sleep(5);
+		assertEquals(1, storedObjectRepository.markDeletingIfUnreferenced(orphan, LocalDateTime.now()));
+
+		CompletableFuture<StoredObjectService.ImageRef> reupload = CompletableFuture.supplyAsync(() -> {
+			try {
+				String sha256 = storedObjectService.prepare(image);
+				return new TransactionTemplate(transactionManager).execute(status -> storedObjectService.acquire(sha256));
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		Thread.sleep(300);
+		assertFalse(reupload.isDone(), "upload went ahead while the object was being deleted");
+
+		storedObjectService.collectGarbage();
+
+		StoredObjectService.ImageRef ref = reupload.get(10, TimeUnit.SECONDS);
+		assertEquals(orphanUrl, ref.url());
+		assertEquals(1, storedObjectRepository.findById(ref.sha256()).orElseThrow().getRefCount());
+		assertTrue(Files.exists(file(ref.url())), "file deleted under a referenced object");
+	}
+}
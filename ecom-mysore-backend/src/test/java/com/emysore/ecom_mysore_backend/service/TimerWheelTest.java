@@ -0,0 +1,127 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+
+	private static final long SECOND = 1_000;
+	private static final long DAY = 86_400 * SECOND;
+
+	@Test
+	void firesOnTheTickOfItsDeadlineAndNeverEarly() {
+		TimerWheel wheel = new TimerWheel(SECOND, 0);
+		wheel.schedule(1, 5_500);
+
+		assertEquals(List.of(), wheel.advance(5_999));
+		assertEquals(List.of(1L), wheel.advance(6_000));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void cascadesTimersDownFromTheHigherLevels() {
+		TimerWheel wheel = new TimerWheel(SECOND, 0);
+		wheel.schedule(7, 3 * DAY);
+
+		assertEquals(List.of(), wheel.advance(3 * DAY - SECOND));
+		assertEquals(List.of(7L), wheel.advance(3 * DAY));
+	}
+
+	@Test
+	void rescheduledAndCancelledTimersDoNotFire() {
+		TimerWheel wheel = new TimerWheel(SECOND, 0);
+		wheel.schedule(1, 10 * SECOND);
+		wheel.schedule(1, 20 * SECOND);
+		wheel.schedule(2, 10 * SECOND);
+		wheel.cancel(2);
+
+		assertEquals(List.of(), wheel.advance(15 * SECOND));
+		assertEquals(List.of(1L), wheel.advance(20 * SECOND));
+	}
+
+	@Test
+	void clearedTimersDoNotFire() {
+		TimerWheel wheel = new TimerWheel(SECOND, 0);
+		wheel.schedule(1, 0);
+		wheel.schedule(2, 10 * SECOND);
+		wheel.schedule(3, 5000 * SECOND);
+		wheel.clear();
+		wheel.schedule(4, 20 * SECOND);
+
+		assertEquals(1, wheel.size());
+		assertEquals(List.of(4L), wheel.advance(6000 * SECOND));
+	}
+
+	@Test
+	void pastDeadlinesFireOnTheNextAdvance() {
+		TimerWheel wheel = new TimerWheel(SECOND, 100 * SECOND);
+		wheel.schedule(3, 10 * SECOND);
+
+		assertEquals(List.of(3L), wheel.advance(100 * SECOND));
+	}
+
+	@Test
+	void refusesDeadlinesBeyondItsRange() {
+		TimerWheel wheel = new TimerWheel(SECOND, 0);
+		assertFalse(wheel.schedule(1, wheel.rangeMillis() + SECOND));
+		assertTrue(wheel.schedule(2, wheel.rangeMillis() - SECOND));
+		assertEquals(1, wheel.size());
+	}
+
+	@Test
+	void firesEveryTimerExactlyOnceOnItsTick() {
+		Random random = new Random(42);
+		long start = 1_700_000_000_000L;
+		TimerWheel wheel = new TimerWheel(SECOND, start);
+		Map<Long, Long> deadlines = new HashMap<>();
+		for (long id = 0; id < 5_000; id++) {
+			long deadline = start + (long) (random.nextDouble() * 10 * DAY);
+			deadlines.put(id, deadline);
+			wheel.schedule(id, deadline);
+		}
+
+		long now = start;
+		while (!deadlines.isEmpty()) {
+			long previous = now;
+			now += 1 + random.nextInt((int) (2 * 3_600 * SECOND));
+			for (Long id : wheel.advance(now)) {
+				long deadline = deadlines.remove(id);
+				assertTrue(deadline <= now, "fired early");
+				// Due within this step, at most one tick late
+				assertTrue(deadline > previous - SECOND, "fired late");
+			}
+			for (long deadline : deadlines.values()) {
+				assertTrue(Math.floorDiv(deadline + SECOND - 1, SECOND) > now / SECOND, "missed a due timer");
+			}
+			if (now > start + 11 * DAY) {
+				fail(deadlines.size() + " timers never fired");
+			}
+		}
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void handlesAMillionTimers() {
+		long start = 1_700_000_000_000L;
+		TimerWheel wheel = new TimerWheel(SECOND, start);
+		int count = 1_000_000;
+		for (long id = 1; id <= count; id++) {
+			// Spread over a week, ~1.65 timers per second
+			wheel.schedule(id, start + (id * 7 * DAY) / count);
+		}
+		assertEquals(count, wheel.size());
+
+		int fired = 0;
+		for (long now = start; now <= start + 7 * DAY; now += 60 * SECOND) {
+			fired += wheel.advance(now).size();
+		}
+		assertEquals(count, fired);
+		assertEquals(0, wheel.size());
+	}
+}
@@ -0,0 +1,140 @@
+package com.emysore.ecom_mysore_backend.service;
+
+import com.emysore.ecom_mysore_backend.model.User;
+import com.emysore.ecom_mysore_backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:users;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+		"security.password.bcryptStrength=6",
+		"security.password.workers=1",
+		"security.password.queueCapacity=1"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("dev")
+class UserServiceTest {
+
+	@Autowired
+	private UserService userService;
+
+	@MockitoSpyBean
+	private UserRepository userRepository;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	@Qualifier("passwordHashExecutor")
+	private ThreadPoolTaskExecutor passwordHashExecutor;
+
+	@MockitoSpyBean
+	private RefreshTokenService refreshTokenService;
+
+	@Test
+	void rehashesLegacyPasswordsOnLogin() {
+		// As stored before encoder ids: bare bcrypt at a lower cost
+		User legacy = new User();
+		legacy.setUsername("legacy-citizen");
+		legacy.setPassword(new BCryptPasswordEncoder(4).encode("s3cret"));
+		userRepository.save(legacy);
+
+		assertTrue(userService.authenticate("legacy-citizen", "wrong").join().isEmpty());
+		assertTrue(userRepository.findByUsername("legacy-citizen").orElseThrow().getPassword().startsWith("$2a$04$"));
+
+		assertTrue(userService.authenticate("legacy-citizen", "s3cret").join().isPresent());
+		String rehashed = userRepository.findByUsername("legacy-citizen").orElseThrow().getPassword();
+		assertTrue(rehashed.startsWith("{bcrypt}$2a$06$"), rehashed);
+		assertTrue(userService.authenticate("legacy-citizen", "s3cret").join().isPresent());
+	}
+
+	@Test
+	void answers429WhenTheHashingPoolIsFull() throws Exception {
+		userService.register("storm-citizen", "s3cret");
+		String login = "{\"username\":\"storm-citizen\",\"password\":\"s3cret\"}";
+
+		// One task running and one queued fill a pool of one worker with a queue of one
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			passwordHashExecutor.execute(() -> {
+				running.countDown();
+				await(release);
+			});
+			// The worker may still be finishing the registration; only queue behind it once it is blocked
+			assertTrue(running.await(10, TimeUnit.SECONDS));
+			passwordHashExecutor.execute(() -> await(release));
+			mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(login))
+					.andExpect(status().isTooManyRequests())
+					.andExpect(header().string("Retry-After", "1"));
+		} finally {
+			release.countDown();
+		}
+
+		MvcResult pending = mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(login))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(pending))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.username").value("storm-citizen"));
+	}
+
+	@Test
+	void finishesLoginsOffTheHashingPool() throws Exception {
+		User legacy = new User();
+		legacy.setUsername("pool-citizen");
+		legacy.setPassword(new BCryptPasswordEncoder(4).encode("s3cret"));
+		userRepository.save(legacy);
+		Map<String, String> threads = new ConcurrentHashMap<>();
+		// Repository proxies have no real method to call through to; the UPDATE itself is covered above
+		doAnswer(call -> {
+			threads.put("rehash", Thread.currentThread().getName());
+			return 1;
+		}).when(userRepository).rehashPassword(anyLong(), anyString(), anyString());
+		doAnswer(call -> {
+			threads.put("issue", Thread.currentThread().getName());
+			return call.callRealMethod();
+		}).when(refreshTokenService).issue(any());
+
+		String login = "{\"username\":\"pool-citizen\",\"password\":\"s3cret\"}";
+		MvcResult pending = mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(login))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(pending))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.refreshToken").isNotEmpty());
+
+		assertTrue(threads.get("rehash").startsWith("login-"), threads.toString());
+		assertTrue(threads.get("issue").startsWith("login-"), threads.toString());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
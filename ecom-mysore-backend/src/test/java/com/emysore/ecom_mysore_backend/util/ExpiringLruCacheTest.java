@@ -0,0 +1,73 @@
+package com.emysore.ecom_mysore_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringLruCacheTest {
+
+	private final AtomicLong now = new AtomicLong();
+	private final AtomicInteger evictions = new AtomicInteger();
+
+	private ExpiringLruCache<String, String> cache(int maxEntries) {
+		return new ExpiringLruCache<>(maxEntries, now::get, evictions::incrementAndGet);
+	}
+
+	@Test
+	void expiredEntriesAreDroppedOnRead() {
+		ExpiringLruCache<String, String> cache = cache(10);
+		cache.put("k", "v", 100);
+
+		now.set(99);
+		assertEquals("v", cache.get("k"));
+		now.set(100);
+		assertNull(cache.get("k"));
+		assertEquals(0, cache.size());
+		assertEquals(1, evictions.get());
+	}
+
+	@Test
+	void overflowDropsExpiredEntriesBeforeTheLeastRecentlyUsed() {
+		ExpiringLruCache<String, String> cache = cache(2);
+		cache.put("expiring", "1", 10);
+		cache.put("live", "2", 1_000);
+		// expiring becomes most recently used, but is gone by the time the third entry arrives
+		assertEquals("1", cache.get("expiring"));
+		now.set(10);
+		cache.put("third", "3", 1_000);
+
+		assertEquals("2", cache.get("live"));
+		assertEquals("3", cache.get("third"));
+		assertEquals(1, evictions.get());
+
+		cache.get("third");
+		cache.put("fourth", "4", 1_000);
+		assertNull(cache.get("live"));
+		assertEquals(2, evictions.get());
+	}
+
+	@Test
+	void toleratesClockWrapAround() {
+		now.set(Long.MAX_VALUE - 5);
+		ExpiringLruCache<String, String> cache = cache(10);
+		cache.put("k", "v", Long.MAX_VALUE + 5);
+
+		assertEquals("v", cache.get("k"));
+		now.addAndGet(10);
+		assertNull(cache.get("k"));
+	}
+
+	@Test
+	void removeIfMatchesOnValues() {
+		ExpiringLruCache<String, String> cache = cache(10);
+		cache.put("a", "alice", 100);
+		cache.put("b", "bob", 100);
+		cache.removeIf("alice"::equals);
+
+		assertNull(cache.get("a"));
+		assertEquals("bob", cache.get("b"));
+	}
+}
@@ -0,0 +1,25 @@
+package com.emysore.ecom_mysore_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashingTest {
+
+	@Test
+	void sha256HexMatchesKnownVectors() {
+		assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", Hashing.sha256Hex(""));
+		assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", Hashing.sha256Hex("abc"));
+	}
+
+	@Test
+	void hexOfAStreamedDigestMatchesTheOneShotHash() {
+		MessageDigest digest = Hashing.sha256();
+		digest.update("ab".getBytes(StandardCharsets.UTF_8));
+		digest.update("c".getBytes(StandardCharsets.UTF_8));
+		assertEquals(Hashing.sha256Hex("abc"), Hashing.hex(digest));
+	}
+}
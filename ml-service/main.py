@@ -1,7 +1,7 @@
 from fastapi import FastAPI, HTTPException
 from pydantic import BaseModel
 from enum import Enum
-from typing import Optional
+from typing import List, Optional
 import re
 
 app = FastAPI(title="E-Mysore ML Service", version="1.0.0")
@@ -37,6 +37,12 @@ class Prediction(BaseModel):
     sentiment: Sentiment
     confidence: float
 
+class BatchInput(BaseModel):
+    items: List[ComplaintInput]
+
+class BatchPrediction(BaseModel):
+    predictions: List[Prediction]
+
 
 def analyze_text(text: str):
     """Helper function to analyze text using keyword-based heuristics"""
@@ -103,6 +109,24 @@ async def predict(input: ComplaintInput):
         confidence=confidence
     )
 
+@app.post("/predict/batch", response_model=BatchPrediction)
+async def predict_batch(input: BatchInput):
+    """
+    Analyze several complaints in one call. Predictions are returned in request order.
+    Items with empty text are classified as-is rather than failing the whole batch.
+    """
+    predictions = []
+    for item in input.items:
+        text = " ".join(filter(None, [item.title, item.description]))
+        category, urgency, sentiment, confidence = analyze_text(text)
+        predictions.append(Prediction(
+            category=category,
+            urgency=urgency,
+            sentiment=sentiment,
+            confidence=confidence
+        ))
+    return BatchPrediction(predictions=predictions)
+
 @app.post("/sentiment")
 async def analyze_sentiment(input: TextInput):
     """
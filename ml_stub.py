@@ -1,11 +1,27 @@
 from fastapi import FastAPI, HTTPException
 from pydantic import BaseModel
+import asyncio
+import os
+import random
 import uvicorn
 
 app = FastAPI()
 
+# Fault injection for resilience testing of the backend, e.g.
+#   ML_STUB_LATENCY_MS=3000 ML_STUB_FAILURE_RATE=0.5 python3 ml_stub.py
+LATENCY_MS = int(os.environ.get("ML_STUB_LATENCY_MS", "0"))
+FAILURE_RATE = float(os.environ.get("ML_STUB_FAILURE_RATE", "0"))
+
+async def inject_faults():
+    if LATENCY_MS > 0:
+        await asyncio.sleep(LATENCY_MS / 1000.0)
+    if FAILURE_RATE > 0 and random.random() < FAILURE_RATE:
+        raise HTTPException(status_code=503, detail="Injected failure")
+
 class ComplaintData(BaseModel):
-    text: str
+    text: str | None = None
+    title: str | None = None
+    description: str | None = None
     location: str = None
     category: str = None
 
@@ -19,10 +35,26 @@ class PredictionResponse(BaseModel):
     sentiment: str | None = None
     confidence: float | None = None
 
+class BatchData(BaseModel):
+    items: list[ComplaintData]
+
+class BatchResponse(BaseModel):
+    predictions: list[PredictionResponse]
+
 @app.post("/predict", response_model=PredictionResponse)
 async def predict_complaint(data: ComplaintData):
+    await inject_faults()
+    return classify(data)
+
+@app.post("/predict/batch", response_model=BatchResponse)
+async def predict_batch(batch: BatchData):
+    # Same classifier as /predict, one result per item in request order
+    await inject_faults()
+    return BatchResponse(predictions=[classify(item) for item in batch.items])
+
+def classify(data: ComplaintData) -> PredictionResponse:
     # Improved rule-based classifier with simple scoring and confidence
-    text = (data.text or "").lower()
+    text = (data.text or " ".join(filter(None, [data.title, data.description]))).lower()
     category = (data.category or "").lower()
 
     # Keywords and weights for departments